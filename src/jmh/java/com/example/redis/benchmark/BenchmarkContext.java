@@ -0,0 +1,42 @@
+package com.example.redis.benchmark;
+
+import com.example.redis.RedisApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.stream.Stream;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ * 레디스는 application.yml 의 spring.redis.host/port 로 떠 있는 로컬 서버를 사용하고,
+ * DB 는 H2 메모리 DB 로 대체한다.
+ * 주문 이벤트 발행(XADD)과 저장 worker 는 꺼서 재고 차감 방식끼리 같은 레디스 명령만 비교한다. (이벤트 경로를 측정하려면 args 로 다시 켬)
+ */
+final class BenchmarkContext {
+
+    private static final String[] DEFAULT_ARGS = {
+            "--spring.datasource.url=jdbc:h2:mem:benchmark",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.sql.init.mode=never",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--product.order-events.enabled=false",
+            "--product.order-events.worker.enabled=false",
+            "--logging.level.root=WARN"
+    };
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * @param args 추가 설정 (--key=value)
+     * @return
+     */
+    static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(RedisApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(Stream.concat(Stream.of(DEFAULT_ARGS), Stream.of(args)).toArray(String[]::new));
+    }
+}
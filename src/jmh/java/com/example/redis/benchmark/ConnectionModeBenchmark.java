@@ -0,0 +1,107 @@
+package com.example.redis.benchmark;
+
+import com.example.redis.service.ProductQuantityService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 레디스 연결 방식(product.redis.connection-mode)별 처리량 비교
+ * - pooled: 풀링 팩토리 하나 (일반 명령은 공유 연결)
+ * - shared: 일반 명령은 공유 연결, 파이프라인은 기본 풀, 트랜잭션은 별도 풀
+ * - dedicated: 모든 명령이 풀에서 연결 대여
+ * 측정이 끝나면 레디스에 연결된 클라이언트 수(connected_clients)를 출력한다.
+ * 실행 전 로컬 레디스(spring.redis.host/port)가 떠 있어야 한다.
+ *
+ * ./gradlew jmh -Pjmh.includes=ConnectionModeBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class ConnectionModeBenchmark {
+
+    private static final String PROD_ID = "BENCH-CONN";
+
+    @Param({"pooled", "shared", "dedicated"})
+    private String connectionMode;
+
+    private ConfigurableApplicationContext context;
+    private ProductQuantityService productQuantityService;
+    private RedisTemplate<String, Long> incrRedisTemplate;
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void startContext() {
+        context = BenchmarkContext.start("--product.redis.connection-mode=" + connectionMode,
+                "--spring.redis.lettuce.pool.max-active=64",
+                "--spring.redis.lettuce.pool.max-idle=64");
+        productQuantityService = context.getBean(ProductQuantityService.class);
+        incrRedisTemplate = context.getBean("incrRedisTemplate", RedisTemplate.class);
+        stringRedisTemplate = context.getBean(StringRedisTemplate.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        Properties clients = stringRedisTemplate.execute((RedisCallback<Properties>) connection -> info(connection));
+        System.out.printf("%n[%s] connected_clients=%s%n", connectionMode, clients.getProperty("connected_clients"));
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStock() {
+        incrRedisTemplate.opsForValue().set("PRODUCT:STOCKED:" + PROD_ID, (long) Integer.MAX_VALUE);
+        incrRedisTemplate.opsForValue().set("PRODUCT:STOCKED:" + PROD_ID + "-TX", 0L);
+    }
+
+    /**
+     * 일반 명령(GET)
+     */
+    @Benchmark
+    public Long get() {
+        return incrRedisTemplate.opsForValue().get("PRODUCT:STOCKED:" + PROD_ID);
+    }
+
+    /**
+     * lua 스크립트 재고 차감
+     */
+    @Benchmark
+    public Object reserveStock() {
+        return productQuantityService.reserveStock(PROD_ID, 1);
+    }
+
+    /**
+     * WATCH/MULTI/EXEC 트랜잭션 (전용 연결)
+     */
+    @Benchmark
+    public void transaction() {
+        productQuantityService.procBuyIncrement_transaction(PROD_ID + "-TX", Integer.MAX_VALUE, 1);
+    }
+
+    private Properties info(RedisConnection connection) {
+        return connection.serverCommands().info("clients");
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.redis.benchmark;
+
+import com.example.redis.service.ProductQuantityService;
+import com.example.redis.util.ProductKeys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 구매 경로 키 생성/스크립트 호출 할당량 비교
+ * - key*: 요청마다 String.format 으로 만든 키 / ProductKeys 캐시 키
+ * - procBuyIncrement*: 변경 전 procBuyIncrement(String.format 키, 요청마다 INFO 로그) / 현재 procBuyIncrement(캐시 키, 샘플링한 DEBUG 로그)
+ *   두 경로가 같은 레디스 명령(GET, INCRBY)만 보내도록 주문 이벤트 발행은 끈 상태(BenchmarkContext)로, 변경 전 로그가 실제로 기록되도록 이 클래스의 로그 레벨은 INFO 로 둔다.
+ * 연산당 할당 바이트는 gc 프로파일러의 gc.alloc.rate.norm 으로 확인한다.
+ * 실행 전 로컬 레디스(spring.redis.host/port)가 떠 있어야 한다.
+ *
+ * ./gradlew jmh -Pjmh.includes=KeyAllocationBenchmark -Pjmh.profilers=gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyAllocationBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyAllocationBenchmark.class);
+
+    private static final String PROD_ID = "BENCH-KEYS";
+    private static final int TOTAL_QUANTITY = Integer.MAX_VALUE;
+
+    private ConfigurableApplicationContext context;
+    private ProductKeys productKeys;
+    private ProductQuantityService productQuantityService;
+    private RedisTemplate<String, Long> incrRedisTemplate;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void startContext() {
+        context = BenchmarkContext.start("--logging.level.com.example.redis.benchmark=INFO");
+        productKeys = context.getBean(ProductKeys.class);
+        productQuantityService = context.getBean(ProductQuantityService.class);
+        incrRedisTemplate = context.getBean("incrRedisTemplate", RedisTemplate.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        incrRedisTemplate.delete(productKeys.stockKey(PROD_ID));
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStock() {
+        incrRedisTemplate.opsForValue().set(productKeys.stockKey(PROD_ID), 0L);
+    }
+
+    @Benchmark
+    public String keyFormat() {
+        return String.format("%s:%s", "PRODUCT:STOCKED", PROD_ID);
+    }
+
+    @Benchmark
+    public String keyCached() {
+        return productKeys.stockKey(PROD_ID);
+    }
+
+    /**
+     * 변경 전 procBuyIncrement
+     */
+    @Benchmark
+    public Long procBuyIncrementBaseline() {
+        ValueOperations<String, Long> valusOps = incrRedisTemplate.opsForValue();
+
+        Long stockedQuantity = valusOps.get(String.format("%s:%s", "PRODUCT:STOCKED", PROD_ID));
+        log.info("{}-stockedQuantity:{}", Thread.currentThread().getName(), stockedQuantity);
+        if (stockedQuantity >= TOTAL_QUANTITY) {
+            throw new IllegalStateException("[제고부족]");
+        }
+        if ((stockedQuantity + 1) > TOTAL_QUANTITY) {
+            throw new IllegalStateException("[판매수량부족]");
+        }
+        Long resVal = valusOps.increment(String.format("%s:%s", "PRODUCT:STOCKED", PROD_ID), 1);
+        log.info("{}-resVal:{}", Thread.currentThread().getName(), resVal);
+
+        if (TOTAL_QUANTITY < resVal) {
+            throw new IllegalStateException("[판매수량 오버]");
+        }
+        return resVal;
+    }
+
+    @Benchmark
+    public void procBuyIncrement() {
+        productQuantityService.procBuyIncrement(PROD_ID, TOTAL_QUANTITY, 1);
+    }
+}
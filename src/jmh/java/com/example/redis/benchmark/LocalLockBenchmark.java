@@ -0,0 +1,102 @@
+package com.example.redis.benchmark;
+
+import com.example.redis.util.StockSnapshot;
+import com.example.redis.util.StripedLocks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 노드 메모리 lock 경합 비교 (레디스 없이 실행 가능)
+ * 스레드마다 skus 개 상품 중 하나를 맡아 lock 안에서 일정 작업(레디스 호출 대신 consumeCPU)을 반복한다.
+ * - global: 서비스 전체가 lock 하나를 공유 (이전 ReentrantLock 필드)
+ * - striped: 상품번호 해시로 나눈 lock (StripedLocks), 상품 수가 스레드 수 이상이면 스레드 수에 비례해 증가해야 함
+ * - stamped: 재고부족 상품의 optimistic read 확인
+ * - snapshot: 재고부족 상품의 lock-free 스냅샷 확인 (StockSnapshot)
+ *
+ * ./gradlew jmh -Pjmh.includes=LocalLockBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class LocalLockBenchmark {
+
+    private static final int WORK_TOKENS = 500;
+
+    @Param({"1", "8", "64"})
+    private int skus;
+
+    private final ReentrantLock globalLock = new ReentrantLock();
+    private StripedLocks stripedLocks;
+    private StockSnapshot stockSnapshot;
+
+    @Setup
+    public void setUp() {
+        stripedLocks = new StripedLocks(64);
+        stockSnapshot = new StockSnapshot();
+    }
+
+    @State(Scope.Thread)
+    public static class Sku {
+        private String prodId;
+
+        @Setup
+        public void setUp(LocalLockBenchmark benchmark, ThreadParams threadParams) {
+            prodId = "SKU-" + threadParams.getThreadIndex() % benchmark.skus;
+            benchmark.stockSnapshot.observe(prodId, 1000L);
+        }
+    }
+
+    @Benchmark
+    public void global(Sku sku) {
+        globalLock.lock();
+        try {
+            Blackhole.consumeCPU(WORK_TOKENS);
+        } finally {
+            globalLock.unlock();
+        }
+    }
+
+    @Benchmark
+    public void striped(Sku sku) {
+        ReentrantLock lock = stripedLocks.lock(sku.prodId);
+        lock.lock();
+        try {
+            Blackhole.consumeCPU(WORK_TOKENS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Benchmark
+    public boolean stamped(Sku sku) {
+        StampedLock stampedLock = stripedLocks.stampedLock(sku.prodId);
+        long stamp = stampedLock.tryOptimisticRead();
+        Blackhole.consumeCPU(WORK_TOKENS);
+        return stampedLock.validate(stamp);
+    }
+
+    @Benchmark
+    public boolean snapshot(Sku sku) {
+        return stockSnapshot.isSoldOut(sku.prodId, 1000);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.redis.benchmark;
+
+import com.example.redis.model.AvailablePoint;
+import com.example.redis.model.User;
+import com.example.redis.serializer.CompactRedisSerializer;
+import com.example.redis.serializer.LocalDateTimeConverters;
+import com.example.redis.serializer.UserCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.convert.MappingRedisConverter;
+import org.springframework.data.redis.core.convert.RedisCustomConversions;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.mapping.RedisMappingContext;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 값 저장 형식(product.redis.value-format)별 인코딩/디코딩 시간과 크기 비교
+ * - User: userJsonRedisTemplate 의 값 직렬화 (Jackson2JsonRedisSerializer / CompactRedisSerializer)
+ * - AvailablePoint: repository 컨버터(MappingRedisConverter)가 만드는 hash (LocalDateTime ISO 문자열 / 압축)
+ * 객체당 바이트 수는 시작시 출력한다. (hash 는 필드 이름 + 값 바이트 합)
+ * 레디스 없이 실행 가능
+ *
+ * ./gradlew jmh -Pjmh.includes=SerializerBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializerBenchmark {
+
+    @Param({"json", "compact"})
+    private String valueFormat;
+
+    private RedisSerializer<User> userSerializer;
+    private MappingRedisConverter pointConverter;
+
+    private User user;
+    private byte[] userBytes;
+    private AvailablePoint point;
+    private RedisData pointData;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.registerModule(new JavaTimeModule());
+        Jackson2JsonRedisSerializer<User> jsonSerializer = new Jackson2JsonRedisSerializer<>(User.class);
+        jsonSerializer.setObjectMapper(objectMapper);
+
+        boolean compact = "compact".equals(valueFormat);
+        userSerializer = compact ? new CompactRedisSerializer<>(new UserCodec(), jsonSerializer, true) : jsonSerializer;
+        pointConverter = new MappingRedisConverter(new RedisMappingContext());
+        pointConverter.setCustomConversions(new RedisCustomConversions(compact
+                ? List.of(LocalDateTimeConverters.LocalDateTimeToCompactBytesConverter.INSTANCE,
+                LocalDateTimeConverters.BytesToLocalDateTimeConverter.INSTANCE)
+                : List.of()));
+        pointConverter.afterPropertiesSet();
+
+        user = User.builder().name("홍길동").phone("010-1234-5678").build();
+        userBytes = userSerializer.serialize(user);
+        point = AvailablePoint.builder()
+                .id("123456789")
+                .userName("test01")
+                .point(1000L)
+                .refreshTime(LocalDateTime.now())
+                .build();
+        pointData = writePoint();
+
+        System.out.printf("%n[%s] user bytes=%d, availablePoint hash bytes=%d%n",
+                valueFormat, userBytes.length, hashBytes(pointData.getBucket().asMap()));
+    }
+
+    @Benchmark
+    public byte[] encodeUser() {
+        return userSerializer.serialize(user);
+    }
+
+    @Benchmark
+    public User decodeUser() {
+        return userSerializer.deserialize(userBytes);
+    }
+
+    @Benchmark
+    public RedisData writePoint() {
+        RedisData data = new RedisData();
+        pointConverter.write(point, data);
+        return data;
+    }
+
+    @Benchmark
+    public AvailablePoint readPoint() {
+        return pointConverter.read(AvailablePoint.class, pointData);
+    }
+
+    private static int hashBytes(Map<String, byte[]> hash) {
+        return hash.entrySet().stream()
+                .mapToInt(entry -> entry.getKey().length() + entry.getValue().length)
+                .sum();
+    }
+}
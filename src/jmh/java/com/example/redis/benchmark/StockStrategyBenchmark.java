@@ -0,0 +1,250 @@
+package com.example.redis.benchmark;
+
+import com.example.redis.service.ProductQuantityService;
+import com.example.redis.service.StockReserveResult;
+import com.example.redis.util.ProductKeys;
+import com.example.redis.util.SoldOutRegistry;
+import com.example.redis.util.StockSnapshot;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ProductQuantityService 재고 처리 방식별 성능 비교
+ * 스레드 수(1, 8, 64, 256)별 하위 클래스로 처리량(Throughput)과 응답시간 분포(SampleTime: p50/p99/p999)를 측정하고,
+ * 판매 수(reserved), 거절 수(rejected, 그 중 락 획득 실패 lockTimeout), 전체 수량을 초과해 판매된 수량(oversell)을 보조 지표(Counters)로 함께 출력한다.
+ * 측정 구간 중 재고가 소진되면 이후 호출은 품절 표시로 레디스 호출 없이 거절되어 처리량이 부풀려지므로, 전체 수량은 소진되지 않을 만큼 크게 잡는다.
+ * 실행 전 로컬 레디스(spring.redis.host/port)가 떠 있어야 한다.
+ *
+ * ./gradlew jmh -Pjmh.includes=StockStrategyBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class StockStrategyBenchmark {
+
+    /**
+     * 측정 구간마다 판매 가능한 전체 수량 (구간당 판매 수(reserved)보다 충분히 커야 함)
+     */
+    private static final int TOTAL_QUANTITY = 10_000_000;
+    private static final int BUY_QUANTITY = 1;
+
+    private static final String DECREMENT_PROD_ID = "BENCH-DECR";
+    private static final String INCREMENT_PROD_ID = "BENCH-INCR";
+
+    private ConfigurableApplicationContext context;
+    private ProductQuantityService productQuantityService;
+    private RedisTemplate<String, Long> incrRedisTemplate;
+    private StringRedisTemplate stringRedisTemplate;
+    private ProductKeys productKeys;
+    private StockSnapshot stockSnapshot;
+    private SoldOutRegistry soldOutRegistry;
+
+    private final AtomicLong orderSequence = new AtomicLong();
+
+    /**
+     * oversell 을 더할 스레드의 Counters (구간마다 처음 호출한 스레드)
+     */
+    private volatile Counters reporter;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void startContext() {
+        context = BenchmarkContext.start();
+        productQuantityService = context.getBean(ProductQuantityService.class);
+        incrRedisTemplate = context.getBean("incrRedisTemplate", RedisTemplate.class);
+        stringRedisTemplate = context.getBean(StringRedisTemplate.class);
+        productKeys = context.getBean(ProductKeys.class);
+        stockSnapshot = context.getBean(StockSnapshot.class);
+        soldOutRegistry = context.getBean(SoldOutRegistry.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStock() {
+        incrRedisTemplate.opsForValue().set("PRODUCT:STOCKED:" + DECREMENT_PROD_ID, (long) TOTAL_QUANTITY);
+        incrRedisTemplate.opsForValue().set("PRODUCT:STOCKED:" + INCREMENT_PROD_ID, 0L);
+        for (int shard = 0; shard < productKeys.getOrderShards(); shard++) {
+            stringRedisTemplate.delete(productKeys.orderSoldKey(INCREMENT_PROD_ID, shard));
+            stringRedisTemplate.delete(productKeys.orderShardKey(INCREMENT_PROD_ID, shard));
+        }
+        stockSnapshot.invalidateAll();
+        soldOutRegistry.reset(DECREMENT_PROD_ID);
+        soldOutRegistry.reset(INCREMENT_PROD_ID);
+        reporter = null;
+    }
+
+    /**
+     * 모든 스레드의 측정이 끝난 뒤 한 번 실행되고, 보조 지표는 이후에 수집되므로 oversell 을 한 스레드의 Counters 에 더한다.
+     */
+    @TearDown(Level.Iteration)
+    public void countOversell() {
+        long decrementOversell = Math.max(0, -incrRedisTemplate.opsForValue().get("PRODUCT:STOCKED:" + DECREMENT_PROD_ID));
+        long incrementOversell = Math.max(0, incrRedisTemplate.opsForValue().get("PRODUCT:STOCKED:" + INCREMENT_PROD_ID) - TOTAL_QUANTITY);
+        long setOversell = Math.max(0, productQuantityService.getOrderSold(INCREMENT_PROD_ID) - TOTAL_QUANTITY);
+
+        Counters counters = reporter;
+        if (counters != null) {
+            counters.oversell += decrementOversell + incrementOversell + setOversell;
+        }
+    }
+
+    @Benchmark
+    public void procBuyQuantity(Counters counters) {
+        run(counters, () -> {
+            productQuantityService.procBuyQuantity(DECREMENT_PROD_ID, BUY_QUANTITY);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public void procBuyIncrement(Counters counters) {
+        run(counters, () -> {
+            productQuantityService.procBuyIncrement(INCREMENT_PROD_ID, TOTAL_QUANTITY, BUY_QUANTITY);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public void procBuyStock(Counters counters) {
+        String orderId = String.valueOf(orderSequence.incrementAndGet());
+        run(counters, () -> {
+            productQuantityService.procBuyStock(orderId, INCREMENT_PROD_ID, TOTAL_QUANTITY, BUY_QUANTITY);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public void buyIncrement_localLock(Counters counters) {
+        run(counters, () -> {
+            productQuantityService.buyIncrement_localLock(INCREMENT_PROD_ID, TOTAL_QUANTITY, BUY_QUANTITY);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public void buyIncrement_stampedLock(Counters counters) {
+        run(counters, () -> {
+            productQuantityService.buyIncrement_stampedLock(INCREMENT_PROD_ID, TOTAL_QUANTITY, BUY_QUANTITY);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public void buyIncrement_distributedLock(Counters counters) {
+        run(counters, () -> {
+            productQuantityService.buyIncrement_distributedLock(INCREMENT_PROD_ID, TOTAL_QUANTITY, BUY_QUANTITY);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public void procBuyIncrement_batch(Counters counters) {
+        run(counters, () -> {
+            productQuantityService.procBuyIncrement_batch(INCREMENT_PROD_ID, TOTAL_QUANTITY, BUY_QUANTITY);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public void procBuyIncrement_transaction(Counters counters) {
+        run(counters, () -> {
+            productQuantityService.procBuyIncrement_transaction(INCREMENT_PROD_ID, TOTAL_QUANTITY, BUY_QUANTITY);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public void reserveStock(Counters counters) {
+        run(counters, () -> productQuantityService.reserveStock(DECREMENT_PROD_ID, BUY_QUANTITY).isReserved());
+    }
+
+    private void run(Counters counters, StockCall stockCall) {
+        if (reporter == null) {
+            reporter = counters;
+        }
+        try {
+            if (stockCall.call()) {
+                counters.reserved++;
+            } else {
+                counters.rejected++;
+            }
+        } catch (IllegalStateException e) {
+            // 락 대기 timeout 도 판매하지 못한 요청이므로 거절에 포함
+            if (StockReserveResult.LOCK_TIMEOUT.getMessage().equals(e.getMessage())) {
+                counters.lockTimeouts++;
+            }
+            counters.rejected++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface StockCall {
+        /**
+         * @return 판매 여부
+         */
+        boolean call() throws InterruptedException;
+    }
+
+    /**
+     * 스레드별 보조 지표 (측정 구간마다 스레드 합계로 출력)
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long reserved;
+        public long rejected;
+        public long lockTimeouts;
+        public long oversell;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            reserved = 0;
+            rejected = 0;
+            lockTimeouts = 0;
+            oversell = 0;
+        }
+    }
+
+    @Threads(1)
+    public static class Threads1 extends StockStrategyBenchmark {
+    }
+
+    @Threads(8)
+    public static class Threads8 extends StockStrategyBenchmark {
+    }
+
+    @Threads(64)
+    public static class Threads64 extends StockStrategyBenchmark {
+    }
+
+    @Threads(256)
+    public static class Threads256 extends StockStrategyBenchmark {
+    }
+}
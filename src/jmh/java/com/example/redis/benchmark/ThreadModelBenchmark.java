@@ -0,0 +1,103 @@
+package com.example.redis.benchmark;
+
+import com.example.redis.service.ProductQuantityService;
+import com.example.redis.util.VirtualThreads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청 처리 스레드 모델별 동시 요청 처리 시간 비교
+ * - platform: tomcat 기본 최대 스레드 수(200) 고정 풀
+ * - virtual: 요청마다 가상 스레드 (Java 21+ 런타임 필요, 미지원 런타임에서는 해당 조합이 실패로 기록됨)
+ * 요청 하나는 재고 차감(레디스 왕복) 후 다른 저장소 호출을 가정한 대기(latencyMs)로 구성되며,
+ * concurrency 개의 요청을 한번에 보내 모두 끝날 때까지의 시간을 측정한다.
+ * 실행 전 로컬 레디스(spring.redis.host/port)가 떠 있어야 한다.
+ *
+ * ./gradlew jmh -Pjmh.includes=ThreadModelBenchmark -PvirtualThreads
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadModelBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+    private static final String PROD_ID = "BENCH-THREAD";
+
+    @Param({"platform", "virtual"})
+    private String threadModel;
+
+    @Param({"1000", "5000"})
+    private int concurrency;
+
+    @Param({"0", "20"})
+    private long latencyMs;
+
+    private ConfigurableApplicationContext context;
+    private ProductQuantityService productQuantityService;
+    private RedisTemplate<String, Long> incrRedisTemplate;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void startContext() {
+        executor = "virtual".equals(threadModel)
+                ? VirtualThreads.newPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS, new CustomizableThreadFactory("bench-platform-"));
+        context = BenchmarkContext.start("--product.threads.virtual=" + "virtual".equals(threadModel));
+        productQuantityService = context.getBean(ProductQuantityService.class);
+        incrRedisTemplate = context.getBean("incrRedisTemplate", RedisTemplate.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        executor.shutdownNow();
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStock() {
+        incrRedisTemplate.opsForValue().set("PRODUCT:STOCKED:" + PROD_ID, (long) Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public void concurrentRequests() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> {
+                try {
+                    productQuantityService.reserveStock(PROD_ID, 1);
+                    if (latencyMs > 0) {
+                        Thread.sleep(latencyMs);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.redis.config;
+
+import io.lettuce.core.metrics.CommandLatencyRecorder;
+import io.lettuce.core.metrics.MicrometerCommandLatencyRecorder;
+import io.lettuce.core.metrics.MicrometerOptions;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.net.SocketAddress;
+
+/**
+ * lettuce 명령별 지연 시간 기록 (lettuce.command.completion / lettuce.command.firstresponse, command 태그 histogram)
+ * ClientResources 는 연결 팩토리보다 먼저 만들어지므로 MeterRegistry 를 직접 주입받으면
+ * 연결 팩토리가 registry 생성 도중에 만들어져 팩토리 지표(MeterBinder)가 등록되지 않는다.
+ * registry 에 bind 될 때 Micrometer 기록기로 교체하고, 그 전(기동 중)의 명령은 기록하지 않는다.
+ */
+public class DeferredCommandLatencyRecorder implements CommandLatencyRecorder, MeterBinder {
+
+    private volatile CommandLatencyRecorder delegate = CommandLatencyRecorder.disabled();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        delegate = new MicrometerCommandLatencyRecorder(registry, MicrometerOptions.builder().histogram(true).build());
+    }
+
+    @Override
+    public void recordCommandLatency(SocketAddress local, SocketAddress remote, ProtocolKeyword commandType,
+                                     long firstResponseLatency, long completionLatency) {
+        delegate.recordCommandLatency(local, remote, commandType, firstResponseLatency, completionLatency);
+    }
+}
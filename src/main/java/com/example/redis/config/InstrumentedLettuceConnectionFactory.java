@@ -0,0 +1,204 @@
+package com.example.redis.config;
+
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.data.redis.connection.ClusterCommandExecutor;
+import org.springframework.data.redis.connection.ClusterTopologyProvider;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClusterConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionProvider;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 연결 풀 지표와 사전 연결을 지원하는 LettuceConnectionFactory
+ * - 기동시 풀을 min-idle 개수만큼 미리 연결 (첫 요청들이 연결 생성을 기다리지 않음)
+ * - redis.pool.active / idle / waiters: commons-pool2 JMX 값 (이 팩토리의 jmx-name-prefix 로 등록된 풀만 합산)
+ * - redis.pool.borrow: 전용 연결(트랜잭션, 파이프라인 등)을 풀에서 빌려오기까지 대기 시간 (histogram)
+ * 팩토리가 여러 개면(shared 모드의 트랜잭션 전용 팩토리 등) 지표는 pool 태그로 구분한다.
+ * 공유 연결(shareNativeConnection)로 처리되는 일반 명령은 풀을 거치지 않는다.
+ */
+@Slf4j
+public class InstrumentedLettuceConnectionFactory extends LettuceConnectionFactory implements MeterBinder {
+
+    private static final String POOL_OBJECT_NAME = "org.apache.commons.pool2:type=GenericObjectPool,name=%s*";
+    private static final AtomicInteger FACTORY_SEQUENCE = new AtomicInteger();
+
+    private final String poolName;
+    private final GenericObjectPoolConfig<?> poolConfig;
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    private volatile Timer borrowTimer;
+    private volatile TimedConnectionProvider timedProvider;
+
+    /**
+     * 풀 설정의 jmx-name-prefix 뒤에 팩토리 순번을 붙여서, 같은 JVM 의 다른 팩토리(다른 컨텍스트 포함) 풀 값이 섞이지 않게 한다.
+     * (clientConfig 는 팩토리마다 새로 만들어 전달)
+     *
+     * @param poolName 지표의 pool 태그 값
+     */
+    public InstrumentedLettuceConnectionFactory(String poolName, RedisConfiguration redisConfiguration,
+                                                LettucePoolingClientConfiguration clientConfig) {
+        super(redisConfiguration, clientConfig);
+        this.poolName = poolName;
+        this.poolConfig = clientConfig.getPoolConfig();
+        poolConfig.setJmxNamePrefix(poolConfig.getJmxNamePrefix() + "-" + FACTORY_SEQUENCE.incrementAndGet() + "-");
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        prewarm();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        borrowTimer = Timer.builder("redis.pool.borrow")
+                .description("time waiting to borrow a dedicated connection from the pool")
+                .tag("pool", poolName)
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("redis.pool.active", this, factory -> factory.poolAttribute("NumActive"))
+                .description("connections borrowed from the pool")
+                .tag("pool", poolName)
+                .register(registry);
+        Gauge.builder("redis.pool.idle", this, factory -> factory.poolAttribute("NumIdle"))
+                .description("idle connections in the pool")
+                .tag("pool", poolName)
+                .register(registry);
+        Gauge.builder("redis.pool.waiters", this, factory -> factory.poolAttribute("NumWaiters"))
+                .description("threads waiting to borrow a connection")
+                .tag("pool", poolName)
+                .register(registry);
+    }
+
+    @Override
+    protected LettuceConnection doCreateLettuceConnection(StatefulRedisConnection<byte[], byte[]> sharedConnection,
+                                                          LettuceConnectionProvider connectionProvider,
+                                                          long timeout, int database) {
+        return super.doCreateLettuceConnection(sharedConnection, timed(connectionProvider), timeout, database);
+    }
+
+    @Override
+    protected LettuceClusterConnection doCreateLettuceClusterConnection(
+            StatefulRedisClusterConnection<byte[], byte[]> sharedConnection, LettuceConnectionProvider connectionProvider,
+            ClusterTopologyProvider topologyProvider, ClusterCommandExecutor clusterCommandExecutor,
+            Duration commandTimeout) {
+        return super.doCreateLettuceClusterConnection(sharedConnection, timed(connectionProvider), topologyProvider,
+                clusterCommandExecutor, commandTimeout);
+    }
+
+    /**
+     * 풀에서 min-idle 개수만큼 동시에 빌렸다가 반납하여 유휴 연결을 만들어 둠
+     * 레디스에 연결할 수 없으면 경고 후 요청시 연결한다.
+     */
+    private void prewarm() {
+        int minIdle = poolConfig.getMinIdle();
+        if (minIdle <= 0) {
+            return;
+        }
+
+        // 클러스터 연결은 StatefulRedisClusterConnection 타입별 풀에서 빌려옴
+        Class<? extends StatefulConnection> connectionType = isClusterAware()
+                ? StatefulRedisClusterConnection.class : StatefulConnection.class;
+        List<StatefulConnection<?, ?>> connections = new ArrayList<>(minIdle);
+        try {
+            // LettuceConnection 생성시 풀 provider 를 넘겨 받음
+            getConnection().close();
+            for (int i = 0; i < minIdle; i++) {
+                connections.add(timedProvider.getConnection(connectionType));
+            }
+            log.info("redis pool prewarmed: {} connections", minIdle);
+        } catch (RuntimeException e) {
+            log.warn("redis pool prewarm failed: {}", e.getMessage());
+        } finally {
+            connections.forEach(connection -> timedProvider.release(connection));
+        }
+    }
+
+    private LettuceConnectionProvider timed(LettuceConnectionProvider connectionProvider) {
+        TimedConnectionProvider provider = timedProvider;
+        if (provider == null || provider.delegate != connectionProvider) {
+            provider = new TimedConnectionProvider(connectionProvider);
+            timedProvider = provider;
+        }
+        return provider;
+    }
+
+    private double poolAttribute(String attribute) {
+        try {
+            double sum = 0;
+            for (ObjectName name : mBeanServer.queryNames(
+                    new ObjectName(String.format(POOL_OBJECT_NAME, poolConfig.getJmxNamePrefix())), null)) {
+                sum += ((Number) mBeanServer.getAttribute(name, attribute)).doubleValue();
+            }
+            return sum;
+        } catch (JMException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * 풀 provider 의 연결 대여 시간 측정
+     */
+    private class TimedConnectionProvider implements LettuceConnectionProvider {
+        private final LettuceConnectionProvider delegate;
+
+        TimedConnectionProvider(LettuceConnectionProvider delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <T extends StatefulConnection<?, ?>> T getConnection(Class<T> connectionType) {
+            long start = System.nanoTime();
+            try {
+                return delegate.getConnection(connectionType);
+            } finally {
+                record(start);
+            }
+        }
+
+        @Override
+        public <T extends StatefulConnection<?, ?>> CompletionStage<T> getConnectionAsync(Class<T> connectionType) {
+            long start = System.nanoTime();
+            return delegate.getConnectionAsync(connectionType).whenComplete((connection, e) -> record(start));
+        }
+
+        @Override
+        public void release(StatefulConnection<?, ?> connection) {
+            delegate.release(connection);
+        }
+
+        @Override
+        public CompletableFuture<Void> releaseAsync(StatefulConnection<?, ?> connection) {
+            return delegate.releaseAsync(connection);
+        }
+
+        private void record(long start) {
+            Timer timer = borrowTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
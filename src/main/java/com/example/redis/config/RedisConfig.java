@@ -1,33 +1,71 @@
 package com.example.redis.config;
 
+import com.example.redis.model.AvailablePoint;
 import com.example.redis.model.User;
+import com.example.redis.serializer.CompactRedisSerializer;
+import com.example.redis.serializer.LocalDateTimeConverters;
+import com.example.redis.serializer.UserCodec;
+import com.example.redis.util.NearCache;
+import com.example.redis.util.VirtualThreads;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.lettuce.core.ClientOptions;
 import io.lettuce.core.ReadFrom;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import lombok.RequiredArgsConstructor;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
-import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisKeyValueAdapter;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.RedisCustomConversions;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.repository.configuration.EnableRedisRepositories;
 import org.springframework.data.redis.serializer.GenericToStringSerializer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+import javax.annotation.PostConstruct;
 import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
 
 @Configuration
-@EnableRedisRepositories(basePackages = "com.example.redis.repository")
+@RequiredArgsConstructor
+// 만료된 엔티티의 인덱스는 AvailablePointIndexSweeper 가 정리 (keyspace 이벤트, phantom 복사본 미사용)
+@EnableRedisRepositories(basePackages = "com.example.redis.repository", shadowCopy = RedisKeyValueAdapter.ShadowCopy.OFF)
 public class RedisConfig {
 
+    public static final String CLUSTER_PROFILE = "cluster";
+
+    private static final String POOL_JMX_NAME_PREFIX = "redis-pool-";
+
+    private final Environment environment;
+
     @Value("${spring.redis.host}")
     private String redisHost;
 
@@ -38,53 +76,216 @@ public class RedisConfig {
     @Value("${spring.redis.cluster.nodes}")
     private List<String> clusterNodes;
 
+    @Value("${spring.redis.cluster.max-redirects:3}")
+    private int clusterMaxRedirects;
+
+    @Value("${spring.redis.cluster.refresh-period:30s}")
+    private Duration clusterRefreshPeriod;
+
+    @Value("${spring.redis.timeout:2s}")
+    private Duration commandTimeout;
+
+    @Value("${spring.redis.lettuce.shutdown-timeout:100ms}")
+    private Duration shutdownTimeout;
+
+    @Value("${spring.redis.lettuce.pool.max-active:8}")
+    private int poolMaxActive;
+
+    @Value("${spring.redis.lettuce.pool.max-idle:8}")
+    private int poolMaxIdle;
+
+    @Value("${spring.redis.lettuce.pool.min-idle:0}")
+    private int poolMinIdle;
+
+    @Value("${spring.redis.lettuce.pool.max-wait:-1ms}")
+    private Duration poolMaxWait;
+
+    @Value("${spring.redis.lettuce.pool.time-between-eviction-runs:-1ms}")
+    private Duration poolTimeBetweenEvictionRuns;
+
+    @Value("${product.redis.connection-mode:pooled}")
+    private RedisConnectionMode connectionMode;
+
+    @Value("${product.redis.value-format:json}")
+    private RedisValueFormat valueFormat;
 
-    public LettuceClientConfiguration lettuceClientConfiguration() {
+    @Value("${product.point-cache.max-size:10000}")
+    private int pointCacheMaxSize;
+
+    @Value("${product.point-cache.ttl:10s}")
+    private Duration pointCacheTtl;
+
+    @Value("${product.point.retention:30d}")
+    private Duration pointRetention;
+
+    @Value("${product.point.expired-grace:1h}")
+    private Duration pointExpiredGrace;
+
+    @Value("${product.threads.virtual:false}")
+    private boolean virtualThreads;
+
+    @Value("${product.threads.virtual-redis-pool-size:64}")
+    private int virtualRedisPoolSize;
+
+    @Value("${product.threads.virtual-redis-pool-max-wait-ms:1000}")
+    private long virtualRedisPoolMaxWaitMillis;
+
+    /**
+     * AvailablePoint 만료 시간 설정 (엔티티의 @TimeToLive 에서 사용)
+     */
+    @PostConstruct
+    public void configurePointRetention() {
+        AvailablePoint.setRetention(pointRetention, pointExpiredGrace);
+    }
+
+    /**
+     * 전용 연결(트랜잭션, 파이프라인 등) 풀과 타임아웃 설정
+     * 재고 확인(GET) 후 차감하는 방식과 판매 수량 합계(MGET)가 복제 지연으로 오래된 값을 읽으면 오버셀이 나므로,
+     * 클러스터에서도 모든 명령은 primary(UPSTREAM) 에서 읽는다. (replica 읽기가 필요하면 별도 읽기 전용 팩토리/템플릿으로 분리)
+     * 연결 풀 지표는 jmx-name-prefix(redis-pool-{poolName}-{팩토리 순번}-) 로 등록된 commons-pool2 JMX 값을 사용
+     *
+     * @param poolName 팩토리별 풀 이름 (지표의 pool 태그)
+     * @return
+     */
+    public LettucePoolingClientConfiguration lettuceClientConfiguration(String poolName) {
         GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
-        poolConfig.setMaxIdle(GenericObjectPoolConfig.DEFAULT_MAX_IDLE);
-        poolConfig.setMinIdle(GenericObjectPoolConfig.DEFAULT_MIN_IDLE);
-        poolConfig.setMaxTotal(GenericObjectPoolConfig.DEFAULT_MAX_TOTAL);
+        poolConfig.setMaxTotal(poolMaxActive);
+        poolConfig.setMaxIdle(poolMaxIdle);
+        poolConfig.setMinIdle(poolMinIdle);
+        poolConfig.setMaxWait(poolMaxWait);
+        // 유휴 연결 정리와 min-idle 유지 주기
+        poolConfig.setTimeBetweenEvictionRuns(poolTimeBetweenEvictionRuns);
+        poolConfig.setJmxNamePrefix(POOL_JMX_NAME_PREFIX + poolName);
+        if (virtualThreads && VirtualThreads.isSupported()) {
+            // 가상 스레드에서는 동시 요청 수가 스레드 수로 제한되지 않으므로 풀 크기가 전용 연결의 동시성 상한이 됨
+            // 풀을 키우고, 모자라면 무한 대기 대신 max-wait 후 실패하도록 설정
+            poolConfig.setMaxTotal(virtualRedisPoolSize);
+            poolConfig.setMaxIdle(virtualRedisPoolSize);
+            poolConfig.setMaxWait(Duration.ofMillis(virtualRedisPoolMaxWaitMillis));
+        }
 
         return LettucePoolingClientConfiguration.builder()
-                .readFrom(ReadFrom.REPLICA_PREFERRED)
-                .commandTimeout(Duration.ofMinutes(1))
-                .shutdownTimeout(Duration.ZERO)
+                .clientResources(lettuceClientResources())
+                .readFrom(ReadFrom.UPSTREAM)
+                .commandTimeout(commandTimeout)
+                .shutdownTimeout(shutdownTimeout)
+                .clientOptions(clientOptions())
                 .poolConfig(poolConfig)
                 .build();
     }
 
     /**
-     * 단독 서버 구성
+     * 모든 팩토리가 공유하는 lettuce 자원 (event loop, 명령 지연 기록)
+     * 템플릿과 관계없이 연결에서 실행되는 모든 명령의 지연 시간을 기록 (commandLatencyRecorder)
+     *
+     * @return
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources lettuceClientResources() {
+        return DefaultClientResources.builder()
+                .commandLatencyRecorder(commandLatencyRecorder())
+                .build();
+    }
+
+    @Bean
+    public DeferredCommandLatencyRecorder commandLatencyRecorder() {
+        return new DeferredCommandLatencyRecorder();
+    }
+
+    /**
+     * 클러스터는 MOVED/ASK 응답이나 재연결시, 그리고 주기적으로 슬롯 배치를 다시 읽음 (failover, resharding 대응)
+     *
+     * @return
+     */
+    public ClientOptions clientOptions() {
+        if (!isCluster()) {
+            return ClientOptions.create();
+        }
+        return ClusterClientOptions.builder()
+                .topologyRefreshOptions(ClusterTopologyRefreshOptions.builder()
+                        .enableAllAdaptiveRefreshTriggers()
+                        .enablePeriodicRefresh(clusterRefreshPeriod)
+                        .build())
+                .build();
+    }
+
+    /**
+     * 서버 구성
+     * cluster 프로파일이면 클러스터(spring.redis.cluster.nodes), 아니면 단독 서버(spring.redis.host/port)
+     *
+     * @return
+     */
+    public RedisConfiguration redisConfiguration() {
+        if (isCluster()) {
+            RedisClusterConfiguration redisClusterConfiguration = new RedisClusterConfiguration(clusterNodes);
+            redisClusterConfiguration.setMaxRedirects(clusterMaxRedirects);
+            return redisClusterConfiguration;
+        }
+        return new RedisStandaloneConfiguration(redisHost, redisPort);
+    }
+
+    private boolean isCluster() {
+        return environment.acceptsProfiles(Profiles.of(CLUSTER_PROFILE));
+    }
+
+    /**
+     * 일반(stateless) 명령용 기본 팩토리
+     * 서버 구성은 프로파일(redisConfiguration), 연결 방식은 product.redis.connection-mode 에 따름
      *
      * @return
      */
+    @Primary
     @Bean
     public LettuceConnectionFactory redisConnectionFactory() {
-        return new LettuceConnectionFactory(new RedisStandaloneConfiguration(redisHost, redisPort),
-                lettuceClientConfiguration());
+        // SHARED 도 풀링 설정으로 생성: 일반 명령은 공유 연결 하나로 다중화하고,
+        // 파이프라인/blocking 명령처럼 전용 연결이 필요한 호출은 요청마다 새 연결을 열지 않고 풀에서 대여
+        LettuceConnectionFactory connectionFactory = new InstrumentedLettuceConnectionFactory("default",
+                redisConfiguration(), lettuceClientConfiguration("default"));
+        connectionFactory.setShareNativeConnection(connectionMode != RedisConnectionMode.DEDICATED);
+        return connectionFactory;
     }
 
     /**
-     * 클러스터 서버 구성
+     * SHARED 모드에서 WATCH/MULTI 트랜잭션 전용 풀링 팩토리
+     * (트랜잭션 재시도가 몰려도 기본 팩토리의 파이프라인용 풀을 고갈시키지 않음, 풀 크기는 같은 pool 설정 사용)
+     *
      * @return
      */
-//    @Bean
-//    public RedisConnectionFactory redisConnectionFactory() {
-//        RedisClusterConfiguration redisClusterConfiguration = new RedisClusterConfiguration(
-//            clusterNodes);
-//        return new LettuceConnectionFactory(redisClusterConfiguration,
-//            lettuceClientConfiguration());
-//    }
+    @Bean
+    @ConditionalOnProperty(name = "product.redis.connection-mode", havingValue = "shared")
+    public InstrumentedLettuceConnectionFactory transactionalRedisConnectionFactory() {
+        InstrumentedLettuceConnectionFactory connectionFactory = new InstrumentedLettuceConnectionFactory(
+                "transactional", redisConfiguration(), lettuceClientConfiguration("transactional"));
+        connectionFactory.setShareNativeConnection(false);
+        return connectionFactory;
+    }
 
     @Bean
     public RedisTemplate<String, Long> incrRedisTemplate() {
+        return createIncrRedisTemplate(redisConnectionFactory(), false);
+    }
+
+    /**
+     * WATCH/MULTI 트랜잭션용 (SHARED 모드에서는 전용 풀링 팩토리 사용)
+     *
+     * @param transactionalRedisConnectionFactory
+     * @return
+     */
+    @Bean
+    public RedisTemplate<String, Long> txIncrRedisTemplate(
+            @Qualifier("transactionalRedisConnectionFactory") Optional<RedisConnectionFactory> transactionalRedisConnectionFactory) {
+        return createIncrRedisTemplate(transactionalRedisConnectionFactory.orElseGet(this::redisConnectionFactory), true);
+    }
+
+    private RedisTemplate<String, Long> createIncrRedisTemplate(RedisConnectionFactory connectionFactory,
+                                                              boolean enableTransactionSupport) {
         RedisTemplate<String, Long> redisTemplate = new RedisTemplate<>();
         redisTemplate.setKeySerializer(new StringRedisSerializer());
         redisTemplate.setValueSerializer(new GenericToStringSerializer(Long.TYPE));
         redisTemplate.setHashKeySerializer(new StringRedisSerializer());
         redisTemplate.setHashValueSerializer(new GenericToStringSerializer(Long.TYPE));
-        redisTemplate.setConnectionFactory(redisConnectionFactory());
-        redisTemplate.setEnableTransactionSupport(true);
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setEnableTransactionSupport(enableTransactionSupport);
 
         return redisTemplate;
     }
@@ -104,6 +305,26 @@ public class RedisConfig {
         return stringRedisTemplate;
     }
 
+    /**
+     * incrRedisTemplate 의 reactive 버전 (요청 스레드를 점유하지 않고 응답을 기다림)
+     *
+     * @return
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, Long> reactiveIncrRedisTemplate() {
+        RedisSerializationContext<String, Long> serializationContext = RedisSerializationContext
+                .<String, Long>newSerializationContext(new StringRedisSerializer())
+                .value(new GenericToStringSerializer<>(Long.class))
+                .hashValue(new GenericToStringSerializer<>(Long.class))
+                .build();
+        return new ReactiveRedisTemplate<>(redisConnectionFactory(), serializationContext);
+    }
+
+    @Bean
+    public ReactiveStringRedisTemplate reactiveStringRedisTemplate() {
+        return new ReactiveStringRedisTemplate(redisConnectionFactory());
+    }
+
     @Bean
     public ObjectMapper redisObjectMapper() {
         var mapper = new ObjectMapper();
@@ -112,19 +333,71 @@ public class RedisConfig {
         return mapper;
     }
 
+    /**
+     * User 값 직렬화는 product.redis.value-format 에 따라 JSON 또는 압축 바이너리로 쓰고,
+     * 읽기는 두 형식 모두 가능 (기존 JSON 값 호환)
+     *
+     * @param redisObjectMapper
+     * @return
+     */
     @Bean
     public RedisTemplate<String, User> userJsonRedisTemplate(ObjectMapper redisObjectMapper) {
         Jackson2JsonRedisSerializer<User> jsonRedisSerializer = new Jackson2JsonRedisSerializer<>(User.class);
         jsonRedisSerializer.setObjectMapper(redisObjectMapper);
+        RedisSerializer<User> valueSerializer = new CompactRedisSerializer<>(new UserCodec(), jsonRedisSerializer,
+                valueFormat == RedisValueFormat.COMPACT);
 
         RedisTemplate<String, User> redisTemplate = new RedisTemplate<>();
         redisTemplate.setKeySerializer(new StringRedisSerializer());
-        redisTemplate.setValueSerializer(jsonRedisSerializer);
+        redisTemplate.setValueSerializer(valueSerializer);
         redisTemplate.setHashKeySerializer(new StringRedisSerializer());
-        redisTemplate.setHashValueSerializer(jsonRedisSerializer);
+        redisTemplate.setHashValueSerializer(valueSerializer);
 
         redisTemplate.setConnectionFactory(redisConnectionFactory());
         return redisTemplate;
     }
 
+    /**
+     * @RedisHash repository 변환 설정 (빈 이름이 redisCustomConversions 이면 repository 컨버터에 적용됨)
+     * LocalDateTime 읽기는 ISO 문자열과 압축 형식 모두 지원하고, 쓰기는 value-format 이 compact 일 때만 압축
+     *
+     * @return
+     */
+    @Bean
+    public RedisCustomConversions redisCustomConversions() {
+        if (valueFormat == RedisValueFormat.COMPACT) {
+            return new RedisCustomConversions(List.of(
+                    LocalDateTimeConverters.LocalDateTimeToCompactBytesConverter.INSTANCE,
+                    LocalDateTimeConverters.BytesToLocalDateTimeConverter.INSTANCE));
+        }
+        return new RedisCustomConversions(List.of(LocalDateTimeConverters.BytesToLocalDateTimeConverter.INSTANCE));
+    }
+
+    /**
+     * 가용 포인트 조회 near-cache (AvailablePointService)
+     * 무효화는 CLIENT TRACKING 메시지로 하고, ttl 은 메시지를 놓쳤을 때의 최대 stale 시간
+     *
+     * @return
+     */
+    @Bean
+    public NearCache<String, Optional<AvailablePoint>> availablePointNearCache() {
+        return new NearCache<>("availablePoint", pointCacheMaxSize, pointCacheTtl);
+    }
+
+    /**
+     * pub/sub 메시지 수신 컨테이너 (분산락 해제 알림 등)
+     * 기본 executor 는 메시지마다 스레드를 생성하므로 고정 크기 스레드에서 처리
+     *
+     * @return
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer() {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory());
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-listener-");
+        threadFactory.setDaemon(true);
+        container.setTaskExecutor(Executors.newFixedThreadPool(2, threadFactory));
+        return container;
+    }
+
 }
@@ -0,0 +1,22 @@
+package com.example.redis.config;
+
+/**
+ * 레디스 연결 방식 (product.redis.connection-mode)
+ */
+public enum RedisConnectionMode {
+    /**
+     * 풀링 팩토리 하나: 일반 명령은 팩토리의 공유 연결, 트랜잭션 등 전용 연결은 같은 풀에서 대여
+     */
+    POOLED,
+    /**
+     * 일반 명령은 공유 연결 하나로 다중화(multiplexing), 파이프라인/blocking 명령은 기본 팩토리의 풀에서 대여,
+     * WATCH/MULTI 는 별도 풀링 팩토리(transactionalRedisConnectionFactory) 사용
+     * 풀이 없으면 전용 연결이 필요한 호출마다 연결을 새로 열게 되므로 두 팩토리 모두 spring.redis.lettuce.pool 설정이 필요
+     * (최대 연결 수는 pool.max-active 의 두 배)
+     */
+    SHARED,
+    /**
+     * 모든 명령이 풀에서 연결을 대여 (공유 연결 미사용, 벤치마크 비교용)
+     */
+    DEDICATED
+}
@@ -0,0 +1,110 @@
+package com.example.redis.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * lua 스크립트 설정
+ * DefaultRedisScript 는 sha1 을 한번 계산해 두고, 기동시 RedisScriptLoader 가 서버에 미리 적재한다.
+ * RedisTemplate.execute 는 EVALSHA 로 호출 후 NOSCRIPT 응답시 EVAL 로 재시도 한다.
+ */
+@Configuration
+public class RedisScriptConfig {
+
+    @Bean
+    public RedisScript<List> stockReserveScript() {
+        return loadScript("scripts/stock_reserve.lua", List.class);
+    }
+
+    @Bean
+    public RedisScript<List> stockReserveCartScript() {
+        return loadScript("scripts/stock_reserve_cart.lua", List.class);
+    }
+
+    @Bean
+    public RedisScript<List> stockSellScript() {
+        return loadScript("scripts/stock_sell.lua", List.class);
+    }
+
+    @Bean
+    public RedisScript<List> stockSellBatchScript() {
+        return loadScript("scripts/stock_sell_batch.lua", List.class);
+    }
+
+    @Bean
+    public RedisScript<List> orderReserveScript() {
+        return loadScript("scripts/order_reserve.lua", List.class);
+    }
+
+    @Bean
+    public RedisScript<Long> stockTakeScript() {
+        return loadScript("scripts/stock_take.lua", Long.class);
+    }
+
+    @Bean
+    public RedisScript<Long> stockMoveScript() {
+        return loadScript("scripts/stock_move.lua", Long.class);
+    }
+
+    @Bean
+    public RedisScript<Long> stockLeaseScript() {
+        return loadScript("scripts/stock_lease.lua", Long.class);
+    }
+
+    @Bean
+    public RedisScript<Long> lockAcquireScript() {
+        return loadScript("scripts/lock_acquire.lua", Long.class);
+    }
+
+    @Bean
+    public RedisScript<Long> lockReleaseScript() {
+        return loadScript("scripts/lock_release.lua", Long.class);
+    }
+
+    @Bean
+    public RedisScript<Long> lockRenewScript() {
+        return loadScript("scripts/lock_renew.lua", Long.class);
+    }
+
+    @Bean
+    public RedisScript<Long> hashUpdateIfIndexedScript() {
+        return loadScript("scripts/hash_update_if_indexed.lua", Long.class);
+    }
+
+    @Bean
+    public RedisScript<List> indexSweepScript() {
+        return loadScript("scripts/index_sweep.lua", List.class);
+    }
+
+    @Bean
+    public RedisScript<List> stockReconcileScanScript() {
+        return loadScript("scripts/stock_reconcile_scan.lua", List.class);
+    }
+
+    @Bean
+    public RedisScript<Long> stockReconcileSetScript() {
+        return loadScript("scripts/stock_reconcile_set.lua", Long.class);
+    }
+
+    /**
+     * 스크립트 본문은 빈 생성시 한번만 읽음
+     * (ResourceScriptSource 는 호출마다 리소스 변경 여부를 확인하여 매 호출 비용이 커짐)
+     */
+    private <T> RedisScript<T> loadScript(String path, Class<T> resultType) {
+        try {
+            String script = StreamUtils.copyToString(new ClassPathResource(path).getInputStream(), StandardCharsets.UTF_8);
+            return new DefaultRedisScript<>(script, resultType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
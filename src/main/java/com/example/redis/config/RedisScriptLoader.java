@@ -0,0 +1,36 @@
+package com.example.redis.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 기동시 lua 스크립트를 레디스에 미리 적재(SCRIPT LOAD)
+ * 첫 호출부터 EVALSHA 가 성공하도록 하며, 레디스 재시작 등으로 스크립트가 사라지면
+ * RedisTemplate.execute 의 NOSCRIPT 재시도(EVAL)로 처리된다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class RedisScriptLoader {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final List<RedisScript<?>> redisScripts;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadScripts() {
+        redisScripts.forEach(redisScript -> {
+            String sha1 = stringRedisTemplate.execute((RedisCallback<String>) connection -> connection.scriptingCommands()
+                    .scriptLoad(redisScript.getScriptAsString().getBytes(StandardCharsets.UTF_8)));
+            log.debug("script loaded: {}", sha1);
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.redis.config;
+
+/**
+ * 객체 값 저장 형식 (product.redis.value-format)
+ * 읽기는 항상 두 형식 모두 지원하므로 형식을 바꿔도 이미 저장된 값을 읽을 수 있음
+ * 단, 압축 형식을 읽지 못하는 이전 버전 노드가 남아 있는 동안(rolling 배포 중)에는 JSON 으로 써야 한다.
+ */
+public enum RedisValueFormat {
+    /**
+     * Jackson JSON, @RedisHash 의 LocalDateTime 은 ISO 문자열 (기존 형식)
+     */
+    JSON,
+    /**
+     * 버전 헤더가 붙은 압축 바이너리 (CompactRedisSerializer, LocalDateTimeConverters)
+     * 모든 노드가 압축 형식을 읽을 수 있게 된 뒤에 사용
+     */
+    COMPACT
+}
@@ -0,0 +1,32 @@
+package com.example.redis.config;
+
+import com.example.redis.util.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 요청 처리를 가상 스레드로 실행 (product.threads.virtual=true)
+ * 레디스 응답을 기다리는 동안 OS 스레드를 점유하지 않으므로 동시 요청 수가 tomcat 스레드 수에 묶이지 않는다.
+ * Java 21 미만 런타임에서는 경고 후 기존 tomcat 스레드 풀을 그대로 사용한다.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "product.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (!VirtualThreads.isSupported()) {
+                log.warn("virtual threads are not supported on Java {}, using platform threads",
+                        System.getProperty("java.version"));
+                return;
+            }
+            protocolHandler.setExecutor(VirtualThreads.newPerTaskExecutor());
+            log.info("tomcat requests run on virtual threads");
+        };
+    }
+}
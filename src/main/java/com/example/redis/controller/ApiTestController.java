@@ -1,10 +1,14 @@
 package com.example.redis.controller;
 
 import com.example.redis.model.AvailablePoint;
-import com.example.redis.repository.AvailablePointRedisRepository;
+import com.example.redis.service.AvailablePointService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
@@ -14,7 +18,7 @@ import java.util.SplittableRandom;
 @RequiredArgsConstructor
 @RestController
 public class ApiTestController {
-    private final AvailablePointRedisRepository availablePointRedisRepository;
+    private final AvailablePointService availablePointService;
 
     @GetMapping("/")
     public String ok () {
@@ -34,7 +38,7 @@ public class ApiTestController {
 
         log.info(">>>>>>> [save] availablePoint={}", availablePoint);
 
-        availablePointRedisRepository.save(availablePoint);
+        availablePointService.save(availablePoint);
 
         return "save";
     }
@@ -43,11 +47,18 @@ public class ApiTestController {
     @GetMapping("/get")
     public long get () {
         String id = createId();
-        return availablePointRedisRepository.findById(id)
+        return availablePointService.findById(id)
                 .map(AvailablePoint::getPoint)
                 .orElse(0L);
     }
 
+    @GetMapping("/points/{userName}")
+    public Page<AvailablePoint> points(@PathVariable String userName,
+                                       @RequestParam(defaultValue = "0") int page,
+                                       @RequestParam(defaultValue = "100") int size) {
+        return availablePointService.findByUserName(userName, PageRequest.of(page, size));
+    }
+
     private String createId() {
         SplittableRandom random = new SplittableRandom();
         return String.valueOf(random.nextInt(1, 1_000_000_000));
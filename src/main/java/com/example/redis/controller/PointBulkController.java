@@ -0,0 +1,37 @@
+package com.example.redis.controller;
+
+import com.example.redis.service.AvailablePointBulkService;
+import com.example.redis.service.BulkFormat;
+import com.example.redis.service.BulkImportResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * 가용 포인트 일괄 적재/추출 API
+ * 요청/응답 본문을 스트림으로 처리하므로 파일 전체를 메모리에 올리지 않는다.
+ * - POST /points/import?format=ndjson|csv (본문: 파일 내용)
+ * - GET /points/export (NDJSON)
+ */
+@RequiredArgsConstructor
+@RestController
+public class PointBulkController {
+    private final AvailablePointBulkService availablePointBulkService;
+
+    @PostMapping("/points/import")
+    public BulkImportResult importPoints(@RequestParam(defaultValue = "ndjson") BulkFormat format,
+                                         HttpServletRequest request) throws IOException {
+        return availablePointBulkService.importPoints(request.getInputStream(), format);
+    }
+
+    @GetMapping(value = "/points/export", produces = "application/x-ndjson")
+    public StreamingResponseBody exportPoints() {
+        return out -> availablePointBulkService.exportPoints(out);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.redis.controller;
+
+import com.example.redis.model.ProductStock;
+import com.example.redis.service.LocalStockLeaseService;
+import com.example.redis.service.ProductQuantityService;
+import com.example.redis.service.ReactiveProductQuantityService;
+import com.example.redis.service.SplitStockService;
+import com.example.redis.service.StockReconciler;
+import com.example.redis.service.StockReserveResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * 재고 차감 API
+ * - /stock/** : 요청 스레드가 레디스 응답까지 대기(blocking)
+ * - /reactive/stock/** : Mono 반환, 레디스 응답을 기다리는 동안 요청 스레드를 반납(servlet async)
+ * - /stock/{prodId}/lease/reserve : 노드 로컬 임대 재고에서 차감 (LocalStockLeaseService, 판매 수량은 주기적으로 레디스에 반영)
+ * - /stock/{prodId}/hot : 분할 카운터 차감 지정/해제 (reactive 경로는 분할 카운터를 사용하지 않음)
+ * - /stock/{prodId}/record : 재고 대조 기준 정보 등록 (StockReconciler)
+ * 구매 수량이 0 이하면 400 (스크립트도 같은 경우 차감하지 않고 INVALID_QUANTITY 반환)
+ */
+@RequiredArgsConstructor
+@RestController
+public class StockController {
+    private final ProductQuantityService productQuantityService;
+    private final ReactiveProductQuantityService reactiveProductQuantityService;
+    private final SplitStockService splitStockService;
+    private final LocalStockLeaseService localStockLeaseService;
+    private final StockReconciler stockReconciler;
+
+    @GetMapping("/stock/{prodId}")
+    public long stock(@PathVariable String prodId) {
+        return productQuantityService.getStock(prodId);
+    }
+
+    @PostMapping("/stock/{prodId}/reserve")
+    public StockReserveResult reserve(@PathVariable String prodId,
+                                      @RequestParam(defaultValue = "1") int quantity,
+                                      @RequestParam(required = false) String affinity) {
+        requirePositive(quantity);
+        return productQuantityService.reserveStock(prodId, quantity, affinity);
+    }
+
+    @PostMapping("/stock/{prodId}/lease/reserve")
+    public StockReserveResult reserveLeased(@PathVariable String prodId,
+                                            @RequestParam(defaultValue = "1") int quantity) {
+        requirePositive(quantity);
+        return localStockLeaseService.reserve(prodId, quantity);
+    }
+
+    @PostMapping("/stock/{prodId}/replenish")
+    public Long replenish(@PathVariable String prodId, @RequestParam long quantity) {
+        return productQuantityService.replenishStock(prodId, quantity);
+    }
+
+    @PutMapping("/stock/{prodId}/hot")
+    public void flagHot(@PathVariable String prodId) {
+        splitStockService.flagHot(prodId);
+    }
+
+    @DeleteMapping("/stock/{prodId}/hot")
+    public void unflagHot(@PathVariable String prodId) {
+        splitStockService.unflagHot(prodId);
+    }
+
+    @PutMapping("/stock/{prodId}/record")
+    public ProductStock record(@PathVariable String prodId,
+                               @RequestParam long totalQuantity,
+                               @RequestParam(defaultValue = "REMAINING") ProductStock.Counting counting) {
+        return stockReconciler.register(prodId, totalQuantity, counting);
+    }
+
+    private static void requirePositive(int quantity) {
+        if (quantity <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "quantity must be positive: " + quantity);
+        }
+    }
+
+    @PostMapping("/reactive/stock/{prodId}/reserve")
+    public Mono<StockReserveResult> reserveReactive(@PathVariable String prodId,
+                                                    @RequestParam(defaultValue = "1") int quantity) {
+        requirePositive(quantity);
+        return reactiveProductQuantityService.reserveStock(prodId, quantity);
+    }
+}
@@ -4,16 +4,29 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.ToString;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
 import org.springframework.data.redis.core.RedisHash;
+import org.springframework.data.redis.core.TimeToLive;
 import org.springframework.data.redis.core.index.Indexed;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
 
 @ToString
 @Getter
 @RedisHash("test:point:available")
+// hash 마다 저장되는 _class 값을 클래스 전체 이름 대신 짧은 별칭으로 (기존 클래스 이름 값도 읽음)
+@TypeAlias("availablePoint")
 public class AvailablePoint implements Serializable {
+    /**
+     * refreshTime 이후 보관 기간 (지나면 레디스에서 만료), 보관 기간이 이미 지난 레코드의 만료 시간
+     * 엔티티에서는 빈을 주입받을 수 없으므로 기동시 product.point.retention / expired-grace 로 설정 (RedisConfig)
+     */
+    private static volatile Duration retention = Duration.ofDays(30);
+    private static volatile Duration expiredGrace = Duration.ofHours(1);
+
     @Id
     private String id;
 
@@ -30,4 +43,28 @@ public class AvailablePoint implements Serializable {
         this.point = point;
         this.refreshTime = refreshTime;
     }
+
+    public static Duration getRetention() {
+        return retention;
+    }
+
+    public static void setRetention(Duration retention, Duration expiredGrace) {
+        AvailablePoint.retention = retention;
+        AvailablePoint.expiredGrace = expiredGrace;
+    }
+
+    /**
+     * 저장시 만료 시간 (refreshTime + retention), refreshTime 이 없으면 만료 없음
+     * 보관 기간이 이미 지난 레코드는 expiredGrace 후 만료한다. (재저장, 일괄 적재한 과거 레코드가 저장 직후 삭제되지 않도록)
+     *
+     * @return 초
+     */
+    @TimeToLive(unit = TimeUnit.SECONDS)
+    public Long timeToLive() {
+        if (refreshTime == null) {
+            return null;
+        }
+        long seconds = Duration.between(LocalDateTime.now(), refreshTime.plus(retention)).getSeconds();
+        return seconds > 0 ? seconds : expiredGrace.getSeconds();
+    }
 }
@@ -0,0 +1,89 @@
+package com.example.redis.model;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.time.LocalDateTime;
+
+/**
+ * 재고 차감 성공 이력 (레디스 stream 의 주문 이벤트를 OrderPersistenceWorker 가 저장)
+ * id 는 발행시 정한 이벤트 id(없으면 stream 항목 id)이므로 같은 이벤트를 다시 처리하거나 다시 발행해도 한 건만 저장된다.
+ */
+@ToString
+@Getter
+@Entity
+@Table(name = "product_order", indexes = @Index(name = "idx_product_order_prod_id", columnList = "prodId"))
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ProductOrder implements Persistable<String> {
+
+    /**
+     * 이벤트 id (OrderEventPublisher 가 정한 UUID, 없으면 stream 항목 id)
+     */
+    @Id
+    @Column(length = 64)
+    private String eventId;
+
+    /**
+     * 주문번호 (주문번호 없이 차감한 경우 null)
+     */
+    @Column(length = 64)
+    private String orderId;
+
+    @Column(nullable = false, length = 64)
+    private String prodId;
+
+    private int quantity;
+
+    /**
+     * 차감 방식 (stock.operation 의 strategy)
+     */
+    @Column(length = 32)
+    private String strategy;
+
+    private LocalDateTime orderedAt;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean persisted;
+
+    @Builder
+    public ProductOrder(String eventId, String orderId, String prodId, int quantity, String strategy, LocalDateTime orderedAt) {
+        this.eventId = eventId;
+        this.orderId = orderId;
+        this.prodId = prodId;
+        this.quantity = quantity;
+        this.strategy = strategy;
+        this.orderedAt = orderedAt;
+    }
+
+    @Override
+    public String getId() {
+        return eventId;
+    }
+
+    /**
+     * 조회, 저장 전이면 새 엔티티 (id 를 직접 지정해도 저장 전 SELECT 없이 INSERT, 중복은 worker 가 먼저 걸러냄)
+     */
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.redis.model;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * 상품 재고 기준 정보 (레디스 재고 대조 기준, StockReconciler)
+ * 레디스 재고 키의 기준 값은 counting 에 따라 입고 수량 - 판매 수량(REMAINING) 또는 판매 수량(SOLD)
+ */
+@ToString
+@Getter
+@Entity
+@Table(name = "product_stock")
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ProductStock {
+
+    /**
+     * 레디스 재고 키(PRODUCT:STOCKED:{상품})의 값 종류
+     */
+    public enum Counting {
+        /**
+         * 남은 재고 (reserveStock, 장바구니, 분할 카운터 방식)
+         */
+        REMAINING,
+        /**
+         * 판매 수량 (procBuyIncrement, sellStock, lock, 트랜잭션 방식)
+         */
+        SOLD
+    }
+
+    @Id
+    @Column(length = 64)
+    private String prodId;
+
+    /**
+     * 입고 수량 합계 (재입고시 증가)
+     */
+    private long totalQuantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Counting counting;
+
+    @Builder
+    public ProductStock(String prodId, long totalQuantity, Counting counting) {
+        this.prodId = prodId;
+        this.totalQuantity = totalQuantity;
+        this.counting = counting;
+    }
+
+    /**
+     * 레디스 재고 키의 기준 값
+     *
+     * @param soldQuantity DB 에 저장된 판매 수량
+     */
+    public long expectedStock(long soldQuantity) {
+        return counting == Counting.REMAINING ? totalQuantity - soldQuantity : soldQuantity;
+    }
+}
@@ -6,7 +6,14 @@ import org.springframework.data.repository.CrudRepository;
 import java.util.List;
 import java.util.Optional;
 
-public interface AvailablePointRedisRepository extends CrudRepository<AvailablePoint, String> {
+public interface AvailablePointRedisRepository extends CrudRepository<AvailablePoint, String>,
+        AvailablePointRedisRepositoryCustom {
 
     public Optional<List<AvailablePoint>> findByUserName(String userName);
+
+    /**
+     * AvailablePointRedisRepositoryCustom.save 로 처리 (CrudRepository.save 와 시그니처가 겹쳐 재선언)
+     */
+    @Override
+    <S extends AvailablePoint> S save(S availablePoint);
 }
@@ -0,0 +1,48 @@
+package com.example.redis.repository;
+
+import com.example.redis.model.AvailablePoint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * userName 인덱스 조회 최적화와 저장시 인덱스 갱신 생략
+ * 인덱스 set(test:point:available:userName:{userName}) 의 id 들을 HGETALL 파이프라인으로 한번에 조회한다.
+ */
+public interface AvailablePointRedisRepositoryCustom {
+
+    /**
+     * index-update 가 on-change 이면 userName 이 그대로인 엔티티는 인덱스를 다시 쓰지 않음
+     */
+    <S extends AvailablePoint> S save(S availablePoint);
+
+    /**
+     * findByUserName 과 같은 결과, id 조회는 batch 단위 파이프라인
+     */
+    List<AvailablePoint> findAllByUserName(String userName);
+
+    /**
+     * id 순(문자열) 페이지 조회 (SORT ... LIMIT, 페이지 크기만큼만 조회)
+     */
+    Page<AvailablePoint> findPageByUserName(String userName, Pageable pageable);
+
+    /**
+     * SSCAN 으로 batchSize 씩 읽는 stream (batch 단위로만 메모리에 올림), 사용 후 close 해야 함 (try-with-resources)
+     * 조회 중 set 이 커지면 SSCAN 이 같은 엔티티를 다시 반환 할 수 있으므로, 중복이 문제되는 호출측에서 처리 (재적재처럼 멱등이면 무시)
+     */
+    Stream<AvailablePoint> streamByUserName(String userName, int batchSize);
+
+    /**
+     * 전체 엔티티 stream (keyspace set 을 SSCAN, streamByUserName 과 같이 드물게 중복 포함), 사용 후 close 해야 함
+     */
+    Stream<AvailablePoint> streamAll(int batchSize);
+
+    /**
+     * 여러 엔티티를 파이프라인으로 저장 (왕복 2회: 기존 인덱스 조회, 쓰기)
+     * 기존 엔티티의 userName 이 바뀌었으면 이전 인덱스에서 제거하므로 인덱스는 save 와 같은 상태가 됨
+     * 엔티티 단위로 원자적이지 않으므로 같은 id 를 동시에 저장하는 경우에는 사용하지 않음 (일괄 적재용)
+     */
+    void saveAllPipelined(List<AvailablePoint> availablePoints);
+}
@@ -0,0 +1,282 @@
+package com.example.redis.repository;
+
+import com.example.redis.model.AvailablePoint;
+import com.example.redis.util.BinaryScriptExecutor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisKeyValueTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.IndexedData;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.convert.SimpleIndexedPropertyValue;
+import org.springframework.data.redis.core.query.SortQueryBuilder;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.util.ByteUtils;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * AvailablePointRedisRepositoryCustom 구현
+ * - 조회: Spring Data 는 인덱스 id 마다 HGETALL 을 따로 호출하므로, id 들을 모아 파이프라인으로 조회 (왕복 1회 / batch)
+ * - 저장: index-update=on-change 이면 userName 이 그대로인 엔티티는 lua 한번으로 필드만 교체
+ *   (기본 저장은 DEL, HMSET, 키:idx 조회, 인덱스 SREM/SADD 를 순서대로 호출)
+ * - 일괄 저장: 여러 엔티티의 hash, keyspace set, 인덱스 갱신을 파이프라인으로 전송
+ * 두 저장 방식 모두 @TimeToLive 만료 시간을 hash 에 설정한다.
+ * 인덱스에만 남아 있고 hash 가 없는 id 는 결과에서 제외한다.
+ */
+@RequiredArgsConstructor
+public class AvailablePointRedisRepositoryCustomImpl implements AvailablePointRedisRepositoryCustom {
+
+    private static final String INDEXED_FIELD = "userName";
+    private static final int HYDRATE_BATCH_SIZE = 500;
+    private static final String IDX_SUFFIX = ":idx";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisConverter redisConverter;
+    private final RedisKeyValueTemplate redisKeyValueTemplate;
+    private final RedisScript<Long> hashUpdateIfIndexedScript;
+
+    @Value("${product.point.index-update:always}")
+    private IndexUpdateMode indexUpdateMode;
+
+    private String keyspace;
+    private BinaryScriptExecutor binaryScriptExecutor;
+
+    @PostConstruct
+    public void init() {
+        keyspace = redisConverter.getMappingContext().getRequiredPersistentEntity(AvailablePoint.class).getKeySpace();
+        binaryScriptExecutor = new BinaryScriptExecutor(stringRedisTemplate);
+    }
+
+    @Override
+    public <S extends AvailablePoint> S save(S availablePoint) {
+        if (indexUpdateMode == IndexUpdateMode.ON_CHANGE && availablePoint.getId() != null
+                && availablePoint.getUserName() != null && updateIfIndexUnchanged(availablePoint)) {
+            return availablePoint;
+        }
+        if (availablePoint.getId() == null) {
+            return redisKeyValueTemplate.insert(availablePoint);
+        }
+        redisKeyValueTemplate.update(availablePoint);
+        return availablePoint;
+    }
+
+    @Override
+    public List<AvailablePoint> findAllByUserName(String userName) {
+        Set<String> ids = stringRedisTemplate.opsForSet().members(indexKey(userName));
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return hydrate(new ArrayList<>(ids));
+    }
+
+    @Override
+    public Page<AvailablePoint> findPageByUserName(String userName, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(findAllByUserName(userName));
+        }
+
+        String indexKey = indexKey(userName);
+        Long total = stringRedisTemplate.opsForSet().size(indexKey);
+        if (total == null || total <= pageable.getOffset()) {
+            return new PageImpl<>(List.of(), pageable, total == null ? 0 : total);
+        }
+        List<String> ids = stringRedisTemplate.sort(SortQueryBuilder.sort(indexKey)
+                .alphabetical(true)
+                .limit(pageable.getOffset(), pageable.getPageSize())
+                .build());
+        return new PageImpl<>(hydrate(ids), pageable, total);
+    }
+
+    @Override
+    public Stream<AvailablePoint> streamByUserName(String userName, int batchSize) {
+        return streamMembers(indexKey(userName), batchSize);
+    }
+
+    @Override
+    public Stream<AvailablePoint> streamAll(int batchSize) {
+        return streamMembers(keyspace, batchSize);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void saveAllPipelined(List<AvailablePoint> availablePoints) {
+        List<RedisData> entities = new ArrayList<>(availablePoints.size());
+        for (AvailablePoint availablePoint : availablePoints) {
+            RedisData data = new RedisData();
+            redisConverter.write(availablePoint, data);
+            entities.add(data);
+        }
+
+        // 1. 기존 엔티티가 등록된 인덱스 키 (키:idx)
+        List<Object> currentIndexes = stringRedisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+            connection.openPipeline();
+            for (RedisData data : entities) {
+                connection.setCommands().sMembers(bytes(idKey(data.getId()) + IDX_SUFFIX));
+            }
+            return connection.closePipeline();
+        });
+
+        // 2. 이전 인덱스 제거, hash 교체, keyspace/인덱스 등록 (RedisKeyValueAdapter.put 과 같은 결과)
+        stringRedisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+            connection.openPipeline();
+            byte[] keyspaceKey = bytes(keyspace);
+            for (int i = 0; i < entities.size(); i++) {
+                RedisData data = entities.get(i);
+                byte[] id = bytes(data.getId());
+                byte[] key = bytes(idKey(data.getId()));
+                byte[] idxKey = bytes(idKey(data.getId()) + IDX_SUFFIX);
+                List<byte[]> indexKeys = indexKeys(data);
+
+                for (byte[] currentIndex : (Set<byte[]>) currentIndexes.get(i)) {
+                    if (indexKeys.stream().noneMatch(indexKey -> Arrays.equals(indexKey, currentIndex))) {
+                        connection.setCommands().sRem(currentIndex, id);
+                    }
+                }
+                connection.keyCommands().del(key, idxKey);
+                connection.hashCommands().hMSet(key, data.getBucket().rawMap());
+                if (timeToLive(data) > 0) {
+                    connection.keyCommands().expire(key, timeToLive(data));
+                }
+                connection.setCommands().sAdd(keyspaceKey, id);
+                for (byte[] indexKey : indexKeys) {
+                    connection.setCommands().sAdd(indexKey, id);
+                    connection.setCommands().sAdd(idxKey, indexKey);
+                }
+            }
+            return connection.closePipeline();
+        });
+    }
+
+    /**
+     * SSCAN 으로 batchSize 씩 읽어 조회하는 stream
+     * SSCAN 은 조회 중 set 이 커지면(rehash) 같은 원소를 여러번 반환 할 수 있지만, 중복 제거용으로 id 를 누적하면
+     * 전체 추출시 id 수만큼 힙을 차지하므로 중복은 그대로 반환한다. (batch 단위로만 메모리에 둠)
+     */
+    private Stream<AvailablePoint> streamMembers(String setKey, int batchSize) {
+        Cursor<String> cursor = stringRedisTemplate.opsForSet()
+                .scan(setKey, ScanOptions.scanOptions().count(batchSize).build());
+        Spliterator<List<String>> batches = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super List<String>> action) {
+                List<String> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && cursor.hasNext()) {
+                    batch.add(cursor.next());
+                }
+                if (batch.isEmpty()) {
+                    return false;
+                }
+                action.accept(batch);
+                return true;
+            }
+        };
+        return StreamSupport.stream(batches, false)
+                .flatMap(batch -> hydrate(batch).stream())
+                .onClose(cursor::close);
+    }
+
+    /**
+     * 인덱스 키 (keyspace:필드:값), null 값은 인덱스 없음
+     */
+    private List<byte[]> indexKeys(RedisData data) {
+        List<byte[]> indexKeys = new ArrayList<>();
+        for (IndexedData indexedData : data.getIndexedData()) {
+            if (indexedData instanceof SimpleIndexedPropertyValue
+                    && ((SimpleIndexedPropertyValue) indexedData).getValue() != null) {
+                byte[] value = redisConverter.getConversionService()
+                        .convert(((SimpleIndexedPropertyValue) indexedData).getValue(), byte[].class);
+                indexKeys.add(ByteUtils.concat(
+                        bytes(indexedData.getKeyspace() + ":" + indexedData.getIndexName() + ":"), value));
+            }
+        }
+        return indexKeys;
+    }
+
+    /**
+     * id 목록을 HYDRATE_BATCH_SIZE 씩 파이프라인 HGETALL 로 조회 (id 순서 유지)
+     */
+    @SuppressWarnings("unchecked")
+    private List<AvailablePoint> hydrate(List<String> ids) {
+        List<AvailablePoint> result = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += HYDRATE_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(from + HYDRATE_BATCH_SIZE, ids.size()));
+            List<Object> hashes = stringRedisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+                connection.openPipeline();
+                for (String id : batch) {
+                    connection.hashCommands().hGetAll(bytes(idKey(id)));
+                }
+                return connection.closePipeline();
+            });
+            for (Object hash : hashes) {
+                Map<byte[], byte[]> raw = (Map<byte[], byte[]>) hash;
+                if (raw != null && !raw.isEmpty()) {
+                    result.add(redisConverter.read(AvailablePoint.class, new RedisData(Bucket.newBucketFromRawMap(raw))));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 저장된 userName 과 같으면 인덱스를 건드리지 않고 hash 필드만 교체
+     *
+     * @return 교체 여부 (false 면 기본 저장 필요)
+     */
+    private boolean updateIfIndexUnchanged(AvailablePoint availablePoint) {
+        RedisData data = new RedisData();
+        redisConverter.write(availablePoint, data);
+        Map<byte[], byte[]> fields = data.getBucket().rawMap();
+
+        byte[][] keysAndArgs = new byte[4 + fields.size() * 2][];
+        keysAndArgs[0] = bytes(idKey(availablePoint.getId()));
+        keysAndArgs[1] = bytes(INDEXED_FIELD);
+        keysAndArgs[2] = data.getBucket().get(INDEXED_FIELD);
+        keysAndArgs[3] = BinaryScriptExecutor.encode(timeToLive(data));
+        int i = 4;
+        for (Map.Entry<byte[], byte[]> field : fields.entrySet()) {
+            keysAndArgs[i++] = field.getKey();
+            keysAndArgs[i++] = field.getValue();
+        }
+        Long updated = binaryScriptExecutor.execute(hashUpdateIfIndexedScript, 1, keysAndArgs);
+        return updated != null && updated == 1;
+    }
+
+    /**
+     * @return 만료 시간(초), 없으면 0
+     */
+    private static long timeToLive(RedisData data) {
+        Long timeToLive = data.getTimeToLive();
+        return timeToLive == null || timeToLive <= 0 ? 0 : timeToLive;
+    }
+
+    private String idKey(String id) {
+        return keyspace + ":" + id;
+    }
+
+    private String indexKey(String userName) {
+        return keyspace + ":" + INDEXED_FIELD + ":" + userName;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
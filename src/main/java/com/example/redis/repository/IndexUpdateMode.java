@@ -0,0 +1,15 @@
+package com.example.redis.repository;
+
+/**
+ * 저장시 보조 인덱스 갱신 방식 (product.point.index-update)
+ */
+public enum IndexUpdateMode {
+    /**
+     * Spring Data 기본 저장: hash 를 지우고 다시 쓰며, 인덱스 set 과 키:idx 를 매번 삭제 후 재등록
+     */
+    ALWAYS,
+    /**
+     * 인덱스 필드 값이 그대로면 hash 필드만 교체 (lua 한번), 바뀌었거나 새 엔티티일 때만 기본 저장
+     */
+    ON_CHANGE
+}
@@ -0,0 +1,34 @@
+package com.example.redis.repository;
+
+import com.example.redis.model.ProductOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductOrderRepository extends JpaRepository<ProductOrder, String> {
+
+    long countByProdId(String prodId);
+
+    /**
+     * 상품별 판매 수량 합계 (주문번호 방식은 판매 수량을 별도 키 PRODUCT:ORDERS:SOLD 에 두므로 제외)
+     */
+    @Query("select o.prodId as prodId, sum(o.quantity) as quantity from ProductOrder o"
+            + " where o.prodId in :prodIds and o.strategy <> 'orderReserve' group by o.prodId")
+    List<ProductQuantity> sumStockQuantities(@Param("prodIds") Collection<String> prodIds);
+
+    /**
+     * 상품별 주문번호 방식 판매 수량 합계 (PRODUCT:ORDERS:SOLD 대조용)
+     */
+    @Query("select o.prodId as prodId, sum(o.quantity) as quantity from ProductOrder o"
+            + " where o.prodId in :prodIds and o.strategy = 'orderReserve' group by o.prodId")
+    List<ProductQuantity> sumOrderQuantities(@Param("prodIds") Collection<String> prodIds);
+
+    interface ProductQuantity {
+        String getProdId();
+
+        long getQuantity();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.redis.repository;
+
+import com.example.redis.model.ProductStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ProductStockRepository extends JpaRepository<ProductStock, String> {
+
+    /**
+     * 입고 수량 추가 (기준 정보가 없는 상품이면 0)
+     */
+    @Transactional
+    @Modifying
+    @Query("update ProductStock s set s.totalQuantity = s.totalQuantity + :quantity where s.prodId = :prodId")
+    int addTotalQuantity(@Param("prodId") String prodId, @Param("quantity") long quantity);
+}
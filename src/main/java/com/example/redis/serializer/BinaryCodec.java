@@ -0,0 +1,19 @@
+package com.example.redis.serializer;
+
+/**
+ * 모델별 압축 바이너리 형식
+ * 필드를 추가/변경하면 version 을 올리고, read 는 이전 version 도 읽을 수 있어야 함
+ *
+ * @param <T>
+ */
+public interface BinaryCodec<T> {
+
+    /**
+     * @return 현재 쓰기 형식 버전 (1~255)
+     */
+    int version();
+
+    void write(T value, CompactOutput out);
+
+    T read(int version, CompactInput in);
+}
@@ -0,0 +1,53 @@
+package com.example.redis.serializer;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CompactOutput 으로 쓴 값 읽기
+ */
+public class CompactInput {
+
+    private final byte[] buffer;
+    private int position;
+
+    public CompactInput(byte[] buffer, int offset) {
+        this.buffer = buffer;
+        this.position = offset;
+    }
+
+    public int readByte() {
+        checkRemaining(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    public long readVarLong() {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new SerializationException("malformed varint");
+    }
+
+    public String readString() {
+        long length = readVarLong() - 1;
+        if (length < 0) {
+            return null;
+        }
+        checkRemaining(length);
+        String value = new String(buffer, position, (int) length, StandardCharsets.UTF_8);
+        position += (int) length;
+        return value;
+    }
+
+    private void checkRemaining(long length) {
+        if (length > buffer.length - position) {
+            throw new SerializationException("unexpected end of compact value");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.redis.serializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 압축 바이너리 쓰기 버퍼
+ * - 정수: 가변 길이(varint, zigzag) 로 작은 값은 1~2 바이트
+ * - 문자열: UTF-8 바이트 앞에 (길이 + 1), null 은 0
+ */
+public class CompactOutput {
+
+    private byte[] buffer;
+    private int size;
+
+    public CompactOutput(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    public CompactOutput writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+        return this;
+    }
+
+    public CompactOutput writeVarLong(long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        ensureCapacity(10);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        buffer[size++] = (byte) zigzag;
+        return this;
+    }
+
+    public CompactOutput writeString(String value) {
+        if (value == null) {
+            return writeVarLong(0);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void ensureCapacity(int length) {
+        if (size + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + length));
+        }
+    }
+}
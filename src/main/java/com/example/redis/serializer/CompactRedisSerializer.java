@@ -0,0 +1,61 @@
+package com.example.redis.serializer;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * 버전 헤더가 붙은 압축 바이너리 직렬화
+ * 형식: [MAGIC][version][codec 본문]
+ * MAGIC(0xC0) 은 UTF-8 에 나올 수 없는 바이트라서 JSON 등 기존 값과 구분되고,
+ * 헤더가 없는 값은 fallback(기존 Jackson 직렬화)으로 읽는다.
+ * writeCompact=false 이면 쓰기도 fallback 을 사용 (읽기는 두 형식 모두 가능하므로 형식을 바꿔도 기존 값을 읽을 수 있음)
+ *
+ * @param <T>
+ */
+public class CompactRedisSerializer<T> implements RedisSerializer<T> {
+
+    public static final byte MAGIC = (byte) 0xC0;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final BinaryCodec<T> codec;
+    private final RedisSerializer<T> fallback;
+    private final boolean writeCompact;
+
+    public CompactRedisSerializer(BinaryCodec<T> codec, RedisSerializer<T> fallback, boolean writeCompact) {
+        this.codec = codec;
+        this.fallback = fallback;
+        this.writeCompact = writeCompact;
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+        if (!writeCompact) {
+            return fallback.serialize(value);
+        }
+        CompactOutput out = new CompactOutput(INITIAL_CAPACITY)
+                .writeByte(MAGIC)
+                .writeByte(codec.version());
+        codec.write(value, out);
+        return out.toByteArray();
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        CompactInput in = new CompactInput(bytes, 1);
+        int version = in.readByte();
+        if (version > codec.version()) {
+            throw new SerializationException("unsupported compact version: " + version);
+        }
+        return codec.read(version, in);
+    }
+}
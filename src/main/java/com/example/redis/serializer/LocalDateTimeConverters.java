@@ -0,0 +1,50 @@
+package com.example.redis.serializer;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * @RedisHash 엔티티의 LocalDateTime 필드 변환
+ * 기본 변환은 ISO 문자열(2022-03-10T12:34:56.123456, 26 바이트)이고,
+ * 압축 형식은 [MAGIC][epoch 초][나노초] varint (10 바이트 내외)
+ * 읽기는 두 형식 모두 가능
+ */
+public final class LocalDateTimeConverters {
+
+    private LocalDateTimeConverters() {
+    }
+
+    @WritingConverter
+    public enum LocalDateTimeToCompactBytesConverter implements Converter<LocalDateTime, byte[]> {
+        INSTANCE;
+
+        @Override
+        public byte[] convert(LocalDateTime source) {
+            return new CompactOutput(16)
+                    .writeByte(CompactRedisSerializer.MAGIC)
+                    .writeVarLong(source.toEpochSecond(ZoneOffset.UTC))
+                    .writeVarLong(source.getNano())
+                    .toByteArray();
+        }
+    }
+
+    @ReadingConverter
+    public enum BytesToLocalDateTimeConverter implements Converter<byte[], LocalDateTime> {
+        INSTANCE;
+
+        @Override
+        public LocalDateTime convert(byte[] source) {
+            if (source.length > 0 && source[0] == CompactRedisSerializer.MAGIC) {
+                CompactInput in = new CompactInput(source, 1);
+                long epochSecond = in.readVarLong();
+                return LocalDateTime.ofEpochSecond(epochSecond, (int) in.readVarLong(), ZoneOffset.UTC);
+            }
+            return LocalDateTime.parse(new String(source, StandardCharsets.UTF_8));
+        }
+    }
+}
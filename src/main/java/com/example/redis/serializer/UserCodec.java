@@ -0,0 +1,29 @@
+package com.example.redis.serializer;
+
+import com.example.redis.model.User;
+
+/**
+ * User 압축 형식
+ * v1: name, phone
+ */
+public class UserCodec implements BinaryCodec<User> {
+
+    @Override
+    public int version() {
+        return 1;
+    }
+
+    @Override
+    public void write(User user, CompactOutput out) {
+        out.writeString(user.getName())
+                .writeString(user.getPhone());
+    }
+
+    @Override
+    public User read(int version, CompactInput in) {
+        return User.builder()
+                .name(in.readString())
+                .phone(in.readString())
+                .build();
+    }
+}
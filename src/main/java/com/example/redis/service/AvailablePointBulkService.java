@@ -0,0 +1,183 @@
+package com.example.redis.service;
+
+import com.example.redis.model.AvailablePoint;
+import com.example.redis.repository.AvailablePointRedisRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 가용 포인트 일괄 적재/추출 (야간 잔액 재동기화 등)
+ * - 적재: 파일을 한 줄씩 읽어 batch-size 만큼 모이면 파이프라인으로 저장 (메모리에는 batch 하나만 유지)
+ *   인덱스(userName)와 keyspace set 은 repository save 와 같은 상태로 갱신
+ * - 추출: keyspace set 을 SSCAN 으로 batch 단위 조회하여 NDJSON 으로 바로 씀
+ * progress-interval 건마다 누적 건수와 처리량을 로그로 남긴다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AvailablePointBulkService {
+
+    private final AvailablePointRedisRepository availablePointRedisRepository;
+    private final ObjectMapper redisObjectMapper;
+
+    @Value("${product.point.bulk.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${product.point.bulk.progress-interval:100000}")
+    private long progressInterval;
+
+    /**
+     * @param in     파일 내용 (UTF-8)
+     * @param format
+     * @return 적재 결과
+     * @throws IOException
+     */
+    public BulkImportResult importPoints(InputStream in, BulkFormat format) throws IOException {
+        long start = System.nanoTime();
+        long imported = 0;
+        long skipped = 0;
+        long nextProgress = progressInterval;
+        List<AvailablePoint> batch = new ArrayList<>(batchSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == BulkFormat.CSV && lineNumber == 1 && line.startsWith("id,"))) {
+                continue;
+            }
+
+            AvailablePoint availablePoint = parse(line, format);
+            if (availablePoint == null) {
+                skipped++;
+                log.debug("bulk import skipped line {}", lineNumber);
+                continue;
+            }
+
+            batch.add(availablePoint);
+            if (batch.size() == batchSize) {
+                imported += flush(batch);
+                if (imported >= nextProgress) {
+                    logProgress("import", imported, start);
+                    nextProgress += progressInterval;
+                }
+            }
+        }
+        imported += flush(batch);
+
+        BulkImportResult result = new BulkImportResult(imported, skipped, elapsedMillis(start));
+        log.info("bulk import finished: {}", result);
+        return result;
+    }
+
+    /**
+     * 전체 엔티티를 NDJSON 으로 추출
+     * 추출 중 저장이 계속되면 같은 엔티티가 여러 줄 나올 수 있음 (id 기준 재적재이므로 결과는 같음)
+     *
+     * @param out
+     * @return 추출 건수
+     * @throws IOException
+     */
+    public long exportPoints(OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        long exported = 0;
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<AvailablePoint> availablePoints = availablePointRedisRepository.streamAll(batchSize)) {
+            Iterator<AvailablePoint> iterator = availablePoints.iterator();
+            while (iterator.hasNext()) {
+                writer.write(redisObjectMapper.writeValueAsString(iterator.next()));
+                writer.write('\n');
+                if (++exported % progressInterval == 0) {
+                    logProgress("export", exported, start);
+                }
+            }
+        }
+        writer.flush();
+
+        log.info("bulk export finished: {} records, {}ms", exported, elapsedMillis(start));
+        return exported;
+    }
+
+    private int flush(List<AvailablePoint> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        availablePointRedisRepository.saveAllPipelined(batch);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    /**
+     * @return 잘못된 줄이면 null
+     */
+    private AvailablePoint parse(String line, BulkFormat format) {
+        try {
+            return format == BulkFormat.CSV ? parseCsv(line) : parseJson(line);
+        } catch (RuntimeException | IOException e) {
+            return null;
+        }
+    }
+
+    private AvailablePoint parseJson(String line) throws IOException {
+        JsonNode node = redisObjectMapper.readTree(line);
+        return toAvailablePoint(text(node, "id"), text(node, "userName"), text(node, "point"), text(node, "refreshTime"));
+    }
+
+    private AvailablePoint parseCsv(String line) {
+        String[] columns = line.split(",", -1);
+        return toAvailablePoint(column(columns, 0), column(columns, 1), column(columns, 2), column(columns, 3));
+    }
+
+    private AvailablePoint toAvailablePoint(String id, String userName, String point, String refreshTime) {
+        if (id == null) {
+            return null;
+        }
+        return AvailablePoint.builder()
+                .id(id)
+                .userName(userName)
+                .point(point == null ? null : Long.valueOf(point))
+                .refreshTime(refreshTime == null ? null : LocalDateTime.parse(refreshTime))
+                .build();
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static String column(String[] columns, int index) {
+        return index < columns.length && !columns[index].isEmpty() ? columns[index] : null;
+    }
+
+    private static void logProgress(String operation, long count, long start) {
+        long elapsedMillis = elapsedMillis(start);
+        log.info("bulk {} progress: {} records, {} records/s", operation, count,
+                elapsedMillis == 0 ? count : count * 1000 / elapsedMillis);
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
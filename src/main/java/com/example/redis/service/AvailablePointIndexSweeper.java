@@ -0,0 +1,130 @@
+package com.example.redis.service;
+
+import com.example.redis.config.RedisConfig;
+import com.example.redis.model.AvailablePoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 만료된 AvailablePoint 의 인덱스 정리
+ * 엔티티 hash 는 @TimeToLive 로 만료되지만 keyspace set, userName 인덱스 set, 키:idx 는 남으므로
+ * keyspace set 을 SSCAN cursor 로 조금씩 훑으면서 hash 가 없는 id 를 정리한다. (keyspace 이벤트 불필요)
+ * - 한 단계는 scan-count 개만 확인하는 짧은 lua 실행이라 레디스를 오래 점유하지 않음
+ * - 속도 제한: interval 마다 최대 max-scanned-per-run 개 확인
+ * - cursor 는 레디스(keyspace:sweeper:cursor)에 저장하므로 재시작하거나 다른 노드가 실행해도 이어서 확인
+ *   (여러 노드가 동시에 실행하면 일부 구간을 다시 확인하거나 건너뛸 수 있지만, 다음 바퀴에서 정리됨)
+ * 지표: point.sweeper.scanned, point.sweeper.removed, point.sweeper.reclaimed (바이트, 추정), point.sweeper.cycles
+ * 클러스터 구성에서는 키들이 슬롯에 흩어져 스크립트를 실행할 수 없으므로 동작하지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AvailablePointIndexSweeper {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisScript<List> indexSweepScript;
+    private final RedisConverter redisConverter;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+
+    @Value("${product.point.sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${product.point.sweeper.scan-count:100}")
+    private int scanCount;
+
+    @Value("${product.point.sweeper.max-scanned-per-run:1000}")
+    private int maxScannedPerRun;
+
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    private List<String> sweepKeys;
+
+    private Counter scannedCounter;
+    private Counter removedCounter;
+    private Counter reclaimedCounter;
+    private Counter cycleCounter;
+
+    @PostConstruct
+    public void init() {
+        String keyspace = redisConverter.getMappingContext().getRequiredPersistentEntity(AvailablePoint.class).getKeySpace();
+        sweepKeys = List.of(keyspace, keyspace + ":sweeper:cursor");
+        if (environment.acceptsProfiles(Profiles.of(RedisConfig.CLUSTER_PROFILE))) {
+            log.warn("index sweeper is disabled on cluster");
+            enabled = false;
+        }
+        scannedCounter = Counter.builder("point.sweeper.scanned")
+                .description("entity ids checked by the index sweeper")
+                .register(meterRegistry);
+        removedCounter = Counter.builder("point.sweeper.removed")
+                .description("expired entity ids removed from the keyspace and index sets")
+                .register(meterRegistry);
+        reclaimedCounter = Counter.builder("point.sweeper.reclaimed")
+                .description("estimated memory reclaimed by the index sweeper")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        cycleCounter = Counter.builder("point.sweeper.cycles")
+                .description("full passes over the keyspace set")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${product.point.sweeper.interval-ms:1000}")
+    public void scheduledSweep() {
+        if (enabled) {
+            sweep();
+        }
+    }
+
+    /**
+     * 저장된 cursor 부터 최대 max-scanned-per-run 개 확인 (한 바퀴를 다 돌면 중단)
+     * 이미 실행 중이면 건너뜀
+     *
+     * @return 정리한 id 수
+     */
+    public long sweep() {
+        if (!sweepLock.tryLock()) {
+            return 0;
+        }
+        try {
+            long scanned = 0;
+            long removed = 0;
+            while (scanned < maxScannedPerRun) {
+                List<Object> res = stringRedisTemplate.execute(indexSweepScript, sweepKeys, String.valueOf(scanCount));
+                String cursor = (String) res.get(0);
+                scanned += (Long) res.get(1);
+                removed += (Long) res.get(2);
+                reclaimedCounter.increment((Long) res.get(3));
+                if ("0".equals(cursor)) {
+                    cycleCounter.increment();
+                    break;
+                }
+            }
+            scannedCounter.increment(scanned);
+            removedCounter.increment(removed);
+            if (removed > 0) {
+                log.debug("index sweep: scanned={}, removed={}", scanned, removed);
+            }
+            return removed;
+        } catch (DataAccessException e) {
+            log.warn("index sweep failed: {}", e.getMessage());
+            return 0;
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+}
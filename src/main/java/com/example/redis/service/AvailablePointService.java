@@ -0,0 +1,95 @@
+package com.example.redis.service;
+
+import com.example.redis.model.AvailablePoint;
+import com.example.redis.repository.AvailablePointRedisRepository;
+import com.example.redis.util.NearCache;
+import com.example.redis.util.RedisKeyTracker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Optional;
+
+/**
+ * 가용 포인트 조회/저장
+ * 조회는 near-cache(availablePointNearCache) 를 먼저 확인하고, 없을 때만 레디스 repository 를 조회한다.
+ * 다른 노드의 변경은 CLIENT TRACKING 무효화 메시지로 반영하며,
+ * 무효화 메시지를 받을 수 없는 동안(연결 끊김, 클러스터 구성)에는 캐시를 사용하지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AvailablePointService {
+
+    private static final String KEY_PREFIX = "test:point:available:";
+
+    private final AvailablePointRedisRepository availablePointRedisRepository;
+    private final NearCache<String, Optional<AvailablePoint>> availablePointNearCache;
+    private final LettuceConnectionFactory redisConnectionFactory;
+
+    private RedisKeyTracker keyTracker;
+
+    @PostConstruct
+    public void startTracking() {
+        keyTracker = new RedisKeyTracker(redisConnectionFactory, KEY_PREFIX, this::onInvalidate,
+                availablePointNearCache::setEnabled);
+        if (!keyTracker.start()) {
+            availablePointNearCache.setEnabled(false);
+        }
+    }
+
+    @PreDestroy
+    public void stopTracking() {
+        keyTracker.close();
+    }
+
+    /**
+     * @param id
+     * @return 없는 id 도 캐시함 (생성되면 무효화 메시지를 받음)
+     */
+    public Optional<AvailablePoint> findById(String id) {
+        return availablePointNearCache.get(id, availablePointRedisRepository::findById);
+    }
+
+    /**
+     * 사용자별 포인트 페이지 조회 (near-cache 미사용)
+     *
+     * @param userName
+     * @param pageable
+     * @return
+     */
+    public Page<AvailablePoint> findByUserName(String userName, Pageable pageable) {
+        return availablePointRedisRepository.findPageByUserName(userName, pageable);
+    }
+
+    public AvailablePoint save(AvailablePoint availablePoint) {
+        AvailablePoint saved = availablePointRedisRepository.save(availablePoint);
+        // 이 노드의 다음 조회가 무효화 메시지보다 먼저 오더라도 새 값을 읽도록 바로 제거
+        availablePointNearCache.invalidate(availablePoint.getId());
+        return saved;
+    }
+
+    public void deleteById(String id) {
+        availablePointRedisRepository.deleteById(id);
+        availablePointNearCache.invalidate(id);
+    }
+
+    /**
+     * 변경된 키에서 id 를 추출하여 무효화
+     * (인덱스 키 test:point:available:userName:... 등도 같은 prefix 라 함께 오지만 캐시에 없는 id 이므로 무시됨)
+     */
+    private void onInvalidate(String key) {
+        if (key == null) {
+            availablePointNearCache.invalidateAll();
+            return;
+        }
+        if (key.startsWith(KEY_PREFIX)) {
+            availablePointNearCache.invalidate(key.substring(KEY_PREFIX.length()));
+        }
+    }
+}
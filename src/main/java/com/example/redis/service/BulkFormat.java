@@ -0,0 +1,15 @@
+package com.example.redis.service;
+
+/**
+ * 일괄 적재 파일 형식
+ */
+public enum BulkFormat {
+    /**
+     * 한 줄에 JSON 객체 하나 {"id":"1","userName":"u1","point":10,"refreshTime":"2022-03-10T12:34:56"}
+     */
+    NDJSON,
+    /**
+     * id,userName,point,refreshTime (첫 줄 헤더 생략 가능, 값에 쉼표/따옴표 없음)
+     */
+    CSV
+}
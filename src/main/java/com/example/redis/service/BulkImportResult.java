@@ -0,0 +1,26 @@
+package com.example.redis.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 일괄 적재 결과
+ * skipped 는 형식이 잘못되었거나 id 가 없는 줄 수
+ */
+@ToString
+@Getter
+public class BulkImportResult {
+    private final long imported;
+    private final long skipped;
+    private final long elapsedMillis;
+
+    public BulkImportResult(long imported, long skipped, long elapsedMillis) {
+        this.imported = imported;
+        this.skipped = skipped;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRecordsPerSecond() {
+        return elapsedMillis == 0 ? imported : imported * 1000 / elapsedMillis;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.redis.service;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 장바구니 주문 라인 (상품, 구매수량)
+ */
+@ToString
+@Getter
+public class CartLine {
+    private final String prodId;
+    private final int quantity;
+
+    @Builder
+    public CartLine(String prodId, int quantity) {
+        this.prodId = prodId;
+        this.quantity = quantity;
+    }
+}
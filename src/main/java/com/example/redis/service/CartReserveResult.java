@@ -0,0 +1,26 @@
+package com.example.redis.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 장바구니 재고 차감 결과
+ * lineResults 는 요청 라인 순서와 동일하며,
+ * 하나라도 RESERVED 가 아니면 장바구니 전체가 차감되지 않은 상태.
+ * 이때 실패 원인이 된 라인은 해당 결과, 나머지 라인은 NOT_RESERVED.
+ */
+@ToString
+@Getter
+public class CartReserveResult {
+    private final List<StockReserveResult> lineResults;
+
+    public CartReserveResult(List<StockReserveResult> lineResults) {
+        this.lineResults = lineResults;
+    }
+
+    public boolean isReserved() {
+        return lineResults.stream().allMatch(StockReserveResult::isReserved);
+    }
+}
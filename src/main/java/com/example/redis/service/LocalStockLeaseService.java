@@ -0,0 +1,203 @@
+package com.example.redis.service;
+
+import lombok.RequiredArgsConstructor;
+import com.example.redis.util.ProductKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 인기 상품(hot-SKU) 판매용 로컬 재고
+ * 레디스 재고에서 블럭 단위로 임대 받아 노드 메모리에서 차감하고,
+ * 판매 수량은 주기적으로 모아서 레디스에 반영(write-behind) 한다.
+ * 임대 시점에 레디스 재고가 먼저 차감되므로 전체 재고 이상으로 판매되지 않는다.
+ * 단, 다른 노드가 임대한 재고는 반납 전까지 이 노드에서 판매 할 수 없다.
+ * hot 상품은 분할 카운터까지 포함해서 임대하고(SplitStockService.take), 반납은 기존 재고 키로 한다.
+ * 판매 수량은 반영 주기마다 상품별 주문 이벤트(strategy=lease)로 먼저 발행하고(OrderEventPublisher), 발행한 수량을 판매 수량 키에 더한다.
+ * 발행에 실패한 이벤트는 같은 id 로 다음 주기에 다시 발행하므로 DB 에 중복 저장되지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LocalStockLeaseService {
+
+    private final RedisTemplate<String, Long> incrRedisTemplate;
+    private final RedisScript<Long> stockLeaseScript;
+    private final ProductKeys productKeys;
+    private final SplitStockService splitStockService;
+    private final OrderEventPublisher orderEventPublisher;
+
+    private final Map<String, LeasedStock> leases = new ConcurrentHashMap<>();
+
+    /**
+     * 발행하지 못한 판매 이벤트, 발행했지만 판매 수량 키에 더하지 못한 수량 (flushLock 안에서만 사용)
+     */
+    private final List<Map<String, String>> unpublished = new ArrayList<>();
+    private final Map<String, Long> uncounted = new HashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Value("${product.lease.block-size:100}")
+    private long blockSize;
+
+    /**
+     * 로컬 임대 재고에서 차감
+     * 상품별로 카운터가 분리되어 있어 서로 다른 상품은 경합하지 않으며,
+     * 임대 재고가 부족할 때만 해당 상품 단위로 레디스에 추가 임대를 요청한다.
+     *
+     * @param prodId
+     * @param buyQuantity
+     * @return 차감 결과 (구매 수량이 0 이하면 차감하지 않고 INVALID_QUANTITY)
+     */
+    public StockReserveResult reserve(String prodId, int buyQuantity) {
+        if (buyQuantity <= 0) {
+            return StockReserveResult.INVALID_QUANTITY;
+        }
+        LeasedStock leasedStock = leases.computeIfAbsent(prodId, key -> new LeasedStock());
+        if (leasedStock.tryTake(buyQuantity)) {
+            return StockReserveResult.RESERVED;
+        }
+
+        // 레디스 호출 중 대기하므로 synchronized 대신 ReentrantLock 사용 (가상 스레드가 carrier 스레드를 점유하지 않음)
+        leasedStock.refillLock.lock();
+        try {
+            while (!leasedStock.tryTake(buyQuantity)) {
+                long lacking = buyQuantity - leasedStock.remaining.get();
+                long granted = lease(prodId, Math.max(blockSize, lacking));
+                if (granted == 0) {
+                    return leasedStock.remaining.get() == 0
+                            ? StockReserveResult.OUT_OF_STOCK
+                            : StockReserveResult.INSUFFICIENT_QUANTITY;
+                }
+                leasedStock.remaining.addAndGet(granted);
+            }
+            return StockReserveResult.RESERVED;
+        } finally {
+            leasedStock.refillLock.unlock();
+        }
+    }
+
+    /**
+     * 레디스 재고에서 최대 quantity 만큼 임대
+     *
+     * @return 임대된 수량
+     */
+    private long lease(String prodId, long quantity) {
+        if (splitStockService.isHot(prodId)) {
+            return splitStockService.take(prodId, quantity);
+        }
+        Long granted = incrRedisTemplate.execute(stockLeaseScript, List.of(productKeys.stockKey(prodId)), quantity);
+        return granted == null ? 0 : granted;
+    }
+
+    /**
+     * 로컬에서 판매된 수량을 주문 이벤트로 발행하고 레디스에 반영
+     */
+    @Scheduled(fixedDelayString = "${product.lease.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            leases.forEach((prodId, leasedStock) -> {
+                long sold = leasedStock.sold.sumThenReset();
+                if (sold > 0) {
+                    unpublished.add(orderEventPublisher.event("lease", prodId, null, Math.toIntExact(sold)));
+                }
+            });
+            if (!unpublished.isEmpty()) {
+                try {
+                    orderEventPublisher.publishAll(unpublished);
+                } catch (DataAccessException e) {
+                    // 같은 이벤트(id)로 다음 주기에 다시 발행
+                    log.warn("lease order events not published: {}, {}", unpublished.size(), e.getMessage());
+                    return;
+                }
+                unpublished.forEach(event -> uncounted.merge(event.get(OrderEventPublisher.FIELD_PROD_ID),
+                        Long.parseLong(event.get(OrderEventPublisher.FIELD_QUANTITY)), Long::sum));
+                unpublished.clear();
+            }
+            if (uncounted.isEmpty()) {
+                return;
+            }
+
+            try {
+                incrementPipelined(uncounted, productKeys::leaseSoldKey);
+                uncounted.clear();
+            } catch (DataAccessException e) {
+                // 반영 실패분은 다음 주기에 다시 반영
+                log.warn("lease flush failed: {}", e.getMessage());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 노드 종료시 판매 수량 반영 후 남은 임대 재고를 레디스에 반납
+     */
+    @PreDestroy
+    public void release() {
+        flush();
+
+        Map<String, Long> leftQuantities = new HashMap<>();
+        leases.forEach((prodId, leasedStock) -> {
+            long left = leasedStock.remaining.getAndSet(0);
+            if (left > 0) {
+                leftQuantities.put(prodId, left);
+            }
+        });
+        if (!leftQuantities.isEmpty()) {
+            incrementPipelined(leftQuantities, productKeys::stockKey);
+        }
+    }
+
+    private void incrementPipelined(Map<String, Long> quantities, Function<String, String> keyMaker) {
+        incrRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                quantities.forEach((prodId, quantity) ->
+                        operations.opsForValue().increment(keyMaker.apply(prodId), quantity));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 상품별 임대 재고
+     * remaining: 남은 임대 재고 (CAS 차감)
+     * sold: 레디스에 아직 반영하지 않은 판매 수량
+     * refillLock: 추가 임대 요청은 상품별로 하나씩
+     */
+    private static class LeasedStock {
+        private final AtomicLong remaining = new AtomicLong();
+        private final LongAdder sold = new LongAdder();
+        private final ReentrantLock refillLock = new ReentrantLock();
+
+        boolean tryTake(int quantity) {
+            long current;
+            do {
+                current = remaining.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(current, current - quantity));
+
+            sold.add(quantity);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.redis.service;
+
+import com.example.redis.util.ProductKeys;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 재고 차감 성공 이벤트를 레디스 stream(PRODUCT:ORDER:EVENTS)에 추가 (DB 저장은 OrderPersistenceWorker)
+ * 차감한 요청 스레드가 바로 XADD 하고 응답을 받은 뒤에 성공을 반환하므로, 성공으로 응답한 판매는 노드가 죽어도 stream 에 남는다.
+ * - 이벤트마다 발행시 정한 id(i)를 넣으므로 XADD 를 다시 보내도(응답 timeout 등으로 반영 여부를 모를 때) worker 는 한 건만 저장한다.
+ * - 다시 보내도 실패하면 예외를 던진다. 재고는 이미 차감되었으므로 그 수량은 판매되지 않은 채 남고, 이벤트 내용은 error 로그에 남긴다.
+ * 요청마다 레디스 왕복이 하나 늘어나는 대신 노드 메모리에 쌓아 두었다가 잃는 이벤트가 없다.
+ * 지표: order.events.published, order.events.retried
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderEventPublisher implements MeterBinder {
+
+    static final String FIELD_EVENT_ID = "i";
+    static final String FIELD_PROD_ID = "p";
+    static final String FIELD_ORDER_ID = "o";
+    static final String FIELD_QUANTITY = "q";
+    static final String FIELD_STRATEGY = "s";
+    static final String FIELD_ORDERED_AT = "t";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+
+    @Value("${product.order-events.enabled:true}")
+    private boolean enabled;
+
+    @Value("${product.order-events.stream:" + ProductKeys.ORDER_EVENTS_KEY + "}")
+    private String stream;
+
+    /**
+     * 차감 성공 이벤트를 stream 에 추가
+     *
+     * @param strategy 차감 방식
+     * @param orderId  주문번호 (없으면 null)
+     * @throws DataAccessException 다시 보내도 추가하지 못한 경우
+     */
+    public void publish(String strategy, String prodId, String orderId, int quantity) {
+        publishAll(List.of(event(strategy, prodId, orderId, quantity)));
+    }
+
+    /**
+     * 여러 이벤트를 pipeline 으로 추가 (같은 이벤트를 다시 보내도 worker 는 한 건만 저장)
+     *
+     * @param events event 로 만든 이벤트
+     * @throws DataAccessException 다시 보내도 추가하지 못한 경우
+     */
+    public void publishAll(List<Map<String, String>> events) {
+        if (!enabled || events.isEmpty()) {
+            return;
+        }
+        try {
+            send(events);
+        } catch (DataAccessException e) {
+            retried.increment();
+            try {
+                send(events);
+            } catch (DataAccessException retryException) {
+                log.error("order events not published: {}, {}", events, retryException.getMessage());
+                throw retryException;
+            }
+        }
+        published.add(events.size());
+    }
+
+    /**
+     * publishAll 의 non-blocking 버전 (reactive 이벤트 루프에서 호출)
+     */
+    public Mono<Void> publishReactive(List<Map<String, String>> events) {
+        if (!enabled || events.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(events)
+                .concatMap(fields -> reactiveStringRedisTemplate.opsForStream()
+                        .add(StreamRecords.string(fields).withStreamKey(stream)))
+                .then()
+                .doOnError(DataAccessException.class, e -> retried.increment())
+                .retry(1)
+                .doOnError(e -> log.error("order events not published: {}, {}", events, e.getMessage()))
+                .doOnSuccess(ignored -> published.add(events.size()));
+    }
+
+    /**
+     * 발행할 이벤트 (id 를 여기서 정하므로 다시 보낼 때는 같은 Map 을 사용)
+     *
+     * @param orderId 주문번호 (없으면 null)
+     */
+    public Map<String, String> event(String strategy, String prodId, String orderId, int quantity) {
+        String eventId = UUID.randomUUID().toString();
+        String orderedAt = Long.toString(System.currentTimeMillis());
+        return orderId == null
+                ? Map.of(FIELD_EVENT_ID, eventId, FIELD_PROD_ID, prodId, FIELD_QUANTITY, Integer.toString(quantity),
+                FIELD_STRATEGY, strategy, FIELD_ORDERED_AT, orderedAt)
+                : Map.of(FIELD_EVENT_ID, eventId, FIELD_PROD_ID, prodId, FIELD_ORDER_ID, orderId,
+                FIELD_QUANTITY, Integer.toString(quantity), FIELD_STRATEGY, strategy, FIELD_ORDERED_AT, orderedAt);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("order.events.published", published, LongAdder::sum)
+                .description("order events appended to the redis stream")
+                .register(registry);
+        FunctionCounter.builder("order.events.retried", retried, LongAdder::sum)
+                .description("order event appends sent again after a failure")
+                .register(registry);
+    }
+
+    private void send(List<Map<String, String>> events) {
+        if (events.size() == 1) {
+            stringRedisTemplate.opsForStream().add(StreamRecords.string(events.get(0)).withStreamKey(stream));
+            return;
+        }
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) (RedisConnection connection) -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (Map<String, String> fields : events) {
+                stringConnection.xAdd(StreamRecords.string(fields).withStreamKey(stream));
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.redis.service;
+
+import com.example.redis.model.ProductOrder;
+import com.example.redis.repository.ProductOrderRepository;
+import com.example.redis.util.ProductKeys;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 이벤트 stream 을 consumer group(order-writer)으로 읽어 DB(product_order)에 저장
+ * poll-interval-ms 마다 batch-size 씩 읽어 한 트랜잭션으로 저장(batch insert)하고, commit 이후에 XACK, XDEL 한다.
+ * - 저장 전에 죽은 노드가 읽은 이벤트는 pending 으로 남으므로, min-idle-ms 이상 처리되지 않은 이벤트는 XCLAIM 으로 가져와 다시 저장한다.
+ * - 같은 이벤트를 다시 저장해도 이벤트 id(발행시 정한 id, 없으면 stream 항목 id)를 기본키로 쓰므로 이미 저장된 id 는 건너뛴다.
+ *   (commit 후 XACK 전에 죽은 경우, 발행 측이 같은 이벤트를 다시 XADD 한 경우)
+ * - 읽을 수 없는 이벤트와 DB 가 거부하는 이벤트(제약 조건 위반)만 dead-letter stream({stream}:DLQ)으로 옮긴다.
+ *   DB 장애 등으로 저장하지 못한 이벤트는 전달 횟수와 관계없이 pending 으로 남겨 두고 min-idle-ms 마다 다시 저장한다.
+ * - 처리한 이벤트는 XDEL 로 지우므로 MAXLEN 으로 자르지 않아도 stream 에는 저장 전 이벤트만 남는다.
+ * 요청 경로와 분리되어 있어 DB 가 느리거나 멈추면 stream 에 이벤트가 쌓일 뿐 재고 차감은 기다리지 않는다.
+ * 지표: order.events.persisted, order.events.duplicates, order.events.reclaimed, order.events.dead
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderPersistenceWorker implements MeterBinder {
+
+    static final String FIELD_ERROR = "error";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductOrderRepository productOrderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final String consumer = "writer-" + UUID.randomUUID();
+
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder reclaimed = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+
+    @Value("${product.order-events.worker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${product.order-events.stream:" + ProductKeys.ORDER_EVENTS_KEY + "}")
+    private String stream;
+
+    @Value("${product.order-events.worker.group:order-writer}")
+    private String group;
+
+    @Value("${product.order-events.worker.batch-size:500}")
+    private int batchSize;
+
+    @Value("${product.order-events.worker.min-idle-ms:30000}")
+    private long minIdleMillis;
+
+    @PostConstruct
+    public void init() {
+        try {
+            createGroup();
+        } catch (DataAccessException e) {
+            // 첫 poll 에서 NOGROUP 이면 다시 생성
+            log.warn("order event group create failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.order-events.worker.poll-interval-ms:100}")
+    public void scheduledPoll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reclaim();
+            while (poll() >= batchSize) {
+                // 쌓인 이벤트는 다음 주기를 기다리지 않고 이어서 저장
+            }
+        } catch (DataAccessException | TransactionException e) {
+            // 저장하지 못한 이벤트는 pending 으로 남아 min-idle 이후 다시 저장
+            log.warn("order event persist failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 새 이벤트를 batch-size 만큼 읽어 저장
+     *
+     * @return 읽은 이벤트 수
+     */
+    public int poll() {
+        List<StringRecord> records;
+        try {
+            records = execute(connection -> connection.xReadGroupAsString(Consumer.from(group, consumer),
+                    StreamReadOptions.empty().count(batchSize), StreamOffset.create(stream, ReadOffset.lastConsumed())));
+        } catch (DataAccessException e) {
+            if (!isNoGroup(e)) {
+                throw e;
+            }
+            // stream 이 지워져 group 도 없어진 경우
+            createGroup();
+            return 0;
+        }
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+        persist(records);
+        return records.size();
+    }
+
+    /**
+     * min-idle-ms 이상 ack 되지 않은 이벤트를 가져와 저장 (죽은 consumer 가 읽은 이벤트, DB 장애로 저장하지 못한 이벤트)
+     *
+     * @return 가져온 이벤트 수
+     */
+    public int reclaim() {
+        PendingMessages pending;
+        try {
+            pending = execute(connection -> connection.xPending(stream, group, Range.unbounded(), (long) batchSize));
+        } catch (DataAccessException e) {
+            if (isNoGroup(e)) {
+                return 0;
+            }
+            throw e;
+        }
+        RecordId[] idle = pending.stream()
+                .filter(message -> message.getElapsedTimeSinceLastDelivery().toMillis() >= minIdleMillis)
+                .map(PendingMessage::getId)
+                .toArray(RecordId[]::new);
+        if (idle.length == 0) {
+            return 0;
+        }
+
+        List<StringRecord> claimed = execute(connection -> connection.xClaim(stream, group, consumer,
+                XClaimOptions.minIdle(Duration.ofMillis(minIdleMillis)).ids(idle)));
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+        reclaimed.add(claimed.size());
+        persist(claimed);
+        return claimed.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("order.events.persisted", persisted, LongAdder::sum)
+                .description("order events inserted into the database")
+                .register(registry);
+        FunctionCounter.builder("order.events.duplicates", duplicates, LongAdder::sum)
+                .description("redelivered order events that were already in the database")
+                .register(registry);
+        FunctionCounter.builder("order.events.reclaimed", reclaimed, LongAdder::sum)
+                .description("pending order events claimed from idle consumers")
+                .register(registry);
+        FunctionCounter.builder("order.events.dead", dead, LongAdder::sum)
+                .description("order events moved to the dead-letter stream")
+                .register(registry);
+    }
+
+    /**
+     * 한 트랜잭션으로 저장(이미 저장된 id 제외)하고 commit 후 ack
+     * 제약 조건 위반이면 한 건씩 다시 저장해서 거부된 이벤트만 dead-letter 로 옮기고,
+     * 그 외 DB 예외는 그대로 던져 이벤트를 pending 으로 남긴다.
+     */
+    private void persist(List<StringRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        // 같은 batch 에 다시 보낸 이벤트가 함께 있으면 한 건만 저장
+        Map<String, ProductOrder> orders = new LinkedHashMap<>();
+        Map<String, List<StringRecord>> eventRecords = new HashMap<>();
+        List<StringRecord> invalid = new ArrayList<>();
+        for (StringRecord record : records) {
+            try {
+                ProductOrder order = toOrder(record);
+                orders.putIfAbsent(order.getEventId(), order);
+                eventRecords.computeIfAbsent(order.getEventId(), eventId -> new ArrayList<>()).add(record);
+            } catch (RuntimeException e) {
+                invalid.add(record);
+            }
+        }
+        deadLetter(invalid, "invalid event");
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        List<StringRecord> rejected = new ArrayList<>();
+        int inserted;
+        try {
+            inserted = insertNew(orders.values());
+        } catch (DataIntegrityViolationException e) {
+            // 다른 worker 가 같은 이벤트를 먼저 저장했거나, 저장할 수 없는 이벤트가 섞인 경우
+            inserted = 0;
+            for (ProductOrder order : orders.values()) {
+                try {
+                    inserted += insertNew(List.of(order));
+                } catch (DataIntegrityViolationException rejectedException) {
+                    log.warn("order event rejected: {}, {}", order.getEventId(), rejectedException.getMessage());
+                    rejected.addAll(eventRecords.remove(order.getEventId()));
+                }
+            }
+        }
+        deadLetter(rejected, "rejected by database");
+
+        RecordId[] persistedIds = eventRecords.values().stream()
+                .flatMap(List::stream)
+                .map(StringRecord::getId)
+                .toArray(RecordId[]::new);
+        persisted.add(inserted);
+        duplicates.add(persistedIds.length - inserted);
+        if (persistedIds.length > 0) {
+            acknowledge(persistedIds);
+        }
+    }
+
+    /**
+     * 이미 저장된 id 를 제외하고 한 트랜잭션으로 저장
+     *
+     * @return 저장한 건수
+     */
+    private int insertNew(Collection<ProductOrder> orders) {
+        Integer inserted = transactionTemplate.execute(status -> {
+            Set<String> existing = productOrderRepository.findAllById(orders.stream()
+                            .map(ProductOrder::getEventId)
+                            .collect(Collectors.toList()))
+                    .stream()
+                    .map(ProductOrder::getEventId)
+                    .collect(Collectors.toSet());
+            List<ProductOrder> newOrders = orders.stream()
+                    .filter(order -> !existing.contains(order.getEventId()))
+                    .collect(Collectors.toList());
+            productOrderRepository.saveAll(newOrders);
+            return newOrders.size();
+        });
+        return inserted == null ? 0 : inserted;
+    }
+
+    private void deadLetter(List<StringRecord> records, String reason) {
+        if (records.isEmpty()) {
+            return;
+        }
+        String deadLetterStream = stream + ":DLQ";
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (StringRecord record : records) {
+                Map<String, String> fields = new HashMap<>(record.getValue());
+                fields.put(FIELD_ERROR, reason + " (" + record.getId().getValue() + ")");
+                stringConnection.xAdd(StreamRecords.string(fields).withStreamKey(deadLetterStream));
+            }
+            return null;
+        });
+        log.warn("order events moved to {}: count={}, reason={}", deadLetterStream, records.size(), reason);
+        dead.add(records.size());
+        acknowledge(records.stream()
+                .map(StringRecord::getId)
+                .toArray(RecordId[]::new));
+    }
+
+    private void acknowledge(RecordId[] ids) {
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.xAck(stream, group, ids);
+            stringConnection.xDel(stream, ids);
+            return null;
+        });
+    }
+
+    private void createGroup() {
+        try {
+            execute(connection -> connection.xGroupCreate(stream, ReadOffset.from("0"), group, true));
+        } catch (DataAccessException e) {
+            if (e.getMostSpecificCause().getMessage() == null
+                    || !e.getMostSpecificCause().getMessage().startsWith("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private ProductOrder toOrder(StringRecord record) {
+        Map<String, String> fields = record.getValue();
+        return ProductOrder.builder()
+                .eventId(fields.getOrDefault(OrderEventPublisher.FIELD_EVENT_ID, record.getId().getValue()))
+                .prodId(required(fields, OrderEventPublisher.FIELD_PROD_ID))
+                .orderId(fields.get(OrderEventPublisher.FIELD_ORDER_ID))
+                .quantity(Integer.parseInt(required(fields, OrderEventPublisher.FIELD_QUANTITY)))
+                .strategy(fields.get(OrderEventPublisher.FIELD_STRATEGY))
+                .orderedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(
+                        Long.parseLong(required(fields, OrderEventPublisher.FIELD_ORDERED_AT))), ZoneId.systemDefault()))
+                .build();
+    }
+
+    private static String required(Map<String, String> fields, String field) {
+        String value = fields.get(field);
+        if (value == null) {
+            throw new IllegalArgumentException("missing field: " + field);
+        }
+        return value;
+    }
+
+    private static boolean isNoGroup(DataAccessException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.startsWith("NOGROUP");
+    }
+
+    private <T> T execute(Function<StringRedisConnection, T> action) {
+        return stringRedisTemplate.execute((RedisCallback<T>) connection -> action.apply((StringRedisConnection) connection));
+    }
+}
@@ -1,16 +1,40 @@
 package com.example.redis.service;
 
+import com.example.redis.repository.ProductStockRepository;
+import com.example.redis.util.BinaryScriptExecutor;
 import com.example.redis.util.DistributedLock;
+import com.example.redis.util.OptimisticTransactionExecutor;
+import com.example.redis.util.ProductKeys;
+import com.example.redis.util.SoldOutRegistry;
+import com.example.redis.util.StockSnapshot;
+import com.example.redis.util.StripedLocks;
+import io.lettuce.core.cluster.SlotHash;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.*;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Slf4j
 @Service
@@ -18,13 +42,60 @@ import java.util.concurrent.locks.StampedLock;
 public class ProductQuantityService {
 
     private final RedisTemplate<String, Long> incrRedisTemplate;
+    private final RedisTemplate<String, Long> txIncrRedisTemplate;
     private final StringRedisTemplate stringRedisTemplate;
 
-    private final DistributedLock distributedLockCustom;
+    private final DistributedLock redisDistributedLock;
 
-    private ReentrantLock reentrantLock = new ReentrantLock();
-    private StampedLock stampedLock = new StampedLock();
+    private final RedisScript<List> stockReserveScript;
+    private final RedisScript<List> stockReserveCartScript;
+    private final RedisScript<List> stockSellScript;
+    private final RedisScript<List> orderReserveScript;
 
+    private final OptimisticTransactionExecutor optimisticTransactionExecutor;
+    private final ProductKeys productKeys;
+    private final StockSnapshot stockSnapshot;
+    private final SoldOutRegistry soldOutRegistry;
+    private final MeterRegistry meterRegistry;
+    private final StockMetrics stockMetrics;
+    private final SplitStockService splitStockService;
+    private final StockBatchDispatcher stockBatchDispatcher;
+    private final OrderEventPublisher orderEventPublisher;
+    private final ProductStockRepository productStockRepository;
+
+    /**
+     * 요청 경로의 debug 로그는 1/sample-rate 만 기록
+     */
+    @Value("${product.log.sample-rate:100}")
+    private int logSampleRate;
+
+    /**
+     * 노드 메모리 lock stripe 수 (상품번호 해시로 나눔)
+     */
+    @Value("${product.lock.stripes:64}")
+    private int lockStripes;
+
+    private BinaryScriptExecutor binaryScriptExecutor;
+    private byte[] cartScriptBytes;
+    private boolean clusterAware;
+    private StripedLocks stripedLocks;
+    private Timer localLockAcquired;
+    private Timer localLockTimeout;
+    private Timer stampedLockAcquired;
+    private Timer stampedLockTimeout;
+
+    @PostConstruct
+    public void init() {
+        binaryScriptExecutor = new BinaryScriptExecutor(incrRedisTemplate);
+        cartScriptBytes = stockReserveCartScript.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        clusterAware = incrRedisTemplate.getConnectionFactory() instanceof LettuceConnectionFactory
+                && ((LettuceConnectionFactory) incrRedisTemplate.getConnectionFactory()).isClusterAware();
+        stripedLocks = new StripedLocks(lockStripes);
+        localLockAcquired = lockWaitTimer("local", "acquired");
+        localLockTimeout = lockWaitTimer("local", "timeout");
+        stampedLockAcquired = lockWaitTimer("stamped", "acquired");
+        stampedLockTimeout = lockWaitTimer("stamped", "timeout");
+    }
 
     /**
      * 제고 감소 시키는 방법
@@ -34,21 +105,30 @@ public class ProductQuantityService {
      * @param buyQuantity
      */
     public void procBuyQuantity(String prodId, int buyQuantity) {
-        ValueOperations<String, Long> valusOps = incrRedisTemplate.opsForValue();
+        long start = System.nanoTime();
+        try {
+            checkSoldOut(prodId);
+            ValueOperations<String, Long> valusOps = incrRedisTemplate.opsForValue();
 
-        Long stockedQuantity = valusOps.get(makeKey(prodId));
-        if (stockedQuantity <= 0) {
-            throw new IllegalStateException("[제고부족]");
-        }
-        if ((stockedQuantity - buyQuantity) <= 0) {
-            throw new IllegalStateException("[판매수량부족]");
-        }
-        Long resVal = valusOps.decrement(makeKey(prodId), buyQuantity);
-        log.info("{}-resVal:{}", Thread.currentThread().getName(), resVal);
+            Long stockedQuantity = valusOps.get(makeKey(prodId));
+            if (stockedQuantity <= 0) {
+                soldOutRegistry.markSoldOut(prodId, start);
+                throw new IllegalStateException("[제고부족]");
+            }
+            if ((stockedQuantity - buyQuantity) <= 0) {
+                throw new IllegalStateException("[판매수량부족]");
+            }
+            Long resVal = valusOps.decrement(makeKey(prodId), buyQuantity);
+            debugSampled("resVal:{}", resVal);
 
-        if (0 > resVal) {
-            throw new IllegalStateException("[판매수량 오버]");
+            if (0 > resVal) {
+                throw new IllegalStateException("[판매수량 오버]");
+            }
+        } catch (RuntimeException e) {
+            throw stockMetrics.failed("quantity", start, e);
         }
+        orderEventPublisher.publish("quantity", prodId, null, buyQuantity);
+        stockMetrics.record("quantity", start, StockReserveResult.RESERVED);
     }
 
     /**
@@ -63,28 +143,66 @@ public class ProductQuantityService {
      * @param buyQuantity
      */
     public void procBuyIncrement(String prodId, int totalQuantity, int buyQuantity) {
-        ValueOperations<String, Long> valusOps = incrRedisTemplate.opsForValue();
+        long start = System.nanoTime();
+        try {
+            ValueOperations<String, Long> valusOps = incrRedisTemplate.opsForValue();
 
-        Long stockedQuantity = valusOps.get(makeKey(prodId));
-        log.info("{}-stockedQuantity:{}", Thread.currentThread().getName(), stockedQuantity);
-        if (stockedQuantity >= totalQuantity) {
-            throw new IllegalStateException("[제고부족]");
-        }
-        if ((stockedQuantity + buyQuantity) > totalQuantity) {
-            throw new IllegalStateException("[판매수량부족]");
+            Long stockedQuantity = valusOps.get(makeKey(prodId));
+            debugSampled("stockedQuantity:{}", stockedQuantity);
+            if (stockedQuantity >= totalQuantity) {
+                throw new IllegalStateException("[제고부족]");
+            }
+            if ((stockedQuantity + buyQuantity) > totalQuantity) {
+                throw new IllegalStateException("[판매수량부족]");
+            }
+            Long resVal = valusOps.increment(makeKey(prodId), buyQuantity);
+            debugSampled("resVal:{}", resVal);
+
+            if (totalQuantity < resVal) {
+                throw new IllegalStateException("[판매수량 오버]");
+            }
+        } catch (RuntimeException e) {
+            throw stockMetrics.failed("increment", start, e);
         }
-        Long resVal = valusOps.increment(makeKey(prodId), buyQuantity);
-        log.info("{}-resVal:{}", Thread.currentThread().getName(), resVal);
+        orderEventPublisher.publish("increment", prodId, null, buyQuantity);
+        stockMetrics.record("increment", start, StockReserveResult.RESERVED);
+    }
 
-        if (totalQuantity < resVal) {
-            throw new IllegalStateException("[판매수량 오버]");
+    /**
+     * 판매된 수량을 증가 시키는 방법(micro-batching)
+     * 같은 상품의 동시 요청을 잠시(window-us) 모아 스크립트 한번으로 도착 순서대로 판매 처리 (StockBatchDispatcher)
+     * 장점: 인기 상품에 요청이 몰릴수록 레디스 호출 수가 크게 줄어듦
+     * 단점: 요청마다 최대 window 만큼 지연이 추가됨
+     * thread-safe
+     *
+     * @param prodId
+     * @param totalQuantity
+     * @param buyQuantity
+     */
+    public void procBuyIncrement_batch(String prodId, int totalQuantity, int buyQuantity) {
+        long start = System.nanoTime();
+        StockReserveResult result;
+        try {
+            checkSoldOut(prodId, totalQuantity);
+            result = stockBatchDispatcher.sell(prodId, totalQuantity, buyQuantity).join();
+            if (!result.isReserved()) {
+                throw new IllegalStateException(result.getMessage());
+            }
+        } catch (CompletionException e) {
+            throw stockMetrics.failed("batch", start,
+                    e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e);
+        } catch (RuntimeException e) {
+            throw stockMetrics.failed("batch", start, e);
         }
+        orderEventPublisher.publish("batch", prodId, null, buyQuantity);
+        stockMetrics.record("batch", start, result);
     }
 
     /**
-     * set 자료구조에 상품별로 주문번호 저장
-     * 장점: 중복 증가 위험이 없음(주문번호가 유일하기에)
-     * 단점: 한주문에 복수건 주문시, 적합성 검증(?)
+     * 상품별로 주문번호 저장 (주문번호 단위 중복 방지)
+     * 장점: 중복 증가 위험이 없음(주문번호가 유일하기에), 같은 주문번호 재요청은 한번만 반영
+     * 주문번호는 여러 shard hash 에 나누어 저장하고 판매 수량은 별도 키로 관리하여 (reserveOrder)
+     * 한 상품의 주문이 하나의 큰 set 에 몰리지 않고, 복수 수량 주문도 수량만큼 판매 수량에 반영한다.
      *
      * @param orderId
      * @param prodId
@@ -92,29 +210,69 @@ public class ProductQuantityService {
      * @param buyQuantity
      */
     public void procBuyStock(String orderId, String prodId, int totalQuantity, int buyQuantity) {
-        SetOperations<String, String> setOps = stringRedisTemplate.opsForSet();
-
-        Long stockedQuantity = setOps.size(makeSetKey(prodId));
-        log.info("{}-stockedQuantity:{}", Thread.currentThread().getName(), stockedQuantity);
-        if (stockedQuantity >= totalQuantity) {
-            throw new IllegalStateException("[제고부족]");
+        StockReserveResult result = reserveOrder(orderId, prodId, totalQuantity, buyQuantity);
+        debugSampled("reserveOrder:{}", result);
+        if (!result.isReserved() && result != StockReserveResult.DUPLICATE_ORDER) {
+            throw new IllegalStateException(result.getMessage());
         }
-        if ((stockedQuantity + buyQuantity) > totalQuantity) {
-            throw new IllegalStateException("[판매수량부족]");
+    }
+
+    /**
+     * lua 스크립트로 주문번호 중복 확인, 판매 가능 수량 확인, 주문 저장을 한번에 처리
+     * 주문번호는 hashCode 로 정한 shard hash 에 구매 수량과 함께 저장 (같은 주문번호는 항상 같은 shard)
+     * 판매 수량도 shard 마다 나눠 세므로, 보통은 주문번호가 속한 shard 의 두 키만 변경한다. (order_reserve.lua)
+     * thread-safe
+     *
+     * @param orderId
+     * @param prodId
+     * @param totalQuantity
+     * @param buyQuantity
+     * @return 판매 결과 (이미 처리된 주문이면 DUPLICATE_ORDER)
+     */
+    public StockReserveResult reserveOrder(String orderId, String prodId, int totalQuantity, int buyQuantity) {
+        if (buyQuantity <= 0) {
+            throw new IllegalArgumentException("buyQuantity must be positive: " + buyQuantity);
         }
-        Long addVal = setOps.add(makeSetKey(prodId), orderId);
-        log.info("{}-addVal:{}", Thread.currentThread().getName(), addVal);
+        long start = System.nanoTime();
+        byte[][] soldKeys = productKeys.orderSoldKeysBytes(prodId);
+        int shard = productKeys.orderShard(orderId);
+        byte[][] keysAndArgs = Arrays.copyOf(soldKeys, soldKeys.length + 5);
+        keysAndArgs[soldKeys.length] = productKeys.orderShardKeyBytes(prodId, orderId);
+        keysAndArgs[soldKeys.length + 1] = orderId.getBytes(StandardCharsets.UTF_8);
+        keysAndArgs[soldKeys.length + 2] = BinaryScriptExecutor.encode(totalQuantity);
+        keysAndArgs[soldKeys.length + 3] = BinaryScriptExecutor.encode(buyQuantity);
+        keysAndArgs[soldKeys.length + 4] = BinaryScriptExecutor.encode(shard);
 
-        Long lastStock = setOps.size(makeSetKey(prodId));
-        log.info("{}-lastStock:{}", Thread.currentThread().getName(), lastStock);
-        if (totalQuantity < lastStock) {
-            throw new IllegalStateException("[판매수량 오버]");
+        List<Long> res = binaryScriptExecutor.execute(orderReserveScript, soldKeys.length + 1, keysAndArgs);
+        StockReserveResult result = published("orderReserve", prodId, orderId, buyQuantity, StockReserveResult.of(res.get(0)));
+        stockMetrics.record("orderReserve", start, result);
+        return result;
+    }
+
+    /**
+     * 주문번호로 판매한 수량 (shard 별 판매수량 합계, MGET 한번)
+     *
+     * @param prodId
+     * @return 판매 수량
+     */
+    public long getOrderSold(String prodId) {
+        byte[][] soldKeys = productKeys.orderSoldKeysBytes(prodId);
+        List<byte[]> values = incrRedisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.stringCommands().mGet(soldKeys));
+        long sold = 0;
+        for (byte[] value : values) {
+            if (value != null) {
+                sold += Long.parseLong(new String(value, StandardCharsets.UTF_8));
+            }
         }
+        return sold;
     }
 
     /**
      * 판매된 수량을 증가 시키는 방법(lock)
-     * thread-safe
+     * 상품번호로 나눈 stripe lock 을 사용하여 다른 상품의 요청과는 경합하지 않음
+     * 최근 확인한 판매 수량으로 재고부족이면 lock 없이 바로 거절 (StockSnapshot)
+     * thread-safe (노드 하나 기준)
      *
      * @param prodId
      * @param totalQuantity
@@ -122,128 +280,489 @@ public class ProductQuantityService {
      * @throws InterruptedException
      */
     public void buyIncrement_localLock(String prodId, int totalQuantity, int buyQuantity) throws InterruptedException {
-        ValueOperations<String, Long> valusOps = incrRedisTemplate.opsForValue();
+        long start = System.nanoTime();
+        try {
+            ValueOperations<String, Long> valusOps = incrRedisTemplate.opsForValue();
+            checkSoldOut(prodId, totalQuantity);
 
-        boolean isLockAcquired = reentrantLock.tryLock(500, TimeUnit.MILLISECONDS);
+            ReentrantLock lock = stripedLocks.lock(prodId);
+            long waitStart = System.nanoTime();
+            boolean isLockAcquired = lock.tryLock(500, TimeUnit.MILLISECONDS);
+            (isLockAcquired ? localLockAcquired : localLockTimeout).record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
 
-        if (isLockAcquired) {
-            try {
-                Long stockedQuantity = valusOps.get(makeKey(prodId));
-                log.info("{}-stockedQuantity:{}", Thread.currentThread().getName(), stockedQuantity);
-                if (stockedQuantity >= totalQuantity) {
-                    throw new IllegalStateException("[제고부족]");
-                }
-                if ((stockedQuantity + buyQuantity) > totalQuantity) {
-                    throw new IllegalStateException("[판매수량부족]");
+            if (isLockAcquired) {
+                try {
+                    Long stockedQuantity = valusOps.get(makeKey(prodId));
+                    debugSampled("stockedQuantity:{}", stockedQuantity);
+                    stockSnapshot.observe(prodId, stockedQuantity);
+                    if (stockedQuantity >= totalQuantity) {
+                        throw new IllegalStateException("[제고부족]");
+                    }
+                    if ((stockedQuantity + buyQuantity) > totalQuantity) {
+                        throw new IllegalStateException("[판매수량부족]");
+                    }
+                    Long resVal = valusOps.increment(makeKey(prodId), buyQuantity);
+                    debugSampled("resVal:{}", resVal);
+                    stockSnapshot.observe(prodId, resVal);
+                } finally {
+                    lock.unlock();
                 }
-                Long resVal = valusOps.increment(makeKey(prodId), buyQuantity);
-                log.info("{}-resVal:{}", Thread.currentThread().getName(), resVal);
-            } finally {
-                reentrantLock.unlock();
+            } else {
+                log.warn("ProdId local lock timeout: {}", prodId);
+                throw new IllegalStateException(StockReserveResult.LOCK_TIMEOUT.getMessage());
             }
+        } catch (RuntimeException e) {
+            throw stockMetrics.failed("localLock", start, e);
         }
+        orderEventPublisher.publish("localLock", prodId, null, buyQuantity);
+        stockMetrics.record("localLock", start, StockReserveResult.RESERVED);
     }
 
+    /**
+     * 판매된 수량을 증가 시키는 방법(StampedLock)
+     * 재고 확인은 optimistic read 로 하고, 그 사이 같은 stripe 에 쓰기가 없었을 때(validate)만 그 값을 사용한다.
+     * - 재고부족: write lock 없이 거절
+     * - 판매 가능: tryConvertToWriteLock 이 성공하면 읽은 값으로 증가, 실패하면(그 사이 쓰기) write lock 을 잡고 다시 조회
+     * thread-safe (노드 하나 기준)
+     *
+     * @param prodId
+     * @param totalQuantity
+     * @param buyQuantity
+     * @throws InterruptedException
+     */
     public void buyIncrement_stampedLock(String prodId, int totalQuantity, int buyQuantity) throws InterruptedException {
-        ValueOperations<String, Long> valusOps = incrRedisTemplate.opsForValue();
-
-//        long stamp = stampedLock.tryReadLock();
-//        log.info("{}-validate:{}", Thread.currentThread().getName(), stampedLock.validate(stamp));
-//        try {
-//            Long stockedQuantity = valusOps.get(makeKey(prodId));
-//            log.info("{}-stockedQuantity:{}", Thread.currentThread().getName(), stockedQuantity);
-//            if (stockedQuantity >= totalQuantity) {
-//                throw new IllegalStateException("[제고부족]");
-//            }
-//            if ((stockedQuantity + buyQuantity) > totalQuantity) {
-//                throw new IllegalStateException("[판매수량부족]");
-//            }
-//        } finally {
-//            if (StampedLock.isReadLockStamp(stamp))
-//                stampedLock.unlock(stamp);
-//        }
-
-        long writeStamp = stampedLock.tryWriteLock(500, TimeUnit.MILLISECONDS);
-        log.info("{}-writeStamp:{}", Thread.currentThread().getName(), writeStamp);
+        long start = System.nanoTime();
         try {
+            ValueOperations<String, Long> valusOps = incrRedisTemplate.opsForValue();
+            checkSoldOut(prodId, totalQuantity);
+
+            StampedLock stampedLock = stripedLocks.stampedLock(prodId);
+            long stamp = stampedLock.tryOptimisticRead();
             Long stockedQuantity = valusOps.get(makeKey(prodId));
-            log.info("{}-stockedQuantity:{}", Thread.currentThread().getName(), stockedQuantity);
-            if (stockedQuantity >= totalQuantity) {
+            if (stamp != 0 && stampedLock.validate(stamp) && stockedQuantity >= totalQuantity) {
+                stockSnapshot.observe(prodId, stockedQuantity);
                 throw new IllegalStateException("[제고부족]");
             }
-            if ((stockedQuantity + buyQuantity) > totalQuantity) {
-                throw new IllegalStateException("[판매수량부족]");
-            }
-
-            Long resVal = valusOps.increment(makeKey(prodId), buyQuantity);
-            log.info("{}-resVal:{}", Thread.currentThread().getName(), resVal);
-        } finally {
-            stampedLock.unlockWrite(writeStamp);
-        }
-    }
-
-    public void buyIncrement_distributedLock(String prodId, int totalQuantity, int buyQuantity) throws InterruptedException {
-        ValueOperations<String, Long> valusOps = incrRedisTemplate.opsForValue();
 
-        boolean isLock = distributedLockCustom.tryLock(prodId, 500, TimeUnit.MILLISECONDS);
-
-        if (isLock) {
+            long writeStamp = stamp == 0 ? 0 : stampedLock.tryConvertToWriteLock(stamp);
+            if (writeStamp == 0) {
+                long waitStart = System.nanoTime();
+                writeStamp = stampedLock.tryWriteLock(500, TimeUnit.MILLISECONDS);
+                (writeStamp != 0 ? stampedLockAcquired : stampedLockTimeout)
+                        .record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+                if (writeStamp == 0) {
+                    log.warn("ProdId stamped lock timeout: {}", prodId);
+                    throw new IllegalStateException(StockReserveResult.LOCK_TIMEOUT.getMessage());
+                }
+                stockedQuantity = valusOps.get(makeKey(prodId));
+            }
+            debugSampled("writeStamp:{}", writeStamp);
             try {
-                Long stockedQuantity = valusOps.get(makeKey(prodId));
-                log.info("{}-stockedQuantity:{}", Thread.currentThread().getName(), stockedQuantity);
+                debugSampled("stockedQuantity:{}", stockedQuantity);
+                stockSnapshot.observe(prodId, stockedQuantity);
                 if (stockedQuantity >= totalQuantity) {
                     throw new IllegalStateException("[제고부족]");
                 }
                 if ((stockedQuantity + buyQuantity) > totalQuantity) {
                     throw new IllegalStateException("[판매수량부족]");
                 }
+
                 Long resVal = valusOps.increment(makeKey(prodId), buyQuantity);
-                log.info("{}-resVal:{}", Thread.currentThread().getName(), resVal);
+                debugSampled("resVal:{}", resVal);
+                stockSnapshot.observe(prodId, resVal);
             } finally {
-                distributedLockCustom.tryUnlock(prodId);
+                stampedLock.unlockWrite(writeStamp);
             }
-        } else {
-            log.warn("ProdId is lock: {}", prodId);
+        } catch (RuntimeException e) {
+            throw stockMetrics.failed("stampedLock", start, e);
         }
+        orderEventPublisher.publish("stampedLock", prodId, null, buyQuantity);
+        stockMetrics.record("stampedLock", start, StockReserveResult.RESERVED);
+    }
+
+    public void buyIncrement_distributedLock(String prodId, int totalQuantity, int buyQuantity) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            ValueOperations<String, Long> valusOps = incrRedisTemplate.opsForValue();
+            checkSoldOut(prodId, totalQuantity);
+
+            boolean isLock = redisDistributedLock.tryLock(prodId, 500, TimeUnit.MILLISECONDS);
+
+            if (isLock) {
+                try {
+                    Long stockedQuantity = valusOps.get(makeKey(prodId));
+                    debugSampled("stockedQuantity:{}", stockedQuantity);
+                    stockSnapshot.observe(prodId, stockedQuantity);
+                    if (stockedQuantity >= totalQuantity) {
+                        throw new IllegalStateException("[제고부족]");
+                    }
+                    if ((stockedQuantity + buyQuantity) > totalQuantity) {
+                        throw new IllegalStateException("[판매수량부족]");
+                    }
+                    Long resVal = valusOps.increment(makeKey(prodId), buyQuantity);
+                    debugSampled("resVal:{}", resVal);
+                    stockSnapshot.observe(prodId, resVal);
+                } finally {
+                    redisDistributedLock.tryUnlock(prodId);
+                }
+            } else {
+                log.warn("ProdId lock timeout: {}", prodId);
+                throw new IllegalStateException(StockReserveResult.LOCK_TIMEOUT.getMessage());
+            }
+        } catch (RuntimeException e) {
+            throw stockMetrics.failed("distributedLock", start, e);
+        }
+        orderEventPublisher.publish("distributedLock", prodId, null, buyQuantity);
+        stockMetrics.record("distributedLock", start, StockReserveResult.RESERVED);
     }
 
     /**
      * 레디스에서의 트랙잭션 처리
+     * WATCH 충돌(EXEC 결과 없음)시 backoff 후 재시도하고, 충돌이 잦으면 스크립트(sellStock)로 처리
+     * WATCH ~ EXEC 는 연결을 점유하므로 트랜잭션용 템플릿(txIncrRedisTemplate) 사용
      *
      * @param prodId
      * @param totalQuantity
      * @param buyQuantity
      */
     public void procBuyIncrement_transaction(String prodId, int totalQuantity, int buyQuantity) {
-        List<Object> txResults = incrRedisTemplate.execute(new SessionCallback<List<Object>>() {
-            public List<Object> execute(RedisOperations operations) throws DataAccessException {
-                // watch(읽기)안에 작업이 들어 갈 경우 스레드 테스트 결과 느리고 optimistic lock 발생
-                operations.watch(makeKey(prodId));
-                Long stockedQuantity = (Long) operations.opsForValue().get(makeKey(prodId));
-                log.info("===> {}-stockedQuantity:{}", Thread.currentThread().getName(), stockedQuantity);
-                if (stockedQuantity >= totalQuantity) {
-                    throw new IllegalStateException("[제고부족]");
+        long start = System.nanoTime();
+        StockReserveResult result = optimisticTransactionExecutor.execute(txIncrRedisTemplate, makeKey(prodId),
+                new SessionCallback<List<Object>>() {
+                    public List<Object> execute(RedisOperations operations) throws DataAccessException {
+                        // watch(읽기)안에 작업이 들어 갈 경우 스레드 테스트 결과 느리고 optimistic lock 발생
+                        operations.watch(makeKey(prodId));
+                        Long stockedQuantity = (Long) operations.opsForValue().get(makeKey(prodId));
+                        debugSampled("stockedQuantity:{}", stockedQuantity);
+                        if (stockedQuantity >= totalQuantity) {
+                            operations.unwatch();
+                            throw new IllegalStateException("[제고부족]");
+                        }
+                        if ((stockedQuantity + buyQuantity) > totalQuantity) {
+                            operations.unwatch();
+                            throw new IllegalStateException("[판매수량부족]");
+                        }
+                        operations.multi();
+                        operations.opsForValue().increment(makeKey(prodId), buyQuantity);
+
+                        return operations.exec();
+                    }
+                },
+                txResults -> published("transaction", prodId, null, buyQuantity, StockReserveResult.RESERVED),
+                () -> sellStock(prodId, totalQuantity, buyQuantity));
+
+        stockMetrics.record("transaction", start, result);
+        if (!result.isReserved()) {
+            throw new IllegalStateException(result.getMessage());
+        }
+    }
+
+    /**
+     * lua 스크립트로 판매 수량 확인과 증가를 한번에 처리하는 방법
+     * 전체 수량이 호출자마다 다를 수 있으므로 재고부족이어도 품절로 기록하지 않음 (SoldOutRegistry 미사용)
+     * 재고 키를 판매 수량으로 쓰므로 hot 상품은 IllegalStateException (SplitStockService.checkNotHot)
+     * thread-safe
+     *
+     * @param prodId
+     * @param totalQuantity
+     * @param buyQuantity
+     * @return 판매 결과
+     */
+    public StockReserveResult sellStock(String prodId, int totalQuantity, int buyQuantity) {
+        splitStockService.checkNotHot(prodId);
+        long start = System.nanoTime();
+        List<Long> res = binaryScriptExecutor.execute(stockSellScript, 1, productKeys.stockKeyBytes(prodId),
+                BinaryScriptExecutor.encode(totalQuantity), BinaryScriptExecutor.encode(buyQuantity));
+        StockReserveResult result = published("sell", prodId, null, buyQuantity, StockReserveResult.of(res.get(0)));
+        stockMetrics.record("sell", start, result);
+        return result;
+    }
+
+    /**
+     * lua 스크립트로 재고 확인과 차감을 한번에 처리하는 방법
+     * 장점: 한번의 왕복으로 원자 처리(lock, watch 재시도 불필요)
+     * 캐시된 키 바이트로 호출하여 요청마다 키/인자 직렬화를 하지 않음
+     * hot 으로 지정된 상품은 분할 카운터에서 차감 (SplitStockService)
+     * 품절로 기록된 상품은 레디스 호출 없이 재고부족 (SoldOutRegistry, 재입고는 replenishStock)
+     * thread-safe
+     *
+     * @param prodId
+     * @param buyQuantity
+     * @return 차감 결과
+     */
+    public StockReserveResult reserveStock(String prodId, int buyQuantity) {
+        return reserveStock(prodId, buyQuantity, null);
+    }
+
+    /**
+     * @param affinity 분할 카운터 선택 기준 (사용자 번호 등, null 이면 임의 선택)
+     */
+    public StockReserveResult reserveStock(String prodId, int buyQuantity, String affinity) {
+        long start = System.nanoTime();
+        boolean hot = splitStockService.isHot(prodId);
+        if (soldOutRegistry.isSoldOut(prodId)) {
+            stockMetrics.record(hot ? "split" : "reserve", start, StockReserveResult.OUT_OF_STOCK);
+            return StockReserveResult.OUT_OF_STOCK;
+        }
+        if (hot) {
+            StockReserveResult result = published("split", prodId, null, buyQuantity,
+                    observeSoldOut(prodId, start, splitStockService.reserve(prodId, buyQuantity, affinity), true));
+            stockMetrics.record("split", start, result);
+            return result;
+        }
+        List<Long> res = binaryScriptExecutor.execute(stockReserveScript, 1, productKeys.stockKeyBytes(prodId),
+                BinaryScriptExecutor.encode(buyQuantity));
+        StockReserveResult result = published("reserve", prodId, null, buyQuantity,
+                observeSoldOut(prodId, start, StockReserveResult.of(res.get(0)), false));
+        stockMetrics.record("reserve", start, result);
+        return result;
+    }
+
+    /**
+     * 재입고 (차감 방식 재고 키에 수량 추가), 모든 노드의 품절 기록 해제 (hot 상품도 동일, 카운터는 차감시 재분배)
+     * 재고 기준 정보(product_stock)가 있으면 입고 수량도 추가 (재고 대조에서 차이로 보지 않도록)
+     * 레디스에 먼저 추가하고 DB 반영에 실패하면 레디스에서 다시 빼고 예외를 던진다. (DB 입고 수량만 늘어난 상태가 남지 않음)
+     *
+     * @return 추가 후 재고
+     */
+    public Long replenishStock(String prodId, long quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive: " + quantity);
+        }
+        Long stock = incrRedisTemplate.opsForValue().increment(makeKey(prodId), quantity);
+        try {
+            productStockRepository.addTotalQuantity(prodId, quantity);
+        } catch (RuntimeException e) {
+            // 그 사이 판매된 수량은 되돌리지 않으므로 재고가 음수가 될 수 있음 (차감 스크립트는 판매수량 오버로 거절)
+            incrRedisTemplate.opsForValue().decrement(makeKey(prodId), quantity);
+            throw e;
+        }
+        soldOutRegistry.reset(prodId);
+        stockSnapshot.invalidate(prodId);
+        return stock;
+    }
+
+    /**
+     * 남은 재고 (분할 카운터 포함 합계)
+     */
+    public long getStock(String prodId) {
+        return splitStockService.availableStock(prodId);
+    }
+
+    /**
+     * 장바구니 상품들의 재고를 한번의 왕복으로 차감(all-or-nothing)
+     * 상품별로 procBuyQuantity 를 호출하면 2N 번의 왕복이 발생하므로 스크립트 한번으로 처리한다.
+     * 클러스터에서는 여러 슬롯의 키를 한 스크립트로 처리할 수 없으므로 슬롯별로 나누어 처리한다. (reserveCartBySlot)
+     * hot 상품이 있으면 그 라인은 분할 카운터에서 차감한다. (reserveCartSplit)
+     *
+     * @param cartLines
+     * @return 라인별 차감 결과
+     */
+    public CartReserveResult reserveCart(List<CartLine> cartLines) {
+        if (cartLines.isEmpty()) {
+            throw new IllegalArgumentException("cartLines is empty");
+        }
+        long start = System.nanoTime();
+        CartReserveResult result = cartLines.stream().anyMatch(cartLine -> splitStockService.isHot(cartLine.getProdId()))
+                ? reserveCartSplit(cartLines)
+                : reserveCartLines(cartLines);
+        if (result.isReserved()) {
+            orderEventPublisher.publishAll(cartLines.stream()
+                    .map(cartLine -> orderEventPublisher.event("cart", cartLine.getProdId(), null, cartLine.getQuantity()))
+                    .collect(Collectors.toList()));
+        }
+        stockMetrics.record("cart", start, result);
+        return result;
+    }
+
+    private CartReserveResult reserveCartLines(List<CartLine> cartLines) {
+        return clusterAware ? reserveCartBySlot(cartLines) : new CartReserveResult(executeCartScript(cartLines));
+    }
+
+    /**
+     * hot 상품이 포함된 장바구니: 일반 라인을 먼저 장바구니 스크립트로 차감하고, hot 라인은 분할 카운터에서 하나씩 차감
+     * hot 라인이 실패하면 차감한 라인을 모두 기존 재고 키에 되돌린다. (기존 재고 키는 분할 재고 합계에 포함되므로 hot 라인도 같은 방식)
+     *
+     * @param cartLines
+     * @return 라인별 차감 결과 (요청 라인 순서, 되돌린 라인과 시도하지 않은 라인은 NOT_RESERVED)
+     */
+    CartReserveResult reserveCartSplit(List<CartLine> cartLines) {
+        StockReserveResult[] lineResults = new StockReserveResult[cartLines.size()];
+        Arrays.fill(lineResults, StockReserveResult.NOT_RESERVED);
+        List<Integer> plainIndexes = new ArrayList<>();
+        List<Integer> hotIndexes = new ArrayList<>();
+        for (int i = 0; i < cartLines.size(); i++) {
+            (splitStockService.isHot(cartLines.get(i).getProdId()) ? hotIndexes : plainIndexes).add(i);
+        }
+
+        List<CartLine> reservedLines = new ArrayList<>();
+        if (!plainIndexes.isEmpty()) {
+            List<CartLine> plainLines = plainIndexes.stream().map(cartLines::get).collect(Collectors.toList());
+            CartReserveResult plainResult = reserveCartLines(plainLines);
+            for (int i = 0; i < plainIndexes.size(); i++) {
+                lineResults[plainIndexes.get(i)] = plainResult.getLineResults().get(i);
+            }
+            if (!plainResult.isReserved()) {
+                return new CartReserveResult(Arrays.asList(lineResults));
+            }
+            reservedLines.addAll(plainLines);
+        }
+
+        for (int index : hotIndexes) {
+            CartLine cartLine = cartLines.get(index);
+            StockReserveResult lineResult = splitStockService.reserve(cartLine.getProdId(), cartLine.getQuantity());
+            if (!lineResult.isReserved()) {
+                restoreStock(reservedLines);
+                Arrays.fill(lineResults, StockReserveResult.NOT_RESERVED);
+                lineResults[index] = lineResult;
+                return new CartReserveResult(Arrays.asList(lineResults));
+            }
+            lineResults[index] = lineResult;
+            reservedLines.add(cartLine);
+        }
+        return new CartReserveResult(Arrays.asList(lineResults));
+    }
+
+    /**
+     * 차감한 라인의 수량을 재고 키에 되돌림 (파이프라인 한번)
+     */
+    private void restoreStock(List<CartLine> cartLines) {
+        if (cartLines.isEmpty()) {
+            return;
+        }
+        incrRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            cartLines.forEach(cartLine -> connection.stringCommands().incrBy(
+                    productKeys.stockKeyBytes(cartLine.getProdId()), cartLine.getQuantity()));
+            return null;
+        });
+    }
+
+    /**
+     * 슬롯별로 장바구니 스크립트를 실행하고, 하나라도 차감되지 않은 슬롯이 있으면 차감된 슬롯을 되돌림(보상)
+     * 슬롯별 스크립트와 보상 INCRBY 는 각각 파이프라인 한번으로 보낸다. (왕복 최대 2번)
+     * 파이프라인 안에서는 NOSCRIPT 재시도를 할 수 없으므로 스크립트는 EVAL 로 전송한다.
+     * 슬롯 사이에는 원자적이지 않으므로 되돌리기 전까지 다른 요청이 일시적으로 재고부족을 볼 수 있다.
+     *
+     * @param cartLines
+     * @return 라인별 차감 결과 (요청 라인 순서, 되돌린 라인은 NOT_RESERVED)
+     */
+    @SuppressWarnings("unchecked")
+    CartReserveResult reserveCartBySlot(List<CartLine> cartLines) {
+        List<List<Integer>> slots = new ArrayList<>(IntStream.range(0, cartLines.size())
+                .boxed()
+                .collect(Collectors.groupingBy(i -> SlotHash.getSlot(productKeys.stockKeyBytes(cartLines.get(i).getProdId())),
+                        LinkedHashMap::new, Collectors.toList()))
+                .values());
+
+        List<Object> slotResults = incrRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (List<Integer> lineIndexes : slots) {
+                byte[][] keysAndArgs = new byte[lineIndexes.size() * 2][];
+                for (int i = 0; i < lineIndexes.size(); i++) {
+                    CartLine cartLine = cartLines.get(lineIndexes.get(i));
+                    keysAndArgs[i] = productKeys.stockKeyBytes(cartLine.getProdId());
+                    keysAndArgs[lineIndexes.size() + i] = BinaryScriptExecutor.encode(cartLine.getQuantity());
                 }
-                if ((stockedQuantity + buyQuantity) > totalQuantity) {
-                    throw new IllegalStateException("[판매수량부족]");
+                connection.scriptingCommands().eval(cartScriptBytes, ReturnType.MULTI, lineIndexes.size(), keysAndArgs);
+            }
+            return null;
+        });
+
+        StockReserveResult[] lineResults = new StockReserveResult[cartLines.size()];
+        List<CartLine> reservedLines = new ArrayList<>();
+        for (int slot = 0; slot < slots.size(); slot++) {
+            List<Integer> lineIndexes = slots.get(slot);
+            List<Long> codes = (List<Long>) slotResults.get(slot);
+            for (int i = 0; i < lineIndexes.size(); i++) {
+                lineResults[lineIndexes.get(i)] = StockReserveResult.of(codes.get(i));
+                if (lineResults[lineIndexes.get(i)].isReserved()) {
+                    reservedLines.add(cartLines.get(lineIndexes.get(i)));
                 }
-                operations.multi();
-                operations.opsForValue().increment(makeKey(prodId), buyQuantity);
+            }
+        }
 
-                return operations.exec();
+        if (reservedLines.size() < cartLines.size()) {
+            restoreStock(reservedLines);
+            for (int i = 0; i < lineResults.length; i++) {
+                if (lineResults[i].isReserved()) {
+                    lineResults[i] = StockReserveResult.NOT_RESERVED;
+                }
             }
-        });
-//        log.info("Number of items added to set: {}", txResults.get(0));
+        }
+        return new CartReserveResult(Arrays.asList(lineResults));
+    }
 
-        Long resVal = incrRedisTemplate.opsForValue().get(makeKey(prodId));
-        log.info("{}-resVal:{}", Thread.currentThread().getName(), resVal);
+    private List<StockReserveResult> executeCartScript(List<CartLine> cartLines) {
+        List<String> keys = cartLines.stream()
+                .map(cartLine -> makeKey(cartLine.getProdId()))
+                .collect(Collectors.toList());
+        Object[] quantities = cartLines.stream()
+                .map(CartLine::getQuantity)
+                .toArray();
+
+        List<Long> res = incrRedisTemplate.execute(stockReserveCartScript, keys, quantities);
+        return res.stream()
+                .map(StockReserveResult::of)
+                .collect(Collectors.toList());
     }
 
-    private String makeKey(String prodId) {
-        return String.format("%s:%s", "PRODUCT:STOCKED", prodId);
+    /**
+     * 노드 메모리 lock 대기 시간 (분산락은 RedisDistributedLock 의 redis.lock.acquire)
+     */
+    private Timer lockWaitTimer(String lock, String result) {
+        return Timer.builder("stock.lock.wait")
+                .description("time waiting for a local stock lock")
+                .tags("lock", lock, "result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 품절 기록이 있으면 레디스 호출 없이 재고부족 (SoldOutRegistry)
+     */
+    private void checkSoldOut(String prodId) {
+        if (soldOutRegistry.isSoldOut(prodId)) {
+            throw new IllegalStateException("[제고부족]");
+        }
     }
 
-    private String makeSetKey(String prodId) {
-        return String.format("%s:%s", "PRODUCT:SET:STOCKED", prodId);
+    /**
+     * 재고부족이고 기준 재고가 0 이하일 때만 품절로 기록
+     * 일반 상품은 스크립트가 읽은 재고 키가 기준이고, hot 상품은 재분배 중에 재고부족이 나올 수 있으므로 합계를 다시 확인
+     */
+    private StockReserveResult observeSoldOut(String prodId, long start, StockReserveResult result, boolean hot) {
+        if (result == StockReserveResult.OUT_OF_STOCK && (!hot || splitStockService.availableStock(prodId) <= 0)) {
+            soldOutRegistry.markSoldOut(prodId, start);
+        }
+        return result;
+    }
+
+    /**
+     * 차감 성공시 주문 이벤트 발행 (OrderEventPublisher, stream 에 추가된 뒤 반환)
+     */
+    private StockReserveResult published(String strategy, String prodId, String orderId, int buyQuantity,
+                                         StockReserveResult result) {
+        if (result.isReserved()) {
+            orderEventPublisher.publish(strategy, prodId, orderId, buyQuantity);
+        }
+        return result;
+    }
+
+    /**
+     * 최근 확인한 판매 수량으로 재고부족 판단 (lock, 레디스 조회 없음)
+     */
+    private void checkSoldOut(String prodId, int totalQuantity) {
+        if (stockSnapshot.isSoldOut(prodId, totalQuantity)) {
+            throw new IllegalStateException("[제고부족]");
+        }
+    }
+
+    private void debugSampled(String format, Object arg) {
+        if (log.isDebugEnabled() && (logSampleRate <= 1 || ThreadLocalRandom.current().nextInt(logSampleRate) == 0)) {
+            log.debug(format, arg);
+        }
+    }
+
+    private String makeKey(String prodId) {
+        return productKeys.stockKey(prodId);
     }
 }
@@ -0,0 +1,210 @@
+package com.example.redis.service;
+
+import com.example.redis.util.ProductKeys;
+import com.example.redis.util.SoldOutRegistry;
+import io.lettuce.core.cluster.SlotHash;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * ProductQuantityService 의 non-blocking 버전
+ * 레디스 응답을 기다리는 동안 호출 스레드를 점유하지 않으므로 적은 수의 스레드로 동시 요청을 처리한다.
+ * 확인과 차감이 한번에 끝나야 하므로 lua 스크립트 방식만 제공 (lock, watch 방식은 스레드를 점유함)
+ * hot 상품(분할 카운터)의 차감은 재분배가 여러 번의 호출이라 ProductQuantityService 를 boundedElastic 스케줄러에서 호출한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReactiveProductQuantityService {
+
+    private final ReactiveRedisTemplate<String, Long> reactiveIncrRedisTemplate;
+
+    private final RedisScript<List> stockReserveScript;
+    private final RedisScript<List> stockReserveCartScript;
+    private final RedisScript<List> stockSellScript;
+
+    private final ProductKeys productKeys;
+    private final SoldOutRegistry soldOutRegistry;
+    private final OrderEventPublisher orderEventPublisher;
+    private final SplitStockService splitStockService;
+    private final ProductQuantityService productQuantityService;
+
+    private boolean clusterAware;
+
+    @PostConstruct
+    public void init() {
+        clusterAware = reactiveIncrRedisTemplate.getConnectionFactory() instanceof LettuceConnectionFactory
+                && ((LettuceConnectionFactory) reactiveIncrRedisTemplate.getConnectionFactory()).isClusterAware();
+    }
+
+    /**
+     * lua 스크립트로 재고 확인과 차감 (ProductQuantityService.reserveStock 과 동일)
+     *
+     * @param prodId
+     * @param buyQuantity
+     * @return 차감 결과
+     */
+    public Mono<StockReserveResult> reserveStock(String prodId, int buyQuantity) {
+        if (soldOutRegistry.isSoldOut(prodId)) {
+            return Mono.just(StockReserveResult.OUT_OF_STOCK);
+        }
+        if (splitStockService.isHot(prodId)) {
+            return Mono.fromCallable(() -> productQuantityService.reserveStock(prodId, buyQuantity))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+        long start = System.nanoTime();
+        return executeScript(stockReserveScript, List.of(productKeys.stockKey(prodId)), List.of((long) buyQuantity))
+                .flatMap(res -> published("reserve", prodId, buyQuantity,
+                        observeSoldOut(prodId, start, StockReserveResult.of(res.get(0)))));
+    }
+
+    /**
+     * lua 스크립트로 판매 수량 확인과 증가 (ProductQuantityService.sellStock 과 동일)
+     *
+     * @param prodId
+     * @param totalQuantity
+     * @param buyQuantity
+     * @return 판매 결과 (hot 상품이면 IllegalStateException, 품절로 기록하지 않음)
+     */
+    public Mono<StockReserveResult> sellStock(String prodId, int totalQuantity, int buyQuantity) {
+        return Mono.fromRunnable(() -> splitStockService.checkNotHot(prodId)).then(executeScript(stockSellScript, List.of(productKeys.stockKey(prodId)),
+                List.of((long) totalQuantity, (long) buyQuantity)))
+                .flatMap(res -> published("sell", prodId, buyQuantity, StockReserveResult.of(res.get(0))));
+    }
+
+    /**
+     * 장바구니 상품들의 재고를 한번의 왕복으로 차감(all-or-nothing)
+     * 클러스터에서는 여러 슬롯의 키를 한 스크립트로 처리할 수 없으므로 슬롯별로 나누어 처리한다. (reserveCartBySlot)
+     * hot 상품이 있으면 ProductQuantityService.reserveCart 로 처리 (분할 카운터 차감)
+     *
+     * @param cartLines
+     * @return 라인별 차감 결과
+     */
+    public Mono<CartReserveResult> reserveCart(List<CartLine> cartLines) {
+        if (cartLines.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("cartLines is empty"));
+        }
+        if (cartLines.stream().anyMatch(cartLine -> splitStockService.isHot(cartLine.getProdId()))) {
+            return Mono.fromCallable(() -> productQuantityService.reserveCart(cartLines))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+
+        Mono<CartReserveResult> result = clusterAware
+                ? reserveCartBySlot(cartLines)
+                : executeCartScript(cartLines).map(CartReserveResult::new);
+        return result.flatMap(cartResult -> cartResult.isReserved()
+                ? orderEventPublisher.publishReactive(cartLines.stream()
+                        .map(cartLine -> orderEventPublisher.event("cart", cartLine.getProdId(), null, cartLine.getQuantity()))
+                        .collect(Collectors.toList()))
+                .thenReturn(cartResult)
+                : Mono.just(cartResult));
+    }
+
+    /**
+     * 슬롯별 장바구니 스크립트를 응답을 기다리지 않고 이어서 보내고(연결 하나에 pipelining),
+     * 하나라도 차감되지 않은 슬롯이 있으면 차감된 라인을 같은 방식으로 되돌림(보상)
+     * (ProductQuantityService.reserveCartBySlot 과 동일)
+     *
+     * @param cartLines
+     * @return 라인별 차감 결과 (요청 라인 순서, 되돌린 라인은 NOT_RESERVED)
+     */
+    Mono<CartReserveResult> reserveCartBySlot(List<CartLine> cartLines) {
+        List<List<Integer>> slots = new ArrayList<>(IntStream.range(0, cartLines.size())
+                .boxed()
+                .collect(Collectors.groupingBy(i -> SlotHash.getSlot(productKeys.stockKeyBytes(cartLines.get(i).getProdId())),
+                        LinkedHashMap::new, Collectors.toList()))
+                .values());
+
+        return Flux.fromIterable(slots)
+                .flatMapSequential(lineIndexes -> executeCartScript(lineIndexes.stream()
+                        .map(cartLines::get)
+                        .collect(Collectors.toList())), slots.size())
+                .collectList()
+                .flatMap(slotResults -> {
+                    StockReserveResult[] lineResults = new StockReserveResult[cartLines.size()];
+                    List<CartLine> reservedLines = new ArrayList<>();
+                    for (int slot = 0; slot < slots.size(); slot++) {
+                        List<Integer> lineIndexes = slots.get(slot);
+                        for (int i = 0; i < lineIndexes.size(); i++) {
+                            lineResults[lineIndexes.get(i)] = slotResults.get(slot).get(i);
+                            if (lineResults[lineIndexes.get(i)].isReserved()) {
+                                reservedLines.add(cartLines.get(lineIndexes.get(i)));
+                            }
+                        }
+                    }
+                    if (reservedLines.size() == cartLines.size()) {
+                        return Mono.just(new CartReserveResult(Arrays.asList(lineResults)));
+                    }
+
+                    for (int i = 0; i < lineResults.length; i++) {
+                        if (lineResults[i].isReserved()) {
+                            lineResults[i] = StockReserveResult.NOT_RESERVED;
+                        }
+                    }
+                    return Flux.fromIterable(reservedLines)
+                            .flatMap(cartLine -> reactiveIncrRedisTemplate.opsForValue()
+                                    .increment(productKeys.stockKey(cartLine.getProdId()), cartLine.getQuantity()))
+                            .then(Mono.just(new CartReserveResult(Arrays.asList(lineResults))));
+                });
+    }
+
+    private Mono<List<StockReserveResult>> executeCartScript(List<CartLine> cartLines) {
+        List<String> keys = cartLines.stream()
+                .map(cartLine -> productKeys.stockKey(cartLine.getProdId()))
+                .collect(Collectors.toList());
+        List<Long> quantities = cartLines.stream()
+                .map(cartLine -> (long) cartLine.getQuantity())
+                .collect(Collectors.toList());
+
+        return executeScript(stockReserveCartScript, keys, quantities)
+                .map(res -> res.stream()
+                        .map(StockReserveResult::of)
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * hot 이 아닌 상품만 호출되므로 스크립트가 읽은 재고 키가 기준 재고
+     */
+    private StockReserveResult observeSoldOut(String prodId, long start, StockReserveResult result) {
+        if (result == StockReserveResult.OUT_OF_STOCK) {
+            soldOutRegistry.markSoldOut(prodId, start);
+        }
+        return result;
+    }
+
+    /**
+     * 차감 성공시 주문 이벤트 발행 (reactive XADD, stream 에 추가된 뒤 결과 전달)
+     */
+    private Mono<StockReserveResult> published(String strategy, String prodId, int buyQuantity, StockReserveResult result) {
+        if (!result.isReserved()) {
+            return Mono.just(result);
+        }
+        return orderEventPublisher.publishReactive(List.of(orderEventPublisher.event(strategy, prodId, null, buyQuantity)))
+                .thenReturn(result);
+    }
+
+    /**
+     * 스크립트 응답 목록을 한번 발행
+     */
+    @SuppressWarnings("unchecked")
+    private Mono<List<Long>> executeScript(RedisScript<List> script, List<String> keys, List<Long> args) {
+        return reactiveIncrRedisTemplate.execute(script, keys, args)
+                .next()
+                .map(res -> (List<Long>) res);
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.redis.service;
+
+import com.example.redis.model.ProductStock;
+import com.example.redis.repository.ProductStockRepository;
+import com.example.redis.util.BinaryScriptExecutor;
+import com.example.redis.util.ProductKeys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 인기 상품(hot-SKU) 재고 분할 카운터
+ * 한 상품의 재고 키(PRODUCT:STOCKED:{상품})에 모든 구매가 몰리면 레디스 코어 하나(클러스터에서는 shard 하나)가 포화되므로,
+ * hot 으로 지정된 상품은 재고를 counters 개의 카운터(ProductKeys.stockCounterKey)에 나누어 차감한다.
+ * - 카운터 선택: 호출자 affinity(사용자 번호 등)의 해시, 없으면 임의 선택
+ * - 재분배: 선택한 카운터가 부족하면 기존 재고 키와 다른 카운터에서 덜어와 채운 뒤 다시 차감
+ *   단일 노드에서는 덜어내기와 더하기를 스크립트 한번(stock_move.lua)으로 처리해 이동 중에도 합계가 그대로 보인다.
+ *   클러스터에서는 카운터들이 다른 슬롯에 있어 덜어낸 뒤에 더한다. (stock_take.lua, 그 사이에는 재고가 적게 보일 뿐 초과 판매는 없음)
+ * - 재분배를 다 써도 차감하지 못하면 재고가 남은 아무 키에서 직접 차감하고, 합계가 0 일 때만 재고부족(OUT_OF_STOCK)
+ * - 조회: 기존 재고 키와 모든 카운터의 합 (availableStock)
+ * - 남은 재고를 차감하는 경로(reserveStock, 장바구니, reactive, 로컬 임대)는 모두 분할 카운터를 사용하고,
+ *   재고 키를 판매 수량으로 쓰는 경로(sellStock, StockBatchDispatcher)는 hot 상품을 거절한다. (checkNotHot)
+ * - 지정: PRODUCT:HOT set 과 product.stock.split.hot-products 설정, refresh-interval-ms 마다 다시 읽는다.
+ *   기존 재고 키는 저장소 역할을 하므로 지정 즉시 별도 이전 없이 분할 차감이 시작되고, 지정이 풀리면 카운터 재고를 기존 키로 되돌린다.
+ * 지표: stock.split.rebalances, stock.split.moved
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SplitStockService {
+
+    private static final int MAX_REBALANCE_ATTEMPTS = 3;
+
+    private final RedisTemplate<String, Long> incrRedisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisScript<List> stockReserveScript;
+    private final RedisScript<Long> stockTakeScript;
+    private final RedisScript<Long> stockMoveScript;
+    private final ProductKeys productKeys;
+    private final ProductStockRepository productStockRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${product.stock.split.hot-products:}")
+    private Set<String> configuredHotProducts;
+
+    private volatile Set<String> hotProducts = Set.of();
+
+    private BinaryScriptExecutor binaryScriptExecutor;
+    private boolean clusterAware;
+    private Counter rebalanceCounter;
+    private Counter movedCounter;
+
+    @PostConstruct
+    public void init() {
+        binaryScriptExecutor = new BinaryScriptExecutor(incrRedisTemplate);
+        clusterAware = incrRedisTemplate.getConnectionFactory() instanceof LettuceConnectionFactory
+                && ((LettuceConnectionFactory) incrRedisTemplate.getConnectionFactory()).isClusterAware();
+        configuredHotProducts = configuredHotProducts.stream()
+                .filter(prodId -> !prodId.isBlank())
+                .collect(Collectors.toUnmodifiableSet());
+        hotProducts = configuredHotProducts;
+        rebalanceCounter = Counter.builder("stock.split.rebalances")
+                .description("split stock counters refilled from the reservoir or sibling counters")
+                .register(meterRegistry);
+        movedCounter = Counter.builder("stock.split.moved")
+                .description("stock units moved between split stock counters")
+                .register(meterRegistry);
+        refreshHotProducts();
+    }
+
+    /**
+     * 분할 차감 대상 여부 (노드 메모리 조회)
+     */
+    public boolean isHot(String prodId) {
+        return hotProducts.contains(prodId);
+    }
+
+    /**
+     * 재고 키를 판매 수량으로 쓰는 경로에서 호출, hot 상품이면 예외
+     * (재분배가 판매 수량을 남은 재고로 보고 카운터로 옮기므로)
+     */
+    public void checkNotHot(String prodId) {
+        if (isHot(prodId)) {
+            throw new IllegalStateException("hot product only supports remaining stock: " + prodId);
+        }
+    }
+
+    /**
+     * hot 지정 (다른 노드는 다음 refresh 에 반영)
+     * 재고 기준 정보가 판매 수량(SOLD) 방식인 상품은 지정할 수 없음
+     */
+    public void flagHot(String prodId) {
+        productStockRepository.findById(prodId)
+                .filter(productStock -> productStock.getCounting() == ProductStock.Counting.SOLD)
+                .ifPresent(productStock -> {
+                    throw new IllegalStateException("sold counting product can not be split: " + prodId);
+                });
+        stringRedisTemplate.opsForSet().add(ProductKeys.HOT_PRODUCTS_KEY, prodId);
+        refreshHotProducts();
+    }
+
+    /**
+     * hot 지정 해제, 카운터에 남은 재고는 기존 재고 키로 되돌림
+     */
+    public void unflagHot(String prodId) {
+        stringRedisTemplate.opsForSet().remove(ProductKeys.HOT_PRODUCTS_KEY, prodId);
+        refreshHotProducts();
+        merge(prodId);
+    }
+
+    @Scheduled(fixedDelayString = "${product.stock.split.refresh-interval-ms:1000}")
+    public void refreshHotProducts() {
+        Set<String> flagged;
+        try {
+            flagged = stringRedisTemplate.opsForSet().members(ProductKeys.HOT_PRODUCTS_KEY);
+        } catch (DataAccessException e) {
+            log.warn("hot product refresh failed: {}", e.getMessage());
+            return;
+        }
+        Set<String> refreshed = new HashSet<>(configuredHotProducts);
+        if (flagged != null) {
+            refreshed.addAll(flagged);
+        }
+
+        Set<String> previous = hotProducts;
+        hotProducts = Set.copyOf(refreshed);
+        for (String prodId : previous) {
+            if (!refreshed.contains(prodId)) {
+                merge(prodId);
+            }
+        }
+    }
+
+    /**
+     * 임의 카운터에서 차감
+     */
+    public StockReserveResult reserve(String prodId, int buyQuantity) {
+        return reserve(prodId, buyQuantity, ThreadLocalRandom.current().nextInt(productKeys.getStockCounters()));
+    }
+
+    /**
+     * affinity 해시로 고른 카운터에서 차감 (같은 호출자는 같은 카운터 사용)
+     */
+    public StockReserveResult reserve(String prodId, int buyQuantity, String affinity) {
+        if (affinity == null) {
+            return reserve(prodId, buyQuantity);
+        }
+        return reserve(prodId, buyQuantity, Math.floorMod(affinity.hashCode(), productKeys.getStockCounters()));
+    }
+
+    StockReserveResult reserve(String prodId, int buyQuantity, int counter) {
+        StockReserveResult result = reserveCounter(productKeys.stockCounterKeyBytes(prodId, counter), buyQuantity);
+        if (result == StockReserveResult.INVALID_QUANTITY) {
+            return result;
+        }
+        for (int attempt = 0; attempt < MAX_REBALANCE_ATTEMPTS && !result.isReserved(); attempt++) {
+            List<Long> stocks = stocks(prodId);
+            long total = positiveSum(stocks);
+            if (total == 0) {
+                return StockReserveResult.OUT_OF_STOCK;
+            }
+            if (total < buyQuantity) {
+                return StockReserveResult.INSUFFICIENT_QUANTITY;
+            }
+            rebalance(prodId, counter, buyQuantity, stocks, total);
+            result = reserveCounter(productKeys.stockCounterKeyBytes(prodId, counter), buyQuantity);
+        }
+        return result.isReserved() ? result : reserveAny(prodId, buyQuantity);
+    }
+
+    /**
+     * 기존 재고 키, 카운터 순으로 최대 quantity 만큼 덜어냄 (로컬 임대용, 덜어낸 재고는 기존 재고 키로 반납)
+     *
+     * @return 덜어낸 수량
+     */
+    public long take(String prodId, long quantity) {
+        long taken = 0;
+        List<Long> stocks = stocks(prodId);
+        for (int i = 0; i < stocks.size() && taken < quantity; i++) {
+            if (stocks.get(i) > 0) {
+                String source = i == 0 ? productKeys.stockKey(prodId) : productKeys.stockCounterKey(prodId, i - 1);
+                Long res = incrRedisTemplate.execute(stockTakeScript, List.of(source), quantity - taken);
+                taken += res == null ? 0 : res;
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * 기존 재고 키와 모든 카운터의 합
+     */
+    public long availableStock(String prodId) {
+        return stocks(prodId).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * 카운터 재고를 모두 기존 재고 키로 이동
+     */
+    void merge(String prodId) {
+        try {
+            long moved = 0;
+            for (int i = 0; i < productKeys.getStockCounters(); i++) {
+                moved += move(productKeys.stockCounterKey(prodId, i), productKeys.stockKey(prodId), Long.MAX_VALUE);
+            }
+            if (moved > 0) {
+                log.info("split stock merged: prodId={}, moved={}", prodId, moved);
+            }
+        } catch (DataAccessException e) {
+            log.warn("split stock merge failed: prodId={}, {}", prodId, e.getMessage());
+        }
+    }
+
+    /**
+     * 카운터 몫(전체 재고 / 카운터 수, 최소 구매 수량)이 되도록 기존 재고 키, 재고가 많은 카운터 순으로 덜어옴
+     *
+     * @param stocks 기존 재고 키, 카운터 0..n-1 순서의 재고
+     */
+    private void rebalance(String prodId, int counter, int buyQuantity, List<Long> stocks, long total) {
+        int counters = productKeys.getStockCounters();
+        long share = Math.max(buyQuantity, (total + counters - 1) / counters);
+        long wanted = share - Math.max(0, stocks.get(counter + 1));
+        if (wanted <= 0) {
+            return;
+        }
+
+        List<String> sources = new ArrayList<>(counters);
+        sources.add(productKeys.stockKey(prodId));
+        IntStream.range(0, counters)
+                .filter(i -> i != counter && stocks.get(i + 1) > 0)
+                .boxed()
+                .sorted(Comparator.comparing((Integer i) -> stocks.get(i + 1)).reversed())
+                .forEach(i -> sources.add(productKeys.stockCounterKey(prodId, i)));
+
+        String target = productKeys.stockCounterKey(prodId, counter);
+        long moved = 0;
+        for (String source : sources) {
+            if (moved >= wanted) {
+                break;
+            }
+            moved += move(source, target, wanted - moved);
+        }
+        rebalanceCounter.increment();
+        movedCounter.increment(moved);
+    }
+
+    /**
+     * 재분배 후에도 자기 카운터에서 차감하지 못한 경우 (다른 요청과 경합), 재고가 구매 수량 이상인 키에서 직접 차감
+     * 그래도 실패하면 합계를 다시 확인해 0 일 때만 재고부족, 남아 있으면 판매수량부족 (나뉘어 있어 한 키에 모자람)
+     */
+    private StockReserveResult reserveAny(String prodId, int buyQuantity) {
+        List<Long> stocks = stocks(prodId);
+        for (int i = 0; i < stocks.size(); i++) {
+            if (stocks.get(i) >= buyQuantity) {
+                byte[] key = i == 0 ? productKeys.stockKeyBytes(prodId) : productKeys.stockCounterKeyBytes(prodId, i - 1);
+                if (reserveCounter(key, buyQuantity).isReserved()) {
+                    return StockReserveResult.RESERVED;
+                }
+            }
+        }
+        return positiveSum(stocks(prodId)) == 0 ? StockReserveResult.OUT_OF_STOCK : StockReserveResult.INSUFFICIENT_QUANTITY;
+    }
+
+    /**
+     * source 에서 최대 quantity 만큼 덜어 target 에 더함 (단일 노드는 스크립트 한번)
+     *
+     * @return 옮긴 수량
+     */
+    private long move(String source, String target, long quantity) {
+        if (!clusterAware) {
+            Long moved = incrRedisTemplate.execute(stockMoveScript, List.of(source, target), quantity);
+            return moved == null ? 0 : moved;
+        }
+        Long taken = incrRedisTemplate.execute(stockTakeScript, List.of(source), quantity);
+        if (taken == null || taken == 0) {
+            return 0;
+        }
+        incrRedisTemplate.opsForValue().increment(target, taken);
+        return taken;
+    }
+
+    private StockReserveResult reserveCounter(byte[] key, int buyQuantity) {
+        List<Long> res = binaryScriptExecutor.execute(stockReserveScript, 1, key, BinaryScriptExecutor.encode(buyQuantity));
+        return StockReserveResult.of(res.get(0));
+    }
+
+    private static long positiveSum(List<Long> stocks) {
+        return stocks.stream().mapToLong(stock -> Math.max(0, stock)).sum();
+    }
+
+    /**
+     * @return 기존 재고 키, 카운터 0..n-1 순서의 재고 (없으면 0)
+     */
+    private List<Long> stocks(String prodId) {
+        List<String> keys = new ArrayList<>(productKeys.getStockCounters() + 1);
+        keys.add(productKeys.stockKey(prodId));
+        for (int i = 0; i < productKeys.getStockCounters(); i++) {
+            keys.add(productKeys.stockCounterKey(prodId, i));
+        }
+        List<Long> values = incrRedisTemplate.opsForValue().multiGet(keys);
+        return values.stream()
+                .map(value -> value == null ? 0L : value)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.redis.service;
+
+import com.example.redis.util.BinaryScriptExecutor;
+import com.example.redis.util.ProductKeys;
+import com.example.redis.util.StockSnapshot;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 상품의 동시 판매 요청을 모아 스크립트 한번으로 처리 (micro-batching)
+ * 상품별로 첫 요청부터 window-us 동안(또는 max-size 개가 될 때까지) 모은 요청을 stock_sell_batch.lua 로 보내
+ * 도착 순서대로 판매 가능 수량을 배정하고, 요청마다 자기 결과로 future 를 완료한다.
+ * - 최대 window-us 만큼 지연이 늘어나는 대신 인기 상품의 레디스 호출 수가 요청 수 / batch 크기로 줄어든다.
+ * - max-size 에 도달한 batch 는 마지막으로 추가한 호출 스레드가 바로 실행하고, 그 외에는 타이머가 실행 스레드(threads 개)에 넘긴다.
+ *   (타이머 스레드는 레디스를 기다리지 않으므로 한 상품의 느린 호출이 다른 상품의 batch 를 늦추지 않음)
+ * - map 에는 모으는 중인 batch 만 두고 실행할 때 제거한다. (요청이 끊긴 상품이 남지 않음)
+ * - 구매 수량이 0 이하인 요청은 batch 에 넣지 않고 INVALID_QUANTITY
+ * - 재고 키를 판매 수량으로 쓰므로 hot 상품은 받지 않는다. (SplitStockService.checkNotHot)
+ * 지표: stock.batch.size (batch 당 요청 수, count 는 레디스 호출 수)
+ */
+@Service
+@RequiredArgsConstructor
+public class StockBatchDispatcher {
+
+    private final RedisTemplate<String, Long> incrRedisTemplate;
+    private final RedisScript<List> stockSellBatchScript;
+    private final ProductKeys productKeys;
+    private final StockSnapshot stockSnapshot;
+    private final SplitStockService splitStockService;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 상품번호 -> 모으는 중인 batch
+     */
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+
+    @Value("${product.batch.window-us:200}")
+    private long windowMicros;
+
+    @Value("${product.batch.max-size:64}")
+    private int maxSize;
+
+    @Value("${product.batch.threads:4}")
+    private int threads;
+
+    private BinaryScriptExecutor binaryScriptExecutor;
+    private ScheduledThreadPoolExecutor timer;
+    private ExecutorService executor;
+    private DistributionSummary batchSize;
+
+    @PostConstruct
+    public void init() {
+        binaryScriptExecutor = new BinaryScriptExecutor(incrRedisTemplate);
+        CustomizableThreadFactory timerThreadFactory = new CustomizableThreadFactory("stock-batch-timer-");
+        timerThreadFactory.setDaemon(true);
+        timer = new ScheduledThreadPoolExecutor(1, timerThreadFactory);
+        timer.setRemoveOnCancelPolicy(true);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("stock-batch-");
+        threadFactory.setDaemon(true);
+        executor = Executors.newFixedThreadPool(threads, threadFactory);
+        batchSize = DistributionSummary.builder("stock.batch.size")
+                .description("purchase requests resolved by one batched script call")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdown();
+        executor.shutdown();
+    }
+
+    /**
+     * 판매 요청 등록
+     *
+     * @param prodId
+     * @param totalQuantity
+     * @param buyQuantity
+     * @return 이 요청의 판매 결과 (구매 수량이 0 이하면 INVALID_QUANTITY, 레디스 오류시 예외로 완료)
+     * @throws IllegalStateException hot 상품
+     */
+    public CompletableFuture<StockReserveResult> sell(String prodId, int totalQuantity, int buyQuantity) {
+        splitStockService.checkNotHot(prodId);
+        if (buyQuantity <= 0) {
+            return CompletableFuture.completedFuture(StockReserveResult.INVALID_QUANTITY);
+        }
+        Request request = new Request(totalQuantity, buyQuantity);
+        Batch[] created = new Batch[1];
+        Batch[] full = new Batch[1];
+
+        batches.compute(prodId, (key, batch) -> {
+            if (batch == null) {
+                batch = new Batch(maxSize);
+                created[0] = batch;
+            }
+            batch.requests.add(request);
+            if (batch.requests.size() >= maxSize) {
+                full[0] = batch;
+                return null;
+            }
+            return batch;
+        });
+
+        if (full[0] != null) {
+            execute(prodId, full[0]);
+        } else if (created[0] != null && !schedule(prodId, created[0]) && batches.remove(prodId, created[0])) {
+            execute(prodId, created[0]);
+        }
+        return request.future;
+    }
+
+    /**
+     * @return 타이머 등록 여부 (종료 중이면 false, 호출 스레드에서 바로 실행)
+     */
+    private boolean schedule(String prodId, Batch batch) {
+        try {
+            timer.schedule(() -> flush(prodId, batch), windowMicros, TimeUnit.MICROSECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * window 가 지난 batch 를 실행 스레드에 넘김 (그 사이 가득 차서 이미 실행되었으면 무시)
+     */
+    private void flush(String prodId, Batch batch) {
+        if (!batches.remove(prodId, batch)) {
+            return;
+        }
+        try {
+            executor.execute(() -> execute(prodId, batch));
+        } catch (RejectedExecutionException e) {
+            execute(prodId, batch);
+        }
+    }
+
+    private void execute(String prodId, Batch batch) {
+        List<Request> requests = batch.requests;
+        byte[][] keysAndArgs = new byte[1 + requests.size() * 2][];
+        keysAndArgs[0] = productKeys.stockKeyBytes(prodId);
+        for (int i = 0; i < requests.size(); i++) {
+            keysAndArgs[1 + i * 2] = BinaryScriptExecutor.encode(requests.get(i).totalQuantity);
+            keysAndArgs[2 + i * 2] = BinaryScriptExecutor.encode(requests.get(i).buyQuantity);
+        }
+
+        List<Long> res;
+        try {
+            res = binaryScriptExecutor.execute(stockSellBatchScript, 1, keysAndArgs);
+        } catch (RuntimeException e) {
+            requests.forEach(request -> request.future.completeExceptionally(e));
+            return;
+        }
+        batchSize.record(requests.size());
+        // 판매 수량만 기록 (재고부족 판단은 호출자의 전체 수량과 비교), 전체 수량이 요청마다 다를 수 있으므로 품절로 기록하지 않음
+        stockSnapshot.observe(prodId, res.get(0));
+        for (int i = 0; i < requests.size(); i++) {
+            requests.get(i).future.complete(StockReserveResult.of(res.get(i + 1)));
+        }
+    }
+
+    private static class Batch {
+        private final List<Request> requests;
+
+        Batch(int maxSize) {
+            this.requests = new ArrayList<>(maxSize);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Request {
+        private final int totalQuantity;
+        private final int buyQuantity;
+        private final CompletableFuture<StockReserveResult> future = new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.redis.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 레디스 재고 키와 DB 기준 값의 차이 (StockReconciler)
+ */
+@ToString
+@Getter
+public class StockDrift {
+
+    public enum Type {
+        /**
+         * 재고 키 (PRODUCT:STOCKED:*) 와 입고/판매 수량
+         */
+        STOCK,
+        /**
+         * 주문번호 방식 판매 수량 (PRODUCT:ORDERS:SOLD:*, shard 합계) 과 orderReserve 판매 수량
+         */
+        ORDERS
+    }
+
+    private final String prodId;
+    private final Type type;
+    private final long redisValue;
+    private final long expectedValue;
+    /**
+     * 기준 값으로 보정했는지
+     */
+    private final boolean corrected;
+
+    public StockDrift(String prodId, Type type, long redisValue, long expectedValue, boolean corrected) {
+        this.prodId = prodId;
+        this.type = type;
+        this.redisValue = redisValue;
+        this.expectedValue = expectedValue;
+        this.corrected = corrected;
+    }
+}
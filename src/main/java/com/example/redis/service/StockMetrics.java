@@ -0,0 +1,86 @@
+package com.example.redis.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 재고 처리 방식(strategy), 결과(outcome)별 처리 시간 (stock.operation, histogram)
+ * outcome: StockReserveResult 이름 소문자 (reserved, out_of_stock, insufficient_quantity, oversold, duplicate_order, lock_timeout)
+ * 메시지가 StockReserveResult 와 같은 IllegalStateException 은 그 결과로, 그 외 예외는 error 로 기록한다.
+ * timer 는 방식별 배열에 보관하여 기록할 때 registry 조회, 태그 생성이 없음
+ * 예: /actuator/metrics/stock.operation?tag=strategy:localLock&tag=outcome:oversold
+ */
+@Component
+@RequiredArgsConstructor
+public class StockMetrics {
+
+    static final String METRIC_NAME = "stock.operation";
+    private static final String ERROR = "error";
+    private static final StockReserveResult[] RESULTS = StockReserveResult.values();
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 방식별 timer (StockReserveResult 순서, 마지막은 error), 처음 기록할 때 등록
+     */
+    private final Map<String, Timer[]> timers = new ConcurrentHashMap<>();
+
+    public void record(String strategy, long startNanos, StockReserveResult result) {
+        record(strategy, result.ordinal(), startNanos);
+    }
+
+    public void record(String strategy, long startNanos, CartReserveResult result) {
+        StockReserveResult outcome = StockReserveResult.RESERVED;
+        for (StockReserveResult lineResult : result.getLineResults()) {
+            if (!lineResult.isReserved() && lineResult != StockReserveResult.NOT_RESERVED) {
+                outcome = lineResult;
+                break;
+            }
+        }
+        record(strategy, startNanos, outcome);
+    }
+
+    /**
+     * @return 전달받은 예외 (throw stockMetrics.failed(...) 로 사용)
+     */
+    public RuntimeException failed(String strategy, long startNanos, RuntimeException e) {
+        int outcome = RESULTS.length;
+        if (e instanceof IllegalStateException) {
+            for (StockReserveResult result : RESULTS) {
+                if (result.getMessage().equals(e.getMessage())) {
+                    outcome = result.ordinal();
+                    break;
+                }
+            }
+        }
+        record(strategy, outcome, startNanos);
+        return e;
+    }
+
+    private void record(String strategy, int outcome, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        Timer[] strategyTimers = timers.get(strategy);
+        if (strategyTimers == null) {
+            strategyTimers = timers.computeIfAbsent(strategy, key -> new Timer[RESULTS.length + 1]);
+        }
+        Timer timer = strategyTimers[outcome];
+        if (timer == null) {
+            // 동시에 등록해도 registry 가 같은 timer 를 반환
+            timer = Timer.builder(METRIC_NAME)
+                    .description("stock operation latency by strategy and outcome")
+                    .tags("strategy", strategy,
+                            "outcome", outcome == RESULTS.length ? ERROR : RESULTS[outcome].name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            strategyTimers[outcome] = timer;
+        }
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.redis.service;
+
+import com.example.redis.config.RedisConfig;
+import com.example.redis.model.ProductStock;
+import com.example.redis.repository.ProductOrderRepository;
+import com.example.redis.repository.ProductStockRepository;
+import com.example.redis.util.ProductKeys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 레디스 재고 키와 DB 기준 값 대조
+ * 레디스 재고는 비원자적 차감(procBuyQuantity), 증가 후 판매수량 오버 예외, 재시도를 다 쓴 WATCH 트랜잭션 등으로 어긋날 수 있으므로
+ * 재고 키(PRODUCT:STOCKED:*)와 주문번호 방식 판매 수량 키(PRODUCT:ORDERS:SOLD:*)를 각각 SCAN cursor 로 조금씩 훑으면서 DB 기준 값과 비교한다.
+ * - 한 단계: scan-count 개 키의 값을 스크립트 한번(stock_reconcile_scan.lua)으로 읽고, 그 상품들의 DB 값을 조회
+ * - 재고 키 기준 값: product_stock 에 등록된 상품만 비교 (ProductStock.expectedStock)
+ *   판매 수량은 주문 이벤트로 저장된 product_order 합계 (OrderPersistenceWorker, 주문번호 방식 제외)
+ * - 주문번호 방식 판매 수량: shard 합계를 product_order 의 orderReserve 수량 합계와 비교 (보고만, 보정하지 않음)
+ * - 속도 제한: interval 마다 종류별로 최대 max-keys-per-run 개 확인, cursor 는 다음 실행에서 이어서 사용
+ * - 보정(correct=true): 같은 차이가 confirm-delay-ms 이상 레디스 값 변화 없이 유지된 재고 키만 확인한 값일 때 기준 값으로 바꾼다.
+ *   (stock_reconcile_set.lua, 아직 DB 에 저장되지 않은 주문 이벤트로 인한 일시적인 차이나 확인 이후의 차감은 덮어쓰지 않음)
+ *   판매 가능 수량을 줄이는 방향(남은 재고 감소, 판매 수량 증가)으로만 보정한다.
+ *   DB 판매 수량은 발행 실패, 저장 지연 등으로 실제보다 적을 수는 있어도 많지는 않으므로, 늘리는 보정은 이미 판매된 재고를 다시 팔 수 있다.
+ *   분할 카운터를 쓰는 hot 상품은 보고만 한다.
+ * 지표: stock.reconcile.checked, stock.reconcile.drift(type), stock.reconcile.corrected, stock.reconcile.cycles
+ * 클러스터 구성에서는 SCAN 이 한 노드만 훑으므로 동작하지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReconciler {
+
+    private static final String MATCH_PATTERN = ProductKeys.STOCK_PREFIX + "*";
+    private static final String ORDERS_MATCH_PATTERN = ProductKeys.ORDERS_SOLD_PREFIX + "*";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisScript<List> stockReconcileScanScript;
+    private final RedisScript<Long> stockReconcileSetScript;
+    private final ProductKeys productKeys;
+    private final SplitStockService splitStockService;
+    private final ProductStockRepository productStockRepository;
+    private final ProductOrderRepository productOrderRepository;
+    private final ProductQuantityService productQuantityService;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+
+    @Value("${product.reconcile.enabled:true}")
+    private boolean enabled;
+
+    @Value("${product.reconcile.correct:false}")
+    private boolean correct;
+
+    @Value("${product.reconcile.scan-count:100}")
+    private int scanCount;
+
+    @Value("${product.reconcile.max-keys-per-run:500}")
+    private int maxKeysPerRun;
+
+    @Value("${product.reconcile.confirm-delay-ms:60000}")
+    private long confirmDelayMillis;
+
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    /**
+     * 레디스 키 -> 처음 확인한 차이 (차이가 없어지거나 보정하면 제거)
+     */
+    private final Map<String, Suspect> suspects = new ConcurrentHashMap<>();
+
+    private String cursor = "0";
+    private String ordersCursor = "0";
+
+    private Counter checkedCounter;
+    private Counter stockDriftCounter;
+    private Counter ordersDriftCounter;
+    private Counter correctedCounter;
+    private Counter cycleCounter;
+
+    @PostConstruct
+    public void init() {
+        if (environment.acceptsProfiles(Profiles.of(RedisConfig.CLUSTER_PROFILE))) {
+            log.warn("stock reconciler is disabled on cluster");
+            enabled = false;
+        }
+        checkedCounter = Counter.builder("stock.reconcile.checked")
+                .description("redis stock keys compared with the database")
+                .register(meterRegistry);
+        stockDriftCounter = driftCounter(StockDrift.Type.STOCK);
+        ordersDriftCounter = driftCounter(StockDrift.Type.ORDERS);
+        correctedCounter = Counter.builder("stock.reconcile.corrected")
+                .description("redis stock keys reset to the database value")
+                .register(meterRegistry);
+        cycleCounter = Counter.builder("stock.reconcile.cycles")
+                .description("full passes over the redis stock keys")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${product.reconcile.interval-ms:1000}")
+    public void scheduledReconcile() {
+        if (enabled) {
+            reconcile();
+        }
+    }
+
+    /**
+     * 재고 키, 주문번호 방식 판매 수량 키 순으로 이전 실행의 cursor 부터 최대 max-keys-per-run 개씩 확인 (한 바퀴를 다 돌면 중단)
+     * 이미 실행 중이면 건너뜀
+     *
+     * @return 이번 실행에서 확인한 차이
+     */
+    public List<StockDrift> reconcile() {
+        if (!reconcileLock.tryLock()) {
+            return List.of();
+        }
+        try {
+            List<StockDrift> drifts = new ArrayList<>();
+            cursor = scan(cursor, MATCH_PATTERN, ProductKeys.STOCK_PREFIX, this::compare, drifts);
+            if ("0".equals(cursor)) {
+                cycleCounter.increment();
+            }
+            ordersCursor = scan(ordersCursor, ORDERS_MATCH_PATTERN, ProductKeys.ORDERS_SOLD_PREFIX, this::compareOrders, drifts);
+            return drifts;
+        } catch (DataAccessException e) {
+            log.warn("stock reconcile failed: {}", e.getMessage());
+            return List.of();
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    /**
+     * 재고 기준 정보 등록 (이미 있으면 변경)
+     */
+    public ProductStock register(String prodId, long totalQuantity, ProductStock.Counting counting) {
+        return productStockRepository.save(ProductStock.builder()
+                .prodId(prodId)
+                .totalQuantity(totalQuantity)
+                .counting(counting)
+                .build());
+    }
+
+    /**
+     * cursor 부터 최대 max-keys-per-run 개 확인
+     *
+     * @return 다음 cursor (한 바퀴를 다 돌았으면 "0")
+     */
+    private String scan(String from, String matchPattern, String prefix, Function<List<Object>, List<StockDrift>> compare,
+                        List<StockDrift> drifts) {
+        String next = from;
+        for (long scanned = 0; scanned < maxKeysPerRun; scanned += scanCount) {
+            List<Object> res = stringRedisTemplate.execute(stockReconcileScanScript, List.of(),
+                    next, String.valueOf(scanCount), matchPattern, prefix);
+            next = (String) res.get(0);
+            drifts.addAll(compare.apply(res));
+            if ("0".equals(next)) {
+                break;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * SCAN 한 단계의 키들을 DB 기준 값과 비교
+     *
+     * @param res {cursor, 키, 값, 키, 값, ...}
+     */
+    private List<StockDrift> compare(List<Object> res) {
+        Map<String, Long> stocks = new HashMap<>();
+        for (int i = 1; i + 1 < res.size(); i += 2) {
+            String prodId = productKeys.prodIdOf((String) res.get(i), ProductKeys.STOCK_PREFIX);
+            if (prodId != null) {
+                stocks.put(prodId, (Long) res.get(i + 1));
+            }
+        }
+        if (stocks.isEmpty()) {
+            return List.of();
+        }
+        checkedCounter.increment(stocks.size());
+
+        Map<String, ProductStock> records = productStockRepository.findAllById(stocks.keySet()).stream()
+                .collect(Collectors.toMap(ProductStock::getProdId, Function.identity()));
+        stocks.keySet().retainAll(records.keySet());
+
+        List<StockDrift> drifts = new ArrayList<>();
+        if (!stocks.isEmpty()) {
+            Map<String, Long> sold = quantities(productOrderRepository.sumStockQuantities(stocks.keySet()));
+            stocks.forEach((prodId, value) -> {
+                boolean hot = splitStockService.isHot(prodId);
+                long redisValue = hot ? splitStockService.availableStock(prodId) : value;
+                ProductStock record = records.get(prodId);
+                long expected = record.expectedStock(sold.getOrDefault(prodId, 0L));
+                boolean lowersSellable = record.getCounting() == ProductStock.Counting.REMAINING
+                        ? expected < redisValue
+                        : expected > redisValue;
+                StockDrift drift = check(productKeys.stockKey(prodId), prodId, StockDrift.Type.STOCK, redisValue, expected,
+                        correct && !hot && lowersSellable);
+                if (drift != null) {
+                    drifts.add(drift);
+                }
+            });
+        }
+        return drifts;
+    }
+
+    /**
+     * SCAN 한 단계의 주문번호 방식 판매 수량 키들의 상품별 shard 합계를 DB 의 orderReserve 수량 합계와 비교
+     * (shard 마다 키가 있으므로 한 상품이 여러 단계에서 확인될 수 있음)
+     *
+     * @param res {cursor, 키, 값, 키, 값, ...}
+     */
+    private List<StockDrift> compareOrders(List<Object> res) {
+        Set<String> prodIds = new HashSet<>();
+        for (int i = 1; i + 1 < res.size(); i += 2) {
+            String prodId = productKeys.prodIdOf((String) res.get(i), ProductKeys.ORDERS_SOLD_PREFIX);
+            if (prodId != null) {
+                prodIds.add(prodId);
+            }
+        }
+        if (prodIds.isEmpty()) {
+            return List.of();
+        }
+        checkedCounter.increment(prodIds.size());
+
+        Map<String, Long> ordered = quantities(productOrderRepository.sumOrderQuantities(prodIds));
+        List<StockDrift> drifts = new ArrayList<>();
+        for (String prodId : prodIds) {
+            StockDrift drift = check(ProductKeys.ORDERS_SOLD_PREFIX + prodId, prodId, StockDrift.Type.ORDERS,
+                    productQuantityService.getOrderSold(prodId), ordered.getOrDefault(prodId, 0L), false);
+            if (drift != null) {
+                drifts.add(drift);
+            }
+        }
+        return drifts;
+    }
+
+    /**
+     * 차이가 있으면 기록하고, 보정 대상이면 confirm-delay 동안 같은 값이 유지된 경우 보정
+     *
+     * @return 차이 (없으면 null)
+     */
+    private StockDrift check(String key, String prodId, StockDrift.Type type, long redisValue, long expected,
+                             boolean correctable) {
+        if (redisValue == expected) {
+            suspects.remove(key);
+            return null;
+        }
+        (type == StockDrift.Type.STOCK ? stockDriftCounter : ordersDriftCounter).increment();
+
+        long now = System.nanoTime();
+        Suspect suspect = suspects.get(key);
+        if (suspect == null || suspect.redisValue != redisValue || suspect.expected != expected) {
+            suspects.put(key, new Suspect(redisValue, expected, now));
+            log.warn("stock drift: prodId={}, type={}, redis={}, db={}", prodId, type, redisValue, expected);
+            return new StockDrift(prodId, type, redisValue, expected, false);
+        }
+
+        boolean corrected = false;
+        if (correctable && now - suspect.since >= TimeUnit.MILLISECONDS.toNanos(confirmDelayMillis)) {
+            Long changed = stringRedisTemplate.execute(stockReconcileSetScript, List.of(key),
+                    String.valueOf(redisValue), String.valueOf(expected));
+            corrected = changed != null && changed == 1;
+            suspects.remove(key);
+            if (corrected) {
+                correctedCounter.increment();
+                log.warn("stock drift corrected: prodId={}, redis={} -> {}", prodId, redisValue, expected);
+            }
+        }
+        return new StockDrift(prodId, type, redisValue, expected, corrected);
+    }
+
+    private static Map<String, Long> quantities(List<ProductOrderRepository.ProductQuantity> rows) {
+        return rows.stream()
+                .collect(Collectors.toMap(ProductOrderRepository.ProductQuantity::getProdId,
+                        ProductOrderRepository.ProductQuantity::getQuantity));
+    }
+
+    private Counter driftCounter(StockDrift.Type type) {
+        return Counter.builder("stock.reconcile.drift")
+                .description("redis stock keys that differ from the database")
+                .tag("type", type.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+    }
+
+    @RequiredArgsConstructor
+    private static class Suspect {
+        private final long redisValue;
+        private final long expected;
+        private final long since;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.redis.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+
+/**
+ * 재고 차감 스크립트 결과 코드
+ */
+@Getter
+@RequiredArgsConstructor
+public enum StockReserveResult {
+    RESERVED(0, "[차감성공]"),
+    OUT_OF_STOCK(1, "[제고부족]"),
+    INSUFFICIENT_QUANTITY(2, "[판매수량부족]"),
+    OVERSOLD(3, "[판매수량 오버]"),
+    DUPLICATE_ORDER(4, "[중복주문]"),
+    LOCK_TIMEOUT(5, "[락 획득 실패]"),
+    INVALID_QUANTITY(6, "[구매수량 오류]"),
+    /**
+     * 장바구니의 다른 라인 때문에 차감하지 않은 라인
+     */
+    NOT_RESERVED(7, "[미차감]");
+
+    private final long code;
+    private final String message;
+
+    public boolean isReserved() {
+        return this == RESERVED;
+    }
+
+    public static StockReserveResult of(long code) {
+        return Arrays.stream(values())
+                .filter(result -> result.code == code)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("unknown reserve code: " + code));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.redis.util;
+
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultScriptExecutor;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 미리 인코딩된 키/인자(byte[])로 lua 스크립트 실행
+ * RedisTemplate.execute(script, keys, args) 는 호출마다 키 목록과 인자를 직렬화 하므로,
+ * 요청 경로에서는 캐시된 키 바이트를 그대로 넘긴다. (EVALSHA, NOSCRIPT 시 EVAL 재시도는 동일)
+ */
+public class BinaryScriptExecutor extends DefaultScriptExecutor<String> {
+
+    private static final byte[][] SMALL_NUMBERS = new byte[1024][];
+
+    static {
+        for (int i = 0; i < SMALL_NUMBERS.length; i++) {
+            SMALL_NUMBERS[i] = String.valueOf(i).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private final RedisTemplate<String, ?> template;
+
+    public BinaryScriptExecutor(RedisTemplate<String, ?> template) {
+        super(template);
+        this.template = template;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(RedisScript<T> script, int numKeys, byte[]... keysAndArgs) {
+        RedisSerializer<T> resultSerializer = (RedisSerializer<T>) template.getValueSerializer();
+        return template.execute((RedisCallback<T>) connection -> eval(connection, script,
+                ReturnType.fromJavaType(script.getResultType()), numKeys, keysAndArgs, resultSerializer));
+    }
+
+    /**
+     * 숫자 인자 인코딩 (작은 수는 캐시된 바이트 사용)
+     */
+    public static byte[] encode(long number) {
+        if (number >= 0 && number < SMALL_NUMBERS.length) {
+            return SMALL_NUMBERS[(int) number];
+        }
+        return Long.toString(number).getBytes(StandardCharsets.UTF_8);
+    }
+}
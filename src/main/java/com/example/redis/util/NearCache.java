@@ -0,0 +1,264 @@
+package com.example.redis.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 레디스 조회 결과를 보관하는 노드 메모리 캐시 (near-cache)
+ * - 크기 제한: 키 해시로 나눈 세그먼트별 LRU (세그먼트 단위 lock 이라 서로 다른 키는 대부분 경합하지 않음)
+ * - TTL: 무효화 메시지를 놓쳐도 ttl 이 지나면 다시 조회
+ * - 무효화: invalidate/invalidateAll, 조회 중에 그 키가 무효화되었으면 조회 결과를 저장하지 않음 (stale 값 저장 방지)
+ *   조회 중인 키만 세그먼트에 버전을 두므로 다른 키의 무효화는 진행 중인 조회에 영향을 주지 않음
+ * - disabled 상태에서는 항상 loader 로 조회 (무효화 메시지를 받을 수 없을 때)
+ * 지표: near.cache.gets(result=hit|miss), near.cache.evictions, near.cache.invalidations, near.cache.size
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class NearCache<K, V> implements MeterBinder {
+
+    private static final int SEGMENTS = 16;
+
+    private final String name;
+    private final long ttlNanos;
+    private final Segment<K, V>[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private volatile boolean enabled = true;
+
+    @SuppressWarnings("unchecked")
+    public NearCache(String name, int maxSize, Duration ttl) {
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.segments = new Segment[SEGMENTS];
+        int segmentMaxSize = Math.max(1, maxSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(segmentMaxSize, evictions);
+        }
+    }
+
+    /**
+     * 캐시된 값, 없거나 만료되었으면 loader 로 조회 후 저장
+     *
+     * @param key
+     * @param loader null 을 반환하면 저장하지 않음
+     * @return
+     */
+    public V get(K key, Function<K, V> loader) {
+        if (!enabled) {
+            misses.increment();
+            return loader.apply(key);
+        }
+
+        Segment<K, V> segment = segmentFor(key);
+        long now = System.nanoTime();
+        V cached = segment.get(key, now);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        Loading loading = segment.beginLoad(key);
+        long version = loading.version;
+        V value = null;
+        try {
+            value = loader.apply(key);
+        } finally {
+            segment.endLoad(key, loading, version, enabled ? value : null, now + ttlNanos);
+        }
+        return value;
+    }
+
+    public void invalidate(K key) {
+        invalidations.increment();
+        segmentFor(key).remove(key);
+    }
+
+    public void invalidateAll() {
+        invalidations.increment();
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @param enabled false 이면 비우고 조회를 모두 loader 로 보냄
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            invalidateAll();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("near.cache.gets", hits, LongAdder::sum)
+                .tags("cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("near.cache.gets", misses, LongAdder::sum)
+                .tags("cache", name, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("near.cache.evictions", evictions, LongAdder::sum)
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("near.cache.invalidations", invalidations, LongAdder::sum)
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("near.cache.size", this, NearCache::size)
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 조회 중인 키의 무효화 버전 (조회하는 스레드가 모두 끝나면 제거)
+     */
+    private static final class Loading {
+        private long version;
+        private int loaders;
+    }
+
+    /**
+     * 접근 순서 LinkedHashMap (가장 오래 전에 조회된 키부터 제거)
+     */
+    private static final class Segment<K, V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<K, Entry<V>> entries;
+        private final Map<K, Loading> loadings = new HashMap<>();
+
+        Segment(int maxSize, LongAdder evictions) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    if (size() > maxSize) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        V get(K key, long now) {
+            lock.lock();
+            try {
+                Entry<V> entry = entries.get(key);
+                if (entry == null) {
+                    return null;
+                }
+                if (entry.expiresAt - now <= 0) {
+                    entries.remove(key);
+                    return null;
+                }
+                return entry.value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Loading beginLoad(K key) {
+            lock.lock();
+            try {
+                Loading loading = loadings.computeIfAbsent(key, k -> new Loading());
+                loading.loaders++;
+                return loading;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 조회 종료, 조회 시작 이후 그 키가 무효화되지 않았으면 저장
+         * (무효화도 segment lock 안에서 버전을 올리므로 lock 안에서 확인하면 무효화된 값이 남지 않음)
+         *
+         * @param value null 이면 저장하지 않음
+         */
+        void endLoad(K key, Loading loading, long version, V value, long expiresAt) {
+            lock.lock();
+            try {
+                if (--loading.loaders == 0) {
+                    loadings.remove(key);
+                }
+                if (value != null && loading.version == version) {
+                    entries.put(key, new Entry<>(value, expiresAt));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(K key) {
+            lock.lock();
+            try {
+                entries.remove(key);
+                Loading loading = loadings.get(key);
+                if (loading != null) {
+                    loading.version++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                entries.clear();
+                loadings.values().forEach(loading -> loading.version++);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.redis.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * WATCH/MULTI/EXEC 낙관적 트랜잭션 실행기
+ * - EXEC 결과가 null 또는 빈 목록이면 WATCH 충돌로 보고 jitter 가 적용된 지수 backoff 후 재시도
+ * - 키별 연속 충돌이 임계치를 넘으면 일정 시간 동안 WATCH 없이 대체 경로(lua 스크립트 등)로 바로 처리
+ * 트랜잭션 콜백이 WATCH 후 예외로 중단하는 경우에는 콜백에서 UNWATCH 해야 한다.
+ * 지표: redis.transaction(result=commit|conflict|abort|fallback)
+ */
+@Slf4j
+@Component
+public class OptimisticTransactionExecutor implements MeterBinder {
+
+    @Value("${product.transaction.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${product.transaction.base-backoff-us:200}")
+    private long baseBackoffMicros;
+
+    @Value("${product.transaction.max-backoff-us:20000}")
+    private long maxBackoffMicros;
+
+    @Value("${product.transaction.fallback-threshold:3}")
+    private int fallbackThreshold;
+
+    @Value("${product.transaction.fallback-cooldown-ms:1000}")
+    private long fallbackCooldownMillis;
+
+    private final Map<Object, Contention> contentions = new ConcurrentHashMap<>();
+
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder aborts = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    /**
+     * 충돌시 재시도, 재시도 횟수 초과시 OptimisticLockingFailureException
+     *
+     * @param template
+     * @param contentionKey 충돌 집계 키 (보통 WATCH 키)
+     * @param transaction   WATCH ~ EXEC 를 수행하고 EXEC 결과를 반환하는 콜백
+     * @return EXEC 결과
+     */
+    public <K, V> List<Object> execute(RedisTemplate<K, V> template, Object contentionKey,
+                                       SessionCallback<List<Object>> transaction) {
+        return execute(template, contentionKey, transaction, Function.identity(), null);
+    }
+
+    /**
+     * 충돌시 재시도, 충돌이 잦은 키이거나 재시도 횟수 초과시 fallback 으로 처리
+     *
+     * @param template
+     * @param contentionKey 충돌 집계 키 (보통 WATCH 키)
+     * @param transaction   WATCH ~ EXEC 를 수행하고 EXEC 결과를 반환하는 콜백
+     * @param onCommit      EXEC 결과 변환
+     * @param fallback      WATCH 없이 처리하는 대체 경로 (null 이면 사용 안함)
+     * @return 처리 결과
+     */
+    public <K, V, T> T execute(RedisTemplate<K, V> template, Object contentionKey,
+                               SessionCallback<List<Object>> transaction,
+                               Function<List<Object>, T> onCommit, Supplier<T> fallback) {
+        Contention contention = contentions.computeIfAbsent(contentionKey, key -> new Contention());
+        if (fallback != null && contention.isHot()) {
+            fallbacks.increment();
+            return fallback.get();
+        }
+
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            List<Object> txResults = template.execute(transaction);
+            if (txResults != null && !txResults.isEmpty()) {
+                commits.increment();
+                contention.conflicts.set(0);
+                return onCommit.apply(txResults);
+            }
+
+            conflicts.increment();
+            if (contention.conflicts.incrementAndGet() >= fallbackThreshold) {
+                contention.hotUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fallbackCooldownMillis);
+                if (fallback != null) {
+                    fallbacks.increment();
+                    return fallback.get();
+                }
+            }
+            backoff(attempt);
+        }
+
+        aborts.increment();
+        if (fallback != null) {
+            fallbacks.increment();
+            return fallback.get();
+        }
+        throw new OptimisticLockingFailureException("transaction aborted after retries: " + contentionKey);
+    }
+
+    public long getCommitCount() {
+        return commits.sum();
+    }
+
+    public long getConflictCount() {
+        return conflicts.sum();
+    }
+
+    public long getAbortCount() {
+        return aborts.sum();
+    }
+
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCounter(registry, "commit", commits);
+        bindCounter(registry, "conflict", conflicts);
+        bindCounter(registry, "abort", aborts);
+        bindCounter(registry, "fallback", fallbacks);
+    }
+
+    private static void bindCounter(MeterRegistry registry, String result, LongAdder adder) {
+        FunctionCounter.builder("redis.transaction", adder, LongAdder::sum)
+                .description("WATCH/MULTI/EXEC attempts by result")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * full jitter 지수 backoff: 0 ~ min(max, base * 2^attempt)
+     */
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMicros, baseBackoffMicros << Math.min(attempt, 20));
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(ThreadLocalRandom.current().nextLong(ceiling + 1)));
+    }
+
+    private static class Contention {
+        private final AtomicInteger conflicts = new AtomicInteger();
+        private volatile long hotUntilNanos = System.nanoTime();
+
+        boolean isHot() {
+            return System.nanoTime() - hotUntilNanos < 0;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.redis.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 상품 레디스 키 생성
+ * 요청마다 String.format 으로 키를 만들지 않도록 상품별 키(문자열, 바이트)를 캐시한다.
+ * 캐시 개수가 max-size 를 넘으면 더 이상 캐시하지 않고 매번 생성한다.
+ * hash-tag 사용시 상품번호를 {} 로 감싸 한 상품의 재고, 주문번호 shard, 락 키가 클러스터의 같은 슬롯에 배치된다.
+ * (예: PRODUCT:STOCKED:{11001}, PRODUCT:LOCK:{11001})
+ * 주문번호 저장소는 order-shards 개의 hash 로 나누고(PRODUCT:ORDERS:{상품}:{shard}), 판매 수량도 shard 마다 별도 키에 둔다.
+ * (PRODUCT:ORDERS:SOLD:{상품}:{shard}, 합계가 상품의 판매 수량)
+ * 분할 재고 카운터(PRODUCT:STOCKED:{상품:번호})는 부하를 나누기 위한 키라 hash-tag 사용시에도 카운터마다 슬롯이 다르다.
+ */
+@Component
+public class ProductKeys {
+
+    public static final String STOCK_PREFIX = "PRODUCT:STOCKED:";
+    public static final String LOCK_PREFIX = "PRODUCT:LOCK:";
+    public static final String LEASE_SOLD_PREFIX = "PRODUCT:LEASE:SOLD:";
+    public static final String ORDERS_PREFIX = "PRODUCT:ORDERS:";
+    public static final String ORDERS_SOLD_PREFIX = "PRODUCT:ORDERS:SOLD:";
+    public static final String HOT_PRODUCTS_KEY = "PRODUCT:HOT";
+    public static final String ORDER_EVENTS_KEY = "PRODUCT:ORDER:EVENTS";
+
+    private final Map<String, Keys> cache = new ConcurrentHashMap<>();
+
+    @Value("${product.keys.cache-max-size:100000}")
+    private int cacheMaxSize = 100_000;
+
+    @Value("${product.keys.hash-tag:false}")
+    private boolean hashTag;
+
+    @Value("${product.order-set.shards:16}")
+    private int orderShards = 16;
+
+    @Value("${product.stock.split.counters:8}")
+    private int stockCounters = 8;
+
+    public String stockKey(String prodId) {
+        return keys(prodId).stockKey;
+    }
+
+    public byte[] stockKeyBytes(String prodId) {
+        return keys(prodId).stockKeyBytes;
+    }
+
+    public String lockKey(String prodId) {
+        return keys(prodId).lockKey;
+    }
+
+    public String leaseSoldKey(String prodId) {
+        return keys(prodId).leaseSoldKey;
+    }
+
+    /**
+     * shard 별 판매 수량 키 (shard 순서)
+     */
+    public byte[][] orderSoldKeysBytes(String prodId) {
+        return keys(prodId).orderSoldKeys;
+    }
+
+    /**
+     * 주문번호가 저장되는 shard 키 (주문번호 hashCode 기준, JVM 이 달라도 같은 shard)
+     */
+    public byte[] orderShardKeyBytes(String prodId, String orderId) {
+        return keys(prodId).orderShardKeys[orderShard(orderId)];
+    }
+
+    public String orderShardKey(String prodId, int shard) {
+        return new String(keys(prodId).orderShardKeys[shard], StandardCharsets.UTF_8);
+    }
+
+    public String orderSoldKey(String prodId, int shard) {
+        return new String(keys(prodId).orderSoldKeys[shard], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 분할 재고의 counter 번째 카운터 키
+     */
+    public String stockCounterKey(String prodId, int counter) {
+        return keys(prodId).stockCounterKeys[counter];
+    }
+
+    public byte[] stockCounterKeyBytes(String prodId, int counter) {
+        return keys(prodId).stockCounterKeyBytes[counter];
+    }
+
+    public int getStockCounters() {
+        return stockCounters;
+    }
+
+    /**
+     * 재고 키, 주문번호 방식 판매 수량 키에서 상품번호 추출 (SCAN 결과 대조용)
+     * prefix 가 다르거나 hash-tag 설정과 형식이 다른 키, 분할 재고 카운터 키({상품:번호})면 null
+     *
+     * @param prefix STOCK_PREFIX, ORDERS_SOLD_PREFIX ({상품}:shard 에서 shard 를 뗀 상품번호)
+     */
+    public String prodIdOf(String key, String prefix) {
+        if (!key.startsWith(prefix)) {
+            return null;
+        }
+        String prodId = key.substring(prefix.length());
+        if (ORDERS_SOLD_PREFIX.equals(prefix)) {
+            if (!hasIndexSuffix(prodId, orderShards)) {
+                return null;
+            }
+            prodId = prodId.substring(0, prodId.lastIndexOf(':'));
+        }
+        if (hashTag) {
+            if (prodId.length() < 3 || prodId.charAt(0) != '{' || prodId.charAt(prodId.length() - 1) != '}') {
+                return null;
+            }
+            prodId = prodId.substring(1, prodId.length() - 1);
+        }
+        if (STOCK_PREFIX.equals(prefix) && hasIndexSuffix(prodId, stockCounters)) {
+            return null;
+        }
+        return prodId;
+    }
+
+    public int orderShard(String orderId) {
+        return Math.floorMod(orderId.hashCode(), orderShards);
+    }
+
+    public int getOrderShards() {
+        return orderShards;
+    }
+
+    /**
+     * 상품번호:번호 형식인지 (카운터, shard 번호가 limit 보다 작은 숫자)
+     */
+    private static boolean hasIndexSuffix(String prodId, int limit) {
+        int separator = prodId.lastIndexOf(':');
+        if (separator <= 0 || separator == prodId.length() - 1) {
+            return false;
+        }
+        for (int i = separator + 1; i < prodId.length(); i++) {
+            if (!Character.isDigit(prodId.charAt(i))) {
+                return false;
+            }
+        }
+        return prodId.length() - separator <= 10 && Integer.parseInt(prodId.substring(separator + 1)) < limit;
+    }
+
+    private Keys keys(String prodId) {
+        Keys keys = cache.get(prodId);
+        if (keys != null) {
+            return keys;
+        }
+
+        keys = new Keys(prodId, hashTag, orderShards, stockCounters);
+        if (cache.size() < cacheMaxSize) {
+            Keys prev = cache.putIfAbsent(prodId, keys);
+            return prev == null ? keys : prev;
+        }
+        return keys;
+    }
+
+    private static class Keys {
+        private final String stockKey;
+        private final byte[] stockKeyBytes;
+        private final String lockKey;
+        private final String leaseSoldKey;
+        private final byte[][] orderSoldKeys;
+        private final byte[][] orderShardKeys;
+        private final String[] stockCounterKeys;
+        private final byte[][] stockCounterKeyBytes;
+
+        Keys(String prodId, boolean hashTag, int orderShards, int stockCounters) {
+            String tag = hashTag ? "{" + prodId + "}" : prodId;
+            this.stockKey = STOCK_PREFIX + tag;
+            this.stockKeyBytes = stockKey.getBytes(StandardCharsets.UTF_8);
+            this.lockKey = LOCK_PREFIX + tag;
+            this.leaseSoldKey = LEASE_SOLD_PREFIX + tag;
+            this.orderSoldKeys = new byte[orderShards][];
+            this.orderShardKeys = new byte[orderShards][];
+            for (int i = 0; i < orderShards; i++) {
+                orderSoldKeys[i] = (ORDERS_SOLD_PREFIX + tag + ":" + i).getBytes(StandardCharsets.UTF_8);
+                orderShardKeys[i] = (ORDERS_PREFIX + tag + ":" + i).getBytes(StandardCharsets.UTF_8);
+            }
+            this.stockCounterKeys = new String[stockCounters];
+            this.stockCounterKeyBytes = new byte[stockCounters][];
+            for (int i = 0; i < stockCounters; i++) {
+                stockCounterKeys[i] = STOCK_PREFIX + (hashTag ? "{" + prodId + ":" + i + "}" : prodId + ":" + i);
+                stockCounterKeyBytes[i] = stockCounterKeys[i].getBytes(StandardCharsets.UTF_8);
+            }
+        }
+    }
+}
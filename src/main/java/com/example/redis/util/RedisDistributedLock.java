@@ -0,0 +1,251 @@
+package com.example.redis.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 레디스 분산락
+ * - 락 획득마다 소유자 토큰을 발급하여 토큰이 일치하는 소유자만 해제(lua compare-and-delete)
+ * - 락을 보유하는 동안 watchdog 이 유지시간을 주기적으로 연장
+ * - 대기자는 timeout 까지 기다리며, 해제시 pub/sub 알림을 받아 깨어남(spin-polling 하지 않음)
+ *   같은 노드의 대기자는 해제시 바로 깨우고, 다른 노드의 대기자는 해제 알림 채널로 깨움
+ * 같은 스레드의 재진입은 지원하지 않는다.
+ * 지표: redis.lock.acquire(result=acquired|timeout, 대기 시간), redis.lock.lost(해제 전에 만료된 락)
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class RedisDistributedLock implements DistributedLock, MessageListener {
+
+    private static final String UNLOCK_CHANNEL_PREFIX = "PRODUCT:LOCK:CHANNEL:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ProductKeys productKeys;
+
+    private final RedisScript<Long> lockAcquireScript;
+    private final RedisScript<Long> lockReleaseScript;
+    private final RedisScript<Long> lockRenewScript;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, LockHolder> holders = new ConcurrentHashMap<>();
+    /**
+     * 락 키 -> 대기자 (마지막 대기자가 빠지면 항목 제거, 대기열 변경은 항목 단위로 원자 처리)
+     */
+    private final Map<String, Queue<CountDownLatch>> waiters = new ConcurrentHashMap<>();
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "redis-lock-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${product.lock.lease-ms:30000}")
+    private long leaseMillis;
+
+    private Timer acquiredTimer;
+    private Timer timeoutTimer;
+    private Counter lostCounter;
+
+    @PostConstruct
+    public void subscribe() {
+        // 해제된 락의 연장 작업이 큐에 남지 않도록 취소시 바로 제거
+        watchdog.setRemoveOnCancelPolicy(true);
+        acquiredTimer = acquireTimer("acquired");
+        timeoutTimer = acquireTimer("timeout");
+        lostCounter = Counter.builder("redis.lock.lost")
+                .description("locks expired before unlock")
+                .register(meterRegistry);
+        redisMessageListenerContainer.addMessageListener(this, new PatternTopic(UNLOCK_CHANNEL_PREFIX + "*"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+    }
+
+    @Override
+    public String makeLockKey(String key) {
+        return productKeys.lockKey(key);
+    }
+
+    @Override
+    public boolean tryLock(String key, long timeout, TimeUnit unit) {
+        String lockKey = makeLockKey(key);
+        String token = UUID.randomUUID().toString();
+        long start = System.nanoTime();
+        long deadline = start + unit.toNanos(timeout);
+
+        while (true) {
+            // 락 시도 전에 대기열에 등록해야 시도와 대기 사이의 해제 알림을 놓치지 않음
+            CountDownLatch unlockSignal = new CountDownLatch(1);
+            addWaiter(lockKey, unlockSignal);
+            Long ttl = stringRedisTemplate.execute(lockAcquireScript, List.of(lockKey),
+                    token, String.valueOf(leaseMillis));
+            if (ttl != null && ttl < 0) {
+                removeWaiter(lockKey, unlockSignal);
+                holders.put(lockKey, new LockHolder(token, Thread.currentThread().getId(), scheduleRenewal(lockKey, token)));
+                acquiredTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return true;
+            }
+
+            long remainNanos = deadline - System.nanoTime();
+            boolean interrupted = false;
+            if (remainNanos > 0) {
+                // 소유자가 비정상 종료하여 알림 없이 만료되는 경우를 위해 남은 유지시간까지만 대기
+                long waitNanos = ttl == null ? remainNanos : Math.min(remainNanos, TimeUnit.MILLISECONDS.toNanos(Math.max(ttl, 1)));
+                try {
+                    unlockSignal.await(waitNanos, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    interrupted = true;
+                }
+            }
+
+            boolean signalled = !removeWaiter(lockKey, unlockSignal);
+            if (interrupted || deadline - System.nanoTime() <= 0) {
+                if (signalled) {
+                    // 포기하는 시점에 받은 해제 알림은 다음 대기자에게 넘김
+                    signalNextWaiter(lockKey);
+                }
+                timeoutTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public void tryUnlock(String key) {
+        String lockKey = makeLockKey(key);
+        LockHolder holder = holders.get(lockKey);
+        if (holder == null || holder.threadId != Thread.currentThread().getId()) {
+            log.warn("not lock owner: {}", lockKey);
+            return;
+        }
+
+        holders.remove(lockKey);
+        holder.renewal.cancel(false);
+        Long released = stringRedisTemplate.execute(lockReleaseScript, List.of(lockKey),
+                holder.token, UNLOCK_CHANNEL_PREFIX + lockKey, instanceId);
+        if (released == null || released == 0) {
+            log.warn("lock already expired: {}", lockKey);
+            lostCounter.increment();
+        }
+        signalNextWaiter(lockKey);
+    }
+
+    /**
+     * 다른 노드의 락 해제 알림 수신시 대기자 하나를 깨움
+     * (이 노드에서 해제한 경우는 tryUnlock 에서 바로 깨웠으므로 무시)
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (instanceId.equals(new String(message.getBody(), StandardCharsets.UTF_8))) {
+            return;
+        }
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        signalNextWaiter(channel.substring(UNLOCK_CHANNEL_PREFIX.length()));
+    }
+
+    /**
+     * 대기자 전체를 깨우면 한명을 제외하고 다시 대기하게 되므로(thundering herd) 먼저 온 대기자 하나만 깨움
+     */
+    private void signalNextWaiter(String lockKey) {
+        CountDownLatch[] next = new CountDownLatch[1];
+        waiters.computeIfPresent(lockKey, (k, lockWaiters) -> {
+            next[0] = lockWaiters.poll();
+            return lockWaiters.isEmpty() ? null : lockWaiters;
+        });
+        if (next[0] != null) {
+            next[0].countDown();
+        }
+    }
+
+    private void addWaiter(String lockKey, CountDownLatch unlockSignal) {
+        waiters.compute(lockKey, (k, lockWaiters) -> {
+            Queue<CountDownLatch> queue = lockWaiters == null ? new ArrayDeque<>() : lockWaiters;
+            queue.add(unlockSignal);
+            return queue;
+        });
+    }
+
+    /**
+     * @return 대기열에 남아 있어 제거했는지 (false 면 이미 해제 알림을 받음)
+     */
+    private boolean removeWaiter(String lockKey, CountDownLatch unlockSignal) {
+        boolean[] removed = new boolean[1];
+        waiters.computeIfPresent(lockKey, (k, lockWaiters) -> {
+            removed[0] = lockWaiters.remove(unlockSignal);
+            return lockWaiters.isEmpty() ? null : lockWaiters;
+        });
+        return removed[0];
+    }
+
+    /**
+     * 대기자가 있는 락 키 수
+     */
+    int waitingKeys() {
+        return waiters.size();
+    }
+
+    private Timer acquireTimer(String result) {
+        return Timer.builder("redis.lock.acquire")
+                .description("time to acquire a distributed lock")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private ScheduledFuture<?> scheduleRenewal(String lockKey, String token) {
+        long period = Math.max(leaseMillis / 3, 1);
+        return watchdog.scheduleAtFixedRate(() -> {
+            Long renewed;
+            try {
+                renewed = stringRedisTemplate.execute(lockRenewScript, List.of(lockKey),
+                        token, String.valueOf(leaseMillis));
+            } catch (DataAccessException e) {
+                // 일시적인 오류는 다음 주기에 다시 연장
+                log.warn("lock renew failed: {}, {}", lockKey, e.getMessage());
+                return;
+            }
+            if (renewed == null || renewed == 0) {
+                log.warn("lock lost before unlock: {}", lockKey);
+                throw new IllegalStateException("lock lost: " + lockKey);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @RequiredArgsConstructor
+    private static class LockHolder {
+        private final String token;
+        private final long threadId;
+        private final ScheduledFuture<?> renewal;
+    }
+}
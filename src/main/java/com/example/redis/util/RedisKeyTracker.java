@@ -0,0 +1,154 @@
+package com.example.redis.util;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushListener;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.StringCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 레디스 6 client-side caching (CLIENT TRACKING BCAST) 무효화 메시지 수신
+ * 전용 RESP3 연결에서 prefix 로 시작하는 키가 변경/삭제/만료되면 invalidate 메시지를 받아 onInvalidate 로 전달한다.
+ * - 키 목록이 없는 메시지(FLUSHALL 등)는 onInvalidate(null)
+ * - 연결이 끊기면 onTracking(false), 재연결 후 tracking 을 다시 켜고 onTracking(true)
+ *   (끊긴 동안의 무효화는 받지 못하므로 사용하는 쪽은 캐시를 비우고 재조회 해야 함)
+ * 단독 서버 구성만 지원 (클러스터는 노드별로 tracking 연결이 필요함)
+ */
+@Slf4j
+public class RedisKeyTracker implements PushListener, RedisConnectionStateListener, AutoCloseable {
+
+    private static final String INVALIDATE = "invalidate";
+
+    private final LettuceConnectionFactory connectionFactory;
+    private final String prefix;
+    private final Consumer<String> onInvalidate;
+    private final Consumer<Boolean> onTracking;
+
+    private volatile StatefulRedisConnection<String, String> connection;
+
+    public RedisKeyTracker(LettuceConnectionFactory connectionFactory, String prefix,
+                           Consumer<String> onInvalidate, Consumer<Boolean> onTracking) {
+        this.connectionFactory = connectionFactory;
+        this.prefix = prefix;
+        this.onInvalidate = onInvalidate;
+        this.onTracking = onTracking;
+    }
+
+    /**
+     * tracking 연결 생성
+     *
+     * @return 시작 여부 (클러스터 구성이거나 RESP3 를 지원하지 않는 서버면 false)
+     */
+    public boolean start() {
+        AbstractRedisClient nativeClient = connectionFactory.getRequiredNativeClient();
+        if (!(nativeClient instanceof RedisClient)) {
+            log.warn("client tracking is supported on standalone redis only");
+            return false;
+        }
+
+        RedisClient redisClient = (RedisClient) nativeClient;
+        try {
+            StatefulRedisConnection<String, String> newConnection = redisClient.connect(StringCodec.UTF8, redisUri());
+            newConnection.addListener((PushListener) this);
+            connection = newConnection;
+            redisClient.addListener(this);
+            newConnection.sync().clientTracking(trackingArgs());
+            onTracking.accept(true);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("client tracking unavailable: {}", e.getMessage());
+            close();
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        AbstractRedisClient nativeClient = connectionFactory.getNativeClient();
+        if (nativeClient != null) {
+            nativeClient.removeListener(this);
+        }
+        StatefulRedisConnection<String, String> current = connection;
+        connection = null;
+        if (current != null) {
+            current.closeAsync();
+        }
+    }
+
+    @Override
+    public void onPushMessage(PushMessage message) {
+        if (!INVALIDATE.equals(message.getType())) {
+            return;
+        }
+        List<Object> content = message.getContent(StringCodec.UTF8::decodeKey);
+        Object keys = content.size() > 1 ? content.get(1) : null;
+        if (!(keys instanceof List)) {
+            onInvalidate.accept(null);
+            return;
+        }
+        for (Object key : (List<?>) keys) {
+            onInvalidate.accept(key instanceof ByteBuffer ? StringCodec.UTF8.decodeKey((ByteBuffer) key) : (String) key);
+        }
+    }
+
+    @Override
+    public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress socketAddress) {
+        StatefulRedisConnection<String, String> current = connection;
+        if (handler != current) {
+            return;
+        }
+        // 재연결: 연결 단위 설정인 tracking 을 다시 켬 (명령 큐에 먼저 들어가도록 비동기 실행)
+        current.async().clientTracking(trackingArgs()).whenComplete((res, e) -> {
+            if (e != null) {
+                log.warn("client tracking re-enable failed: {}", e.getMessage());
+                return;
+            }
+            onTracking.accept(true);
+        });
+    }
+
+    @Override
+    public void onRedisDisconnected(RedisChannelHandler<?, ?> handler) {
+        if (handler == connection) {
+            onTracking.accept(false);
+        }
+    }
+
+    @Override
+    public void onRedisExceptionCaught(RedisChannelHandler<?, ?> handler, Throwable cause) {
+    }
+
+    private TrackingArgs trackingArgs() {
+        return TrackingArgs.Builder.enabled().bcast().prefixes(prefix);
+    }
+
+    private RedisURI redisUri() {
+        RedisStandaloneConfiguration configuration = connectionFactory.getStandaloneConfiguration();
+        RedisURI redisURI = RedisURI.builder()
+                .withHost(configuration.getHostName())
+                .withPort(configuration.getPort())
+                .withDatabase(configuration.getDatabase())
+                .withSsl(connectionFactory.isUseSsl())
+                .withTimeout(Duration.ofMillis(connectionFactory.getTimeout()))
+                .build();
+        configuration.getPassword().toOptional().ifPresent(redisURI::setPassword);
+        if (configuration.getUsername() != null) {
+            redisURI.setUsername(configuration.getUsername());
+        }
+        return redisURI;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.redis.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 품절 상품 목록 (노드 메모리)
+ * 차감 방식 재고가 재고부족이고 기준 재고(재고 키, hot 상품은 카운터 합계)가 0 이하이면 품절로 기록하고 pub/sub 으로 다른 노드에도 알려,
+ * 이후 구매 요청은 레디스 호출 없이 map 조회 한번으로 거절한다.
+ * - 판매 수량 방식(sellStock)은 전체 수량이 호출자마다 다를 수 있으므로 기록하지 않음
+ * - 재입고: reset 호출시 모든 노드에서 품절 해제 (ProductQuantityService.replenishStock)
+ * - ttl: 해제 알림을 놓치거나 레디스에서 직접 재고를 바꿔도 ttl 이 지나면 다시 레디스로 확인
+ * - 재입고 전에 시작한 요청의 재고부족 결과나 해제 이전에 보낸 품절 알림(리스너 스레드 순서가 바뀔 수 있음)은 반영하지 않음
+ * 알림 발행은 전용 스레드에서 순서대로 처리 (요청 스레드, reactive 이벤트 루프를 막지 않음)
+ * 지표: stock.soldout.rejected (레디스 호출 없이 거절한 수), stock.soldout.marked(source=local|broadcast), stock.soldout.products
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SoldOutRegistry implements MessageListener, MeterBinder {
+
+    private static final String CHANNEL = "PRODUCT:SOLDOUT:CHANNEL";
+    private static final char SOLD_OUT = 'S';
+    private static final char RESET = 'R';
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * 상품번호 -> 품절 기록 만료 시각 (nanoTime)
+     */
+    private final Map<String, Long> soldOut = new ConcurrentHashMap<>();
+    /**
+     * 상품번호 -> 마지막 재입고 시각 (nanoTime), ttl 이 지난 기록은 품절 기록시 정리
+     */
+    private final Map<String, Long> resets = new ConcurrentHashMap<>();
+
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "soldout-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder markedLocal = new LongAdder();
+    private final LongAdder markedBroadcast = new LongAdder();
+
+    @Value("${product.stock.soldout.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${product.stock.soldout.ttl-ms:5000}")
+    private long ttlMillis = 5000;
+
+    @Value("${product.stock.soldout.max-size:100000}")
+    private int maxSize = 100_000;
+
+    private long ttlNanos;
+
+    @PostConstruct
+    public void subscribe() {
+        ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publisher.shutdown();
+    }
+
+    /**
+     * 품절 기록이 있으면 true (거절 수 집계)
+     */
+    public boolean isSoldOut(String prodId) {
+        Long expiresAt = soldOut.get(prodId);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt - System.nanoTime() <= 0) {
+            soldOut.remove(prodId, expiresAt);
+            return false;
+        }
+        rejected.increment();
+        return true;
+    }
+
+    /**
+     * 재고부족 결과 기록, 새로 기록한 경우만 다른 노드에 알림
+     *
+     * @param startNanos 레디스 호출 전 시각 (이후에 재입고 되었으면 무시)
+     */
+    public void markSoldOut(String prodId, long startNanos) {
+        if (enabled && mark(prodId, startNanos)) {
+            markedLocal.increment();
+            publish(SOLD_OUT, prodId);
+        }
+    }
+
+    /**
+     * 재입고 등으로 품절 해제 (모든 노드)
+     */
+    public void reset(String prodId) {
+        resetLocal(prodId);
+        publish(RESET, prodId);
+    }
+
+    public void resetAll() {
+        soldOut.clear();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.length() < 2) {
+            return;
+        }
+        String prodId = body.substring(1);
+        if (body.charAt(0) == RESET) {
+            resetLocal(prodId);
+        } else if (body.charAt(0) == SOLD_OUT && enabled && mark(prodId, System.nanoTime() - ttlNanos)) {
+            // 보낸 노드의 요청 시각을 알 수 없으므로 ttl 안에 재입고가 있었으면 무시
+            markedBroadcast.increment();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("stock.soldout.rejected", rejected, LongAdder::sum)
+                .description("purchases rejected from the local sold-out registry without a redis call")
+                .register(registry);
+        FunctionCounter.builder("stock.soldout.marked", markedLocal, LongAdder::sum)
+                .tag("source", "local")
+                .register(registry);
+        FunctionCounter.builder("stock.soldout.marked", markedBroadcast, LongAdder::sum)
+                .tag("source", "broadcast")
+                .register(registry);
+        Gauge.builder("stock.soldout.products", soldOut, Map::size)
+                .register(registry);
+    }
+
+    /**
+     * @return 새로 기록했는지 (이미 품절이면 만료 시각만 연장)
+     */
+    private boolean mark(String prodId, long startNanos) {
+        long now = System.nanoTime();
+        Long resetAt = resets.get(prodId);
+        if (resetAt != null) {
+            if (now - resetAt >= ttlNanos) {
+                resets.remove(prodId, resetAt);
+            } else if (resetAt - startNanos >= 0) {
+                return false;
+            }
+        }
+        if (soldOut.size() >= maxSize && !soldOut.containsKey(prodId)) {
+            return false;
+        }
+        Long prev = soldOut.put(prodId, now + ttlNanos);
+        return prev == null || prev - now <= 0;
+    }
+
+    private void resetLocal(String prodId) {
+        resets.put(prodId, System.nanoTime());
+        soldOut.remove(prodId);
+    }
+
+    private void publish(char type, String prodId) {
+        try {
+            publisher.execute(() -> {
+                try {
+                    stringRedisTemplate.convertAndSend(CHANNEL, type + prodId);
+                } catch (DataAccessException e) {
+                    // 알림을 못 받은 노드는 레디스 결과로 다시 기록하거나 ttl 후 해제됨
+                    log.warn("sold-out broadcast failed: {}, {}", prodId, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("sold-out publisher is shut down: {}", prodId);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.redis.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 상품별로 마지막에 확인한 판매 수량 (노드 메모리, lock 없이 CAS 로 갱신)
+ * 판매 수량은 늘어나기만 하므로 ttl 안에 확인한 값이 전체 수량 이상이면 레디스 조회 없이 재고부족으로 판단한다.
+ * - 갱신: 더 큰 값만 반영 (늦게 도착한 이전 조회 결과로 되돌아가지 않음), ttl 이 지난 값은 그대로 교체
+ * - 재고를 다시 채우는 등 판매 수량이 줄어드는 변경은 ttl 동안 반영되지 않으므로 invalidate 호출 필요
+ * 상품 수가 max-size 를 넘으면 새 상품은 기록하지 않는다.
+ */
+@Component
+public class StockSnapshot {
+
+    private final Map<String, AtomicReference<Observed>> snapshots = new ConcurrentHashMap<>();
+
+    @Value("${product.stock.snapshot-ttl-ms:200}")
+    private long ttlMillis = 200;
+
+    @Value("${product.stock.snapshot-max-size:100000}")
+    private int maxSize = 100_000;
+
+    /**
+     * @return ttl 안에 확인한 판매 수량이 전체 수량 이상인지 (확인한 적이 없으면 false)
+     */
+    public boolean isSoldOut(String prodId, long totalQuantity) {
+        AtomicReference<Observed> snapshot = snapshots.get(prodId);
+        if (snapshot == null) {
+            return false;
+        }
+        Observed observed = snapshot.get();
+        return observed != null && observed.sold >= totalQuantity && isFresh(observed, System.nanoTime());
+    }
+
+    public void observe(String prodId, Long sold) {
+        if (sold == null) {
+            return;
+        }
+        AtomicReference<Observed> snapshot = snapshots.get(prodId);
+        if (snapshot == null) {
+            if (snapshots.size() >= maxSize) {
+                return;
+            }
+            snapshot = snapshots.computeIfAbsent(prodId, key -> new AtomicReference<>());
+        }
+
+        long now = System.nanoTime();
+        Observed current;
+        do {
+            current = snapshot.get();
+            if (current != null && current.sold >= sold && isFresh(current, now)) {
+                return;
+            }
+        } while (!snapshot.compareAndSet(current, new Observed(sold, now)));
+    }
+
+    public void invalidate(String prodId) {
+        snapshots.remove(prodId);
+    }
+
+    public void invalidateAll() {
+        snapshots.clear();
+    }
+
+    private boolean isFresh(Observed observed, long now) {
+        return now - observed.observedAt < TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    private static final class Observed {
+        private final long sold;
+        private final long observedAt;
+
+        Observed(long sold, long observedAt) {
+            this.sold = sold;
+            this.observedAt = observedAt;
+        }
+    }
+}
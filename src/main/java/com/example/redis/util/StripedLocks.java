@@ -0,0 +1,51 @@
+package com.example.redis.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 키(상품번호) 해시로 나눈 노드 메모리 lock
+ * 서비스 전체가 lock 하나를 공유하면 서로 다른 상품도 한 줄로 처리되므로 stripe 단위로 lock 을 나눈다.
+ * 같은 상품은 항상 같은 stripe 를 사용하고, 다른 상품은 stripe 가 겹칠 때만 경합한다. (stripe 수 >= 동시 처리 상품 수 권장)
+ * stripe 수는 2의 제곱수로 올림
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final StampedLock[] stampedLocks;
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        if (stripes <= 0 || stripes > (1 << 16)) {
+            throw new IllegalArgumentException("stripes must be between 1 and 65536: " + stripes);
+        }
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.locks = new ReentrantLock[size];
+        this.stampedLocks = new StampedLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+            stampedLocks[i] = new StampedLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public ReentrantLock lock(String key) {
+        return locks[stripe(key)];
+    }
+
+    public StampedLock stampedLock(String key) {
+        return stampedLocks[stripe(key)];
+    }
+
+    public int size() {
+        return locks.length;
+    }
+
+    int stripe(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
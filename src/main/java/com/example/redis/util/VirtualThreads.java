@@ -0,0 +1,45 @@
+package com.example.redis.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 가상 스레드(Java 21+) 지원 여부 확인과 executor 생성
+ * 빌드는 Java 17 기준이므로 API 를 직접 참조하지 않고 실행 런타임에서 찾아 사용한다.
+ */
+public final class VirtualThreads {
+
+    private static final Method NEW_PER_TASK_EXECUTOR = findPerTaskExecutorMethod();
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return NEW_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * 작업마다 가상 스레드를 생성하는 executor (Executors.newVirtualThreadPerTaskExecutor)
+     *
+     * @throws IllegalStateException 런타임이 가상 스레드를 지원하지 않는 경우
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        if (!isSupported()) {
+            throw new IllegalStateException("virtual threads require Java 21+, runtime: "
+                    + System.getProperty("java.version"));
+        }
+        try {
+            return (ExecutorService) NEW_PER_TASK_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("failed to create virtual thread executor", e);
+        }
+    }
+
+    private static Method findPerTaskExecutorMethod() {
+        try {
+            return java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+-- 운영(MySQL) 테이블 (기동시 spring.sql.init 으로 실행, 이미 있으면 건너뜀)
+-- 엔티티 매핑을 바꾸면 여기에 ALTER 를 추가한다. H2 프로필은 hibernate ddl-auto 로 생성
+
+-- 재고 차감 성공 이력 (ProductOrder, OrderPersistenceWorker)
+CREATE TABLE IF NOT EXISTS product_order
+(
+    event_id   VARCHAR(64) NOT NULL,
+    order_id   VARCHAR(64),
+    prod_id    VARCHAR(64) NOT NULL,
+    quantity   INT         NOT NULL,
+    strategy   VARCHAR(32),
+    ordered_at DATETIME(6),
+    PRIMARY KEY (event_id),
+    INDEX idx_product_order_prod_id (prod_id)
+) ENGINE = InnoDB;
+
+-- 재고 대조 기준 정보 (ProductStock, StockReconciler)
+CREATE TABLE IF NOT EXISTS product_stock
+(
+    prod_id        VARCHAR(64) NOT NULL,
+    total_quantity BIGINT      NOT NULL,
+    counting       VARCHAR(16) NOT NULL,
+    PRIMARY KEY (prod_id)
+) ENGINE = InnoDB;
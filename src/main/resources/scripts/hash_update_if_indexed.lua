@@ -0,0 +1,30 @@
+-- 인덱스 필드 값이 그대로일 때만 hash 필드를 교체 (인덱스 키는 건드리지 않음)
+-- KEYS[1] : 엔티티 hash 키 (keyspace:id)
+-- ARGV[1] : 인덱스 필드 이름
+-- ARGV[2] : 저장할 인덱스 필드 값
+-- ARGV[3] : 만료 시간(초), 0 이면 만료 없음
+-- ARGV[4..] : 저장할 필드, 값 쌍 (엔티티 전체)
+-- return  : 1 갱신, 0 hash 가 없거나 인덱스 값이 달라 갱신하지 않음 (전체 저장 필요)
+if redis.call('HGET', KEYS[1], ARGV[1]) ~= ARGV[2] then
+    return 0
+end
+
+local fields = {}
+for i = 4, #ARGV, 2 do
+    fields[ARGV[i]] = true
+end
+
+-- 새 값에 없는(null 이 된) 필드 제거
+for _, field in ipairs(redis.call('HKEYS', KEYS[1])) do
+    if not fields[field] then
+        redis.call('HDEL', KEYS[1], field)
+    end
+end
+
+redis.call('HSET', KEYS[1], unpack(ARGV, 4))
+if tonumber(ARGV[3]) > 0 then
+    redis.call('EXPIRE', KEYS[1], ARGV[3])
+else
+    redis.call('PERSIST', KEYS[1])
+end
+return 1
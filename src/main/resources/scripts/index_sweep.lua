@@ -0,0 +1,32 @@
+-- 만료/삭제된 엔티티의 인덱스 정리 (SSCAN 한 단계)
+-- KEYS[1] : keyspace set (엔티티 id 목록)
+-- KEYS[2] : SSCAN cursor 저장 키 (없으면 처음부터, 한 바퀴를 다 돌면 삭제)
+-- ARGV[1] : SSCAN COUNT
+-- return  : {다음 cursor, 확인한 id 수, 정리한 id 수, 정리한 메모리 (바이트, 추정)}
+-- hash 가 없는 id 는 키:idx 에 기록된 인덱스 set 에서 제거하고, 키:idx 와 keyspace set 의 id 도 제거한다.
+-- 엔티티 키는 keyspace set 이름에서 만들어지므로 클러스터(슬롯이 다른 키)에서는 사용할 수 없음
+local res = redis.call('SSCAN', KEYS[1], redis.call('GET', KEYS[2]) or '0', 'COUNT', ARGV[1])
+if res[1] == '0' then
+    redis.call('DEL', KEYS[2])
+else
+    redis.call('SET', KEYS[2], res[1])
+end
+local removed = 0
+local reclaimed = 0
+
+for _, id in ipairs(res[2]) do
+    local key = KEYS[1] .. ':' .. id
+    if redis.call('EXISTS', key) == 0 then
+        local idx = key .. ':idx'
+        reclaimed = reclaimed + (redis.call('MEMORY', 'USAGE', idx) or 0)
+        for _, index in ipairs(redis.call('SMEMBERS', idx)) do
+            -- 인덱스 set 원소 하나당 id 바이트 + 원소 overhead
+            reclaimed = reclaimed + redis.call('SREM', index, id) * (#id + 16)
+        end
+        redis.call('DEL', idx)
+        reclaimed = reclaimed + redis.call('SREM', KEYS[1], id) * (#id + 16)
+        removed = removed + 1
+    end
+end
+
+return {res[1], #res[2], removed, reclaimed}
@@ -0,0 +1,15 @@
+-- 분산락 획득
+-- KEYS[1] : 락 키 (PRODUCT:LOCK:{key})
+-- ARGV[1] : 소유자 토큰
+-- ARGV[2] : 락 유지시간(ms)
+-- return  : 획득 성공시 -1, 실패시 현재 락의 남은 유지시간(ms)
+--           (유지시간이 없는 락이면 ARGV[2], 그사이 만료되었으면 0)
+if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+    return -1
+end
+
+local pttl = redis.call('PTTL', KEYS[1])
+if pttl == -1 then
+    return tonumber(ARGV[2])
+end
+return math.max(pttl, 0)
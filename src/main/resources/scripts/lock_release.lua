@@ -0,0 +1,13 @@
+-- 분산락 해제 (소유자 토큰이 일치 할때만 삭제 후 대기자에게 해제 알림)
+-- KEYS[1] : 락 키 (PRODUCT:LOCK:{key})
+-- ARGV[1] : 소유자 토큰
+-- ARGV[2] : 락 해제 알림 채널
+-- ARGV[3] : 해제한 노드 id (알림 메시지)
+-- return  : 해제 성공시 1, 소유자가 아니면 0
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    return 0
+end
+
+redis.call('DEL', KEYS[1])
+redis.call('PUBLISH', ARGV[2], ARGV[3])
+return 1
@@ -0,0 +1,10 @@
+-- 분산락 유지시간 연장 (소유자 토큰이 일치 할때만)
+-- KEYS[1] : 락 키 (PRODUCT:LOCK:{key})
+-- ARGV[1] : 소유자 토큰
+-- ARGV[2] : 락 유지시간(ms)
+-- return  : 연장 성공시 1, 소유자가 아니면 0
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    return 0
+end
+
+return redis.call('PEXPIRE', KEYS[1], ARGV[2])
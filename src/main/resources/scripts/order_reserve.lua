@@ -0,0 +1,76 @@
+-- 주문번호 중복 확인, 판매 가능 수량 확인, 주문 저장을 한번의 왕복으로 원자 처리
+-- KEYS[1..n] : shard 별 판매수량 키 (PRODUCT:ORDERS:SOLD:{prodId}:{shard})
+-- KEYS[n+1]  : 주문번호가 속한 shard hash (PRODUCT:ORDERS:{prodId}:{shard}), 주문번호 -> 구매 수량
+-- ARGV[1] : 주문번호
+-- ARGV[2] : 전체 판매 가능 수량
+-- ARGV[3] : 구매 수량
+-- ARGV[4] : 주문번호가 속한 shard 번호 (0 부터)
+-- return  : {결과코드}
+--           0: 판매성공, 1: 재고부족, 2: 판매수량부족, 3: 판매수량 오버, 4: 이미 처리된 주문, 6: 구매 수량 오류(0 이하)
+-- 전체 판매 가능 수량을 shard 마다 나눠(몫, 나머지는 앞 shard 부터 1개씩) 자기 몫 안이면 자기 shard 판매수량만 증가시키고,
+-- 몫이 부족할 때만 전체 합계를 확인해 다른 shard 의 남은 몫에서 가져온다. (판매수량 합계는 항상 전체 판매 가능 수량 이하)
+local n = #KEYS - 1
+local own = tonumber(ARGV[4]) + 1
+
+if redis.call('HEXISTS', KEYS[n + 1], ARGV[1]) == 1 then
+    return {4}
+end
+
+local total = tonumber(ARGV[2])
+local quantity = tonumber(ARGV[3])
+
+if not quantity or quantity <= 0 then
+    return {6}
+end
+
+local function share(i)
+    local base = math.floor(total / n)
+    if i <= total % n then
+        return base + 1
+    end
+    return base
+end
+
+local ownSold = tonumber(redis.call('GET', KEYS[own]) or '0')
+if ownSold + quantity <= share(own) then
+    redis.call('INCRBY', KEYS[own], quantity)
+    redis.call('HSET', KEYS[n + 1], ARGV[1], quantity)
+    return {0}
+end
+
+local sold = {}
+local sum = 0
+for i = 1, n do
+    sold[i] = tonumber(redis.call('GET', KEYS[i]) or '0')
+    sum = sum + sold[i]
+end
+
+if sum > total then
+    return {3}
+end
+if sum == total then
+    return {1}
+end
+if sum + quantity > total then
+    return {2}
+end
+
+-- 자기 shard 부터 남은 몫을 차례로 사용 (남은 몫 합계 >= total - sum 이므로 항상 다 채워짐)
+local rest = quantity
+for step = 0, n - 1 do
+    local i = (own - 1 + step) % n + 1
+    local take = math.min(rest, math.max(0, share(i) - sold[i]))
+    if take > 0 then
+        redis.call('INCRBY', KEYS[i], take)
+        rest = rest - take
+    end
+    if rest == 0 then
+        break
+    end
+end
+if rest > 0 then
+    redis.call('INCRBY', KEYS[own], rest)
+end
+
+redis.call('HSET', KEYS[n + 1], ARGV[1], quantity)
+return {0}
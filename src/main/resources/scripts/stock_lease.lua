@@ -0,0 +1,13 @@
+-- 노드 로컬 판매용 재고 블럭 임대
+-- KEYS[1] : 상품 재고 키 (PRODUCT:STOCKED:{prodId})
+-- ARGV[1] : 임대 요청 수량
+-- return  : 실제 임대된 수량 (남은 재고가 부족하면 남은 만큼만, 없으면 0)
+local stock = tonumber(redis.call('GET', KEYS[1]) or '0')
+local granted = math.min(stock, tonumber(ARGV[1]))
+
+if granted <= 0 then
+    return 0
+end
+
+redis.call('DECRBY', KEYS[1], granted)
+return granted
@@ -0,0 +1,14 @@
+-- 재고 키에서 최대 요청 수량만큼 덜어 다른 재고 키에 더함 (분할 재고 카운터 재분배, 한 노드의 키일 때)
+-- KEYS[1] : 덜어낼 재고 키
+-- KEYS[2] : 더할 재고 키
+-- ARGV[1] : 최대 수량
+-- return  : 옮긴 수량 (재고가 없거나 음수면 0)
+local stock = tonumber(redis.call('GET', KEYS[1]) or '0')
+local take = math.min(stock, tonumber(ARGV[1]))
+if take <= 0 then
+    return 0
+end
+
+redis.call('DECRBY', KEYS[1], take)
+redis.call('INCRBY', KEYS[2], take)
+return take
@@ -0,0 +1,22 @@
+-- 재고 대조용 재고 키 SCAN 한 단계
+-- ARGV[1] : SCAN cursor
+-- ARGV[2] : SCAN COUNT
+-- ARGV[3] : SCAN MATCH 패턴
+-- ARGV[4] : 재고 키 prefix (PRODUCT:STOCKED:)
+-- return  : {다음 cursor, 키, 값, 키, 값, ...} (숫자 값인 string 키만, 형식이 다른 키는 제외)
+-- 키를 인자로 받지 않아 실행한 노드만 훑으므로 클러스터에서는 사용할 수 없음
+local res = redis.call('SCAN', ARGV[1], 'MATCH', ARGV[3], 'COUNT', ARGV[2])
+local values = {res[1]}
+
+for _, key in ipairs(res[2]) do
+    local type = redis.call('TYPE', key).ok
+    if type == 'string' and string.sub(key, 1, #ARGV[4]) == ARGV[4] then
+        local value = tonumber(redis.call('GET', key))
+        if value then
+            table.insert(values, key)
+            table.insert(values, value)
+        end
+    end
+end
+
+return values
@@ -0,0 +1,11 @@
+-- 재고 대조 보정 (확인한 값 그대로일 때만 변경)
+-- KEYS[1] : 재고 키
+-- ARGV[1] : 확인한 값
+-- ARGV[2] : 보정 값
+-- return  : 1 (변경) / 0 (확인 이후 값이 바뀜)
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    return 0
+end
+
+redis.call('SET', KEYS[1], ARGV[2])
+return 1
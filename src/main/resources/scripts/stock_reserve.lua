@@ -0,0 +1,22 @@
+-- 재고 확인과 차감을 한번의 왕복으로 원자 처리
+-- KEYS[1] : 상품 재고 키 (PRODUCT:STOCKED:{prodId})
+-- ARGV[1] : 구매 수량
+-- return  : {결과코드, 남은재고}
+--           0: 차감성공, 1: 재고부족, 2: 판매수량부족, 3: 판매수량 오버, 6: 구매 수량 오류(0 이하)
+local stock = tonumber(redis.call('GET', KEYS[1]) or '0')
+local quantity = tonumber(ARGV[1])
+
+if not quantity or quantity <= 0 then
+    return {6, stock}
+end
+if stock < 0 then
+    return {3, stock}
+end
+if stock == 0 then
+    return {1, 0}
+end
+if stock < quantity then
+    return {2, stock}
+end
+
+return {0, redis.call('DECRBY', KEYS[1], quantity)}
@@ -0,0 +1,45 @@
+-- 장바구니 상품 재고를 한번의 왕복으로 전부 차감하거나 전부 차감하지 않음(all-or-nothing)
+-- KEYS[i] : 상품 재고 키 (PRODUCT:STOCKED:{prodId})
+-- ARGV[i] : KEYS[i] 상품의 구매 수량
+-- return  : 라인별 결과코드 목록 (하나라도 0 이 아니면 아무것도 차감하지 않음)
+--           0: 차감성공, 1: 재고부족, 2: 판매수량부족, 3: 판매수량 오버, 6: 구매 수량 오류(0 이하),
+--           7: 다른 라인 때문에 미차감
+local need = {}
+for i = 1, #KEYS do
+    need[KEYS[i]] = (need[KEYS[i]] or 0) + (tonumber(ARGV[i]) or 0)
+end
+
+local codes = {}
+local failed = false
+for i = 1, #KEYS do
+    local stock = tonumber(redis.call('GET', KEYS[i]) or '0')
+    local quantity = tonumber(ARGV[i])
+    local code = 0
+    if not quantity or quantity <= 0 then
+        code = 6
+    elseif stock < 0 then
+        code = 3
+    elseif stock == 0 then
+        code = 1
+    elseif stock < need[KEYS[i]] then
+        code = 2
+    end
+    codes[i] = code
+    if code ~= 0 then
+        failed = true
+    end
+end
+
+if failed then
+    for i = 1, #KEYS do
+        if codes[i] == 0 then
+            codes[i] = 7
+        end
+    end
+else
+    for i = 1, #KEYS do
+        redis.call('DECRBY', KEYS[i], ARGV[i])
+    end
+end
+
+return codes
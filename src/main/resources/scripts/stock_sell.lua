@@ -0,0 +1,24 @@
+-- 판매 수량 확인과 증가를 한번의 왕복으로 원자 처리
+-- KEYS[1] : 상품 판매수량 키 (PRODUCT:STOCKED:{prodId})
+-- ARGV[1] : 전체 판매 가능 수량
+-- ARGV[2] : 구매 수량
+-- return  : {결과코드, 판매수량}
+--           0: 판매성공, 1: 재고부족, 2: 판매수량부족, 3: 판매수량 오버, 6: 구매 수량 오류(0 이하)
+local sold = tonumber(redis.call('GET', KEYS[1]) or '0')
+local total = tonumber(ARGV[1])
+local quantity = tonumber(ARGV[2])
+
+if not quantity or quantity <= 0 then
+    return {6, sold}
+end
+if sold > total then
+    return {3, sold}
+end
+if sold == total then
+    return {1, sold}
+end
+if sold + quantity > total then
+    return {2, sold}
+end
+
+return {0, redis.call('INCRBY', KEYS[1], quantity)}
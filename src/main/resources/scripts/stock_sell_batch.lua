@@ -0,0 +1,32 @@
+-- 같은 상품의 여러 구매 요청을 도착 순서대로 판매 처리 (요청별 결과, INCRBY 한번)
+-- KEYS[1]       : 상품 판매수량 키 (PRODUCT:STOCKED:{prodId})
+-- ARGV[2i-1,2i] : i 번째 요청의 전체 판매 가능 수량, 구매 수량
+-- return        : {판매수량, 요청별 결과코드...}
+--                 0: 판매성공, 1: 재고부족, 2: 판매수량부족, 3: 판매수량 오버, 6: 구매 수량 오류(0 이하, 판매수량에 반영하지 않음)
+local sold = tonumber(redis.call('GET', KEYS[1]) or '0')
+local before = sold
+local res = {0}
+
+for i = 1, #ARGV, 2 do
+    local total = tonumber(ARGV[i])
+    local quantity = tonumber(ARGV[i + 1])
+    local code = 0
+    if not quantity or quantity <= 0 then
+        code = 6
+    elseif sold > total then
+        code = 3
+    elseif sold == total then
+        code = 1
+    elseif sold + quantity > total then
+        code = 2
+    else
+        sold = sold + quantity
+    end
+    res[#res + 1] = code
+end
+
+if sold > before then
+    redis.call('INCRBY', KEYS[1], sold - before)
+end
+res[1] = sold
+return res
@@ -0,0 +1,12 @@
+-- 재고 키에서 최대 요청 수량만큼 덜어냄 (분할 재고 카운터 재분배)
+-- KEYS[1] : 덜어낼 재고 키
+-- ARGV[1] : 최대 수량
+-- return  : 덜어낸 수량 (재고가 없거나 음수면 0)
+local stock = tonumber(redis.call('GET', KEYS[1]) or '0')
+local take = math.min(stock, tonumber(ARGV[1]))
+if take <= 0 then
+    return 0
+end
+
+redis.call('DECRBY', KEYS[1], take)
+return take
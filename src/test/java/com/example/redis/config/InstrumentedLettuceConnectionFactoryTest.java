@@ -0,0 +1,51 @@
+package com.example.redis.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class InstrumentedLettuceConnectionFactoryTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RedisTemplate<String, Long> txIncrRedisTemplate;
+
+    @Test
+    @DisplayName("기동시 min-idle 만큼 연결 풀을 미리 채움")
+    public void prewarmTest() {
+        double idle = meterRegistry.get("redis.pool.idle").tag("pool", "default").gauge().value();
+        double active = meterRegistry.get("redis.pool.active").tag("pool", "default").gauge().value();
+
+        assertThat(idle + active).isGreaterThanOrEqualTo(4);
+        assertThat(meterRegistry.get("redis.pool.waiters").tag("pool", "default").gauge().value()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("전용 연결 대여 시간 기록")
+    public void borrowTimerTest() {
+        Timer borrowTimer = meterRegistry.get("redis.pool.borrow").tag("pool", "default").timer();
+        long before = borrowTimer.count();
+
+        txIncrRedisTemplate.execute(new SessionCallback<Object>() {
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                operations.multi();
+                operations.opsForValue().get("PRODUCT:POOL:17001");
+                return operations.exec();
+            }
+        });
+
+        assertThat(borrowTimer.count()).isGreaterThan(before);
+    }
+}
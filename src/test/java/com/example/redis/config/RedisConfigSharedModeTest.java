@@ -0,0 +1,64 @@
+package com.example.redis.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "product.redis.connection-mode=shared")
+public class RedisConfigSharedModeTest {
+
+    @Autowired
+    private LettuceConnectionFactory redisConnectionFactory;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("shared 모드: 일반 명령은 공유 연결, 파이프라인은 풀에서 대여")
+    public void pipelineBorrowsPooledConnectionTest() {
+        assertThat(redisConnectionFactory).isInstanceOf(InstrumentedLettuceConnectionFactory.class);
+        assertThat(redisConnectionFactory.getShareNativeConnection()).isTrue();
+
+        Timer borrowTimer = meterRegistry.get("redis.pool.borrow").tag("pool", "default").timer();
+        Timer transactionalBorrowTimer = meterRegistry.get("redis.pool.borrow").tag("pool", "transactional").timer();
+        long before = borrowTimer.count();
+        long transactionalBefore = transactionalBorrowTimer.count();
+
+        List<Object> res = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            ((StringRedisConnection) connection).get("PRODUCT:POOL:17002");
+            ((StringRedisConnection) connection).exists("PRODUCT:POOL:17002");
+            return null;
+        });
+
+        assertThat(res).hasSize(2);
+        assertThat(borrowTimer.count()).isGreaterThan(before);
+        assertThat(transactionalBorrowTimer.count()).isEqualTo(transactionalBefore);
+    }
+
+    @Test
+    @DisplayName("shared 모드: 트랜잭션 전용 풀 지표는 기본 풀과 분리")
+    public void poolMetersPerFactoryTest() {
+        double defaultConnections = meterRegistry.get("redis.pool.idle").tag("pool", "default").gauge().value()
+                + meterRegistry.get("redis.pool.active").tag("pool", "default").gauge().value();
+        double transactionalConnections = meterRegistry.get("redis.pool.idle").tag("pool", "transactional").gauge().value()
+                + meterRegistry.get("redis.pool.active").tag("pool", "transactional").gauge().value();
+
+        // 두 풀 모두 min-idle 만큼 미리 연결하며, 한쪽 값에 다른 풀이 합산되지 않음
+        assertThat(defaultConnections).isGreaterThanOrEqualTo(4).isLessThan(8);
+        assertThat(transactionalConnections).isGreaterThanOrEqualTo(4).isLessThan(8);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.redis.controller;
+
+import com.example.redis.service.StockReserveResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * blocking / reactive 재고 차감 API 부하 검증
+ * 요청 스레드를 적게(8) 두고 그보다 많은 동시 요청을 보내도 모든 요청이 응답되고 오버셀이 없는지 확인한다.
+ * (처리 시간은 측정하지 않음)
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "server.tomcat.threads.max=8")
+public class StockControllerLoadTest {
+
+    private static final int TOTAL_QUANTITY = 2000;
+    private static final int REQUESTS = 2500;
+    private static final int CONCURRENCY = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RedisTemplate<String, Long> incrRedisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @AfterEach
+    public void finish() {
+        incrRedisTemplate.delete("PRODUCT:STOCKED:16001");
+        incrRedisTemplate.delete("PRODUCT:STOCKED:16002");
+    }
+
+    @Test
+    @DisplayName("blocking/reactive API 동시 요청 처리(응답 누락, 오버셀 없음)")
+    public void reserve_loadTest() throws InterruptedException {
+        incrRedisTemplate.opsForValue().set("PRODUCT:STOCKED:16001", TOTAL_QUANTITY + 1L);
+        incrRedisTemplate.opsForValue().set("PRODUCT:STOCKED:16002", TOTAL_QUANTITY + 1L);
+
+        // 기동 직후 연결 생성 등을 제외하기 위해 한번씩 호출 (1개씩 차감)
+        assertThat(send("/stock/16001/reserve").join()).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(send("/reactive/stock/16002/reserve").join()).isEqualTo(StockReserveResult.RESERVED);
+
+        LoadResult blocking = load("/stock/16001/reserve");
+        LoadResult reactive = load("/reactive/stock/16002/reserve");
+
+        assertThat(blocking.responded).isEqualTo(REQUESTS);
+        assertThat(reactive.responded).isEqualTo(REQUESTS);
+        assertThat(blocking.reserved).isEqualTo(TOTAL_QUANTITY);
+        assertThat(reactive.reserved).isEqualTo(TOTAL_QUANTITY);
+        assertThat(incrRedisTemplate.opsForValue().get("PRODUCT:STOCKED:16001")).isEqualTo(0);
+        assertThat(incrRedisTemplate.opsForValue().get("PRODUCT:STOCKED:16002")).isEqualTo(0);
+    }
+
+    private LoadResult load(String path) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        AtomicInteger responded = new AtomicInteger();
+        AtomicInteger reserved = new AtomicInteger();
+        CompletableFuture<?>[] futures = new CompletableFuture[REQUESTS];
+
+        for (int i = 0; i < REQUESTS; i++) {
+            inFlight.acquire();
+            futures[i] = send(path).whenComplete((result, e) -> {
+                inFlight.release();
+                if (e == null) {
+                    responded.incrementAndGet();
+                }
+                if (e == null && result.isReserved()) {
+                    reserved.incrementAndGet();
+                }
+            });
+        }
+        CompletableFuture.allOf(futures).join();
+        return new LoadResult(responded.get(), reserved.get());
+    }
+
+    private CompletableFuture<StockReserveResult> send(String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> parse(response.body()));
+    }
+
+    private StockReserveResult parse(String body) {
+        try {
+            return objectMapper.readValue(body, StockReserveResult.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class LoadResult {
+        private final int responded;
+        private final int reserved;
+
+        LoadResult(int responded, int reserved) {
+            this.responded = responded;
+            this.reserved = reserved;
+        }
+    }
+}
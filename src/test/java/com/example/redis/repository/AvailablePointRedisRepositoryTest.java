@@ -1,12 +1,21 @@
 package com.example.redis.repository;
 
 import com.example.redis.model.AvailablePoint;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.redis.DataRedisTest;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import java.util.SplittableRandom;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -18,6 +27,9 @@ public class AvailablePointRedisRepositoryTest {
     @Autowired
     private AvailablePointRedisRepository availablePointRedisRepository;
 
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
     @Test
     public void saveAndFindTest() {
         String randomId = createId();
@@ -35,6 +47,29 @@ public class AvailablePointRedisRepositoryTest {
 
         assertThat(resAvailablePoint).isNotNull();
         assertThat(resAvailablePoint.getPoint()).isEqualTo(1L);
+        assertThat(resAvailablePoint.getRefreshTime()).isEqualTo(now);
+
+        availablePointRedisRepository.delete(availablePoint);
+    }
+
+    /**
+     * refreshTime 이 ISO 문자열로 저장된 기존 hash 도 조회 가능
+     */
+    @Test
+    public void legacyRefreshTimeTest() {
+        String randomId = createId();
+        LocalDateTime now = LocalDateTime.now();
+        stringRedisTemplate.opsForHash().putAll("test:point:available:" + randomId, Map.of(
+                "_class", AvailablePoint.class.getName(),
+                "id", randomId,
+                "point", "10",
+                "refreshTime", now.toString()));
+
+        AvailablePoint resAvailablePoint = availablePointRedisRepository.findById(randomId).get();
+        assertThat(resAvailablePoint.getPoint()).isEqualTo(10L);
+        assertThat(resAvailablePoint.getRefreshTime()).isEqualTo(now);
+
+        stringRedisTemplate.delete("test:point:available:" + randomId);
     }
 
 
@@ -67,4 +102,82 @@ public class AvailablePointRedisRepositoryTest {
 
         availablePointRedisRepository.delete(availablePoint);
     }
+
+    @Test
+    @DisplayName("userName 인덱스 조회: 파이프라인 조회, 페이지, stream 결과가 findByUserName 과 같음")
+    public void findAllByUserNameTest() {
+        String userName = "test19001";
+        List<AvailablePoint> availablePoints = IntStream.range(0, 1200)
+                .mapToObj(i -> AvailablePoint.builder()
+                        .id("19001-" + i)
+                        .userName(userName)
+                        .point((long) i)
+                        .refreshTime(LocalDateTime.now())
+                        .build())
+                .collect(Collectors.toList());
+        availablePointRedisRepository.saveAll(availablePoints);
+
+        try {
+            List<AvailablePoint> derived = availablePointRedisRepository.findByUserName(userName).get();
+            List<AvailablePoint> pipelined = availablePointRedisRepository.findAllByUserName(userName);
+
+            assertThat(ids(pipelined)).hasSize(1200).containsExactlyInAnyOrderElementsOf(ids(derived));
+            assertThat(pipelined)
+                    .allSatisfy(point -> {
+                        assertThat(point.getUserName()).isEqualTo(userName);
+                        assertThat(point.getId()).isEqualTo("19001-" + point.getPoint());
+                        assertThat(point.getRefreshTime()).isNotNull();
+                    });
+
+            Page<AvailablePoint> page = availablePointRedisRepository.findPageByUserName(userName, PageRequest.of(1, 100));
+            assertThat(page.getTotalElements()).isEqualTo(1200);
+            assertThat(page.getContent()).hasSize(100);
+            assertThat(ids(page.getContent())).isSorted();
+
+            try (Stream<AvailablePoint> stream = availablePointRedisRepository.streamByUserName(userName, 100)) {
+                assertThat(stream.map(AvailablePoint::getId).collect(Collectors.toList()))
+                        .hasSize(1200).doesNotHaveDuplicates();
+            }
+        } finally {
+            availablePointRedisRepository.deleteAll(availablePoints);
+        }
+    }
+
+    @Test
+    @DisplayName("userName 이 그대로면 인덱스 재작성 없이 저장, 바뀌면 인덱스 이동")
+    public void saveIndexUpdateTest() {
+        String randomId = createId();
+        availablePointRedisRepository.save(AvailablePoint.builder()
+                .id(randomId)
+                .userName("test19002")
+                .point(1L)
+                .refreshTime(LocalDateTime.now())
+                .build());
+
+        // refreshTime 이 null 이 되면 필드도 제거
+        availablePointRedisRepository.save(AvailablePoint.builder()
+                .id(randomId)
+                .userName("test19002")
+                .point(2L)
+                .build());
+        AvailablePoint resAvailablePoint = availablePointRedisRepository.findById(randomId).get();
+        assertThat(resAvailablePoint.getPoint()).isEqualTo(2L);
+        assertThat(resAvailablePoint.getRefreshTime()).isNull();
+        assertThat(ids(availablePointRedisRepository.findAllByUserName("test19002"))).contains(randomId);
+
+        AvailablePoint moved = AvailablePoint.builder()
+                .id(randomId)
+                .userName("test19003")
+                .point(3L)
+                .build();
+        availablePointRedisRepository.save(moved);
+        assertThat(ids(availablePointRedisRepository.findAllByUserName("test19002"))).doesNotContain(randomId);
+        assertThat(ids(availablePointRedisRepository.findAllByUserName("test19003"))).contains(randomId);
+
+        availablePointRedisRepository.delete(moved);
+    }
+
+    private List<String> ids(List<AvailablePoint> availablePoints) {
+        return availablePoints.stream().map(AvailablePoint::getId).collect(Collectors.toList());
+    }
 }
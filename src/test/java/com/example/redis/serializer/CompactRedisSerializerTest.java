@@ -0,0 +1,100 @@
+package com.example.redis.serializer;
+
+import com.example.redis.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+public class CompactRedisSerializerTest {
+
+    private static final String KEY = "test:compact:user";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisTemplate<String, User> userJsonRedisTemplate;
+
+    private final Jackson2JsonRedisSerializer<User> jsonSerializer = new Jackson2JsonRedisSerializer<>(User.class);
+    private final CompactRedisSerializer<User> compactSerializer =
+            new CompactRedisSerializer<>(new UserCodec(), jsonSerializer, true);
+
+    @AfterEach
+    public void finish() {
+        stringRedisTemplate.delete(KEY);
+    }
+
+    @Test
+    @DisplayName("압축 형식은 JSON 보다 작고 같은 값으로 복원")
+    public void roundTripTest() {
+        User user = User.builder().name("홍길동").phone("010-1234-5678").build();
+
+        byte[] compact = compactSerializer.serialize(user);
+        byte[] json = jsonSerializer.serialize(user);
+
+        assertThat(compact[0]).isEqualTo(CompactRedisSerializer.MAGIC);
+        // [MAGIC][version] + (길이 1 + 이름 9) + (길이 1 + 전화번호 13)
+        assertThat(compact.length).isEqualTo(26);
+        assertThat(compact.length).isLessThan(json.length);
+        User res = compactSerializer.deserialize(compact);
+        assertThat(res.getName()).isEqualTo("홍길동");
+        assertThat(res.getPhone()).isEqualTo("010-1234-5678");
+
+        User empty = compactSerializer.deserialize(compactSerializer.serialize(new User()));
+        assertThat(empty.getName()).isNull();
+        assertThat(empty.getPhone()).isNull();
+    }
+
+    @Test
+    @DisplayName("기존 JSON 으로 저장된 값도 읽음")
+    public void legacyJsonTest() {
+        stringRedisTemplate.opsForValue().set(KEY, "{\"name\":\"test1\",\"phone\":\"111-2222-3333\"}");
+
+        User user = userJsonRedisTemplate.opsForValue().get(KEY);
+        assertThat(user.getName()).isEqualTo("test1");
+        assertThat(user.getPhone()).isEqualTo("111-2222-3333");
+    }
+
+    @Test
+    @DisplayName("json 쓰기 설정이어도 압축 형식 값을 읽음")
+    public void jsonWriterReadsCompactTest() {
+        CompactRedisSerializer<User> jsonWriter = new CompactRedisSerializer<>(new UserCodec(), jsonSerializer, false);
+        User user = User.builder().name("test2").phone("222-3333-4444").build();
+
+        assertThat(jsonWriter.serialize(user)).isEqualTo(jsonSerializer.serialize(user));
+        assertThat(jsonWriter.deserialize(compactSerializer.serialize(user)).getName()).isEqualTo("test2");
+    }
+
+    @Test
+    @DisplayName("모르는 버전은 SerializationException")
+    public void unknownVersionTest() {
+        byte[] bytes = compactSerializer.serialize(User.builder().name("test3").build());
+        bytes[1] = 2;
+
+        assertThatThrownBy(() -> compactSerializer.deserialize(bytes)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    @DisplayName("LocalDateTime 압축 형식과 ISO 문자열 모두 읽음")
+    public void localDateTimeTest() {
+        LocalDateTime now = LocalDateTime.now();
+
+        byte[] compact = LocalDateTimeConverters.LocalDateTimeToCompactBytesConverter.INSTANCE.convert(now);
+        assertThat(compact.length).isLessThan(now.toString().length());
+        assertThat(LocalDateTimeConverters.BytesToLocalDateTimeConverter.INSTANCE.convert(compact)).isEqualTo(now);
+        assertThat(LocalDateTimeConverters.BytesToLocalDateTimeConverter.INSTANCE.convert(now.toString().getBytes()))
+                .isEqualTo(now);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.redis.service;
+
+import com.example.redis.model.AvailablePoint;
+import com.example.redis.repository.AvailablePointRedisRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AvailablePointBulkServiceTest {
+
+    private static final int RECORDS = 3000;
+
+    @Autowired
+    private AvailablePointBulkService availablePointBulkService;
+
+    @Autowired
+    private AvailablePointRedisRepository availablePointRedisRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @AfterEach
+    public void finish() {
+        availablePointRedisRepository.deleteAllById(IntStream.range(0, RECORDS)
+                .mapToObj(i -> "20001-" + i)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("NDJSON 일괄 적재 후 인덱스 조회 결과가 같고, 추출하면 적재한 줄이 모두 나옴")
+    public void importExportTest() throws Exception {
+        LocalDateTime refreshTime = LocalDateTime.of(2022, 3, 10, 12, 34, 56);
+        String ndjson = IntStream.range(0, RECORDS)
+                .mapToObj(i -> String.format("{\"id\":\"20001-%d\",\"userName\":\"test2000%d\",\"point\":%d,\"refreshTime\":\"%s\"}",
+                        i, i % 3, i, refreshTime))
+                .collect(Collectors.joining("\n")) + "\nnot json\n";
+
+        BulkImportResult result = availablePointBulkService.importPoints(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), BulkFormat.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(RECORDS);
+        assertThat(result.getSkipped()).isEqualTo(1);
+        assertThat(availablePointRedisRepository.findByUserName("test20001").get()).hasSize(RECORDS / 3);
+        AvailablePoint availablePoint = availablePointRedisRepository.findById("20001-7").get();
+        assertThat(availablePoint.getPoint()).isEqualTo(7L);
+        assertThat(availablePoint.getRefreshTime()).isEqualTo(refreshTime);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        availablePointBulkService.exportPoints(out);
+        List<String> lines = Arrays.asList(out.toString(StandardCharsets.UTF_8).split("\n"));
+        List<String> exported = lines.stream()
+                .filter(line -> line.contains("\"id\":\"20001-"))
+                .collect(Collectors.toList());
+        assertThat(exported).hasSize(RECORDS).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("CSV 재적재시 userName 이 바뀐 엔티티는 이전 인덱스에서 제거")
+    public void csvReimportTest() throws Exception {
+        availablePointBulkService.importPoints(new ByteArrayInputStream(
+                "id,userName,point,refreshTime\n20001-0,test20010,1,\n20001-1,test20010,2,\n".getBytes(StandardCharsets.UTF_8)),
+                BulkFormat.CSV);
+        assertThat(availablePointRedisRepository.findByUserName("test20010").get()).hasSize(2);
+
+        mockMvc.perform(post("/points/import").param("format", "CSV")
+                        .content("20001-1,test20011,3,2022-03-10T12:00:00\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1));
+
+        assertThat(availablePointRedisRepository.findByUserName("test20010").get())
+                .extracting(AvailablePoint::getId).containsExactly("20001-0");
+        assertThat(availablePointRedisRepository.findByUserName("test20011").get())
+                .extracting(AvailablePoint::getPoint).containsExactly(3L);
+    }
+}
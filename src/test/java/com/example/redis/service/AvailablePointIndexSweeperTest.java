@@ -0,0 +1,108 @@
+package com.example.redis.service;
+
+import com.example.redis.model.AvailablePoint;
+import com.example.redis.repository.AvailablePointRedisRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "product.point.sweeper.enabled=false")
+public class AvailablePointIndexSweeperTest {
+
+    private static final String KEY_PREFIX = "test:point:available:";
+
+    @Autowired
+    private AvailablePointIndexSweeper availablePointIndexSweeper;
+
+    @Autowired
+    private AvailablePointRedisRepository availablePointRedisRepository;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void finish() {
+        availablePointRedisRepository.deleteAllById(List.of("21001", "21002", "21003", "21004"));
+    }
+
+    @Test
+    @DisplayName("refreshTime + 보관 기간으로 만료 시간 설정 (save, on-change 저장, 일괄 저장)")
+    public void timeToLiveTest() {
+        LocalDateTime refreshTime = LocalDateTime.now().minus(AvailablePoint.getRetention()).plusHours(1);
+
+        availablePointRedisRepository.save(availablePoint("21001", refreshTime));
+        availablePointRedisRepository.save(availablePoint("21001", refreshTime));
+        availablePointRedisRepository.saveAllPipelined(List.of(availablePoint("21002", refreshTime)));
+        availablePointRedisRepository.save(availablePoint("21003", null));
+
+        assertThat(stringRedisTemplate.getExpire(KEY_PREFIX + "21001", TimeUnit.SECONDS)).isBetween(3500L, 3600L);
+        assertThat(stringRedisTemplate.getExpire(KEY_PREFIX + "21002", TimeUnit.SECONDS)).isBetween(3500L, 3600L);
+        assertThat(stringRedisTemplate.getExpire(KEY_PREFIX + "21003", TimeUnit.SECONDS)).isEqualTo(-1L);
+    }
+
+    @Test
+    @DisplayName("보관 기간이 이미 지난 레코드는 expired-grace 후 만료 (재저장, 일괄 저장)")
+    public void expiredRefreshTimeTest() {
+        LocalDateTime refreshTime = LocalDateTime.now().minus(AvailablePoint.getRetention()).minusDays(1);
+
+        availablePointRedisRepository.save(availablePoint("21001", LocalDateTime.now()));
+        availablePointRedisRepository.save(availablePoint("21001", refreshTime));
+        availablePointRedisRepository.saveAllPipelined(List.of(availablePoint("21002", refreshTime)));
+
+        assertThat(stringRedisTemplate.getExpire(KEY_PREFIX + "21001", TimeUnit.SECONDS)).isBetween(3500L, 3600L);
+        assertThat(stringRedisTemplate.getExpire(KEY_PREFIX + "21002", TimeUnit.SECONDS)).isBetween(3500L, 3600L);
+        assertThat(availablePointRedisRepository.findById("21002")).isPresent();
+    }
+
+    @Test
+    @DisplayName("만료된 엔티티의 keyspace set, 인덱스, 키:idx 정리")
+    public void sweepTest() throws InterruptedException {
+        // 보관 기간이 곧 끝나는 엔티티는 2초 후 만료, hash 만 삭제되고 인덱스는 남음
+        availablePointRedisRepository.save(availablePoint("21004",
+                LocalDateTime.now().minus(AvailablePoint.getRetention()).plusSeconds(2)));
+        availablePointRedisRepository.save(availablePoint("21001", LocalDateTime.now()));
+        assertThat(stringRedisTemplate.hasKey(KEY_PREFIX + "21004:idx")).isTrue();
+        Thread.sleep(3100);
+        assertThat(stringRedisTemplate.hasKey(KEY_PREFIX + "21004")).isFalse();
+
+        // 다른 테스트 context 의 스케줄 정리와 겹칠 수 있으므로 정리된 결과만 확인
+        double scanned = meterRegistry.get("point.sweeper.scanned").counter().count();
+        availablePointIndexSweeper.sweep();
+        for (int i = 0; i < 100 && stringRedisTemplate.opsForSet().isMember("test:point:available", "21004"); i++) {
+            // 한 바퀴 중이면 cursor 는 레디스에 저장되어 다음 실행에서 이어서 확인
+            String cursor = stringRedisTemplate.opsForValue().get("test:point:available:sweeper:cursor");
+            assertThat(cursor == null || !"0".equals(cursor)).isTrue();
+            availablePointIndexSweeper.sweep();
+        }
+
+        assertThat(meterRegistry.get("point.sweeper.scanned").counter().count()).isGreaterThan(scanned);
+        assertThat(stringRedisTemplate.opsForSet().isMember("test:point:available", "21004")).isFalse();
+        assertThat(stringRedisTemplate.opsForSet().isMember(KEY_PREFIX + "userName:test21001", "21004")).isFalse();
+        assertThat(stringRedisTemplate.hasKey(KEY_PREFIX + "21004:idx")).isFalse();
+        // 만료되지 않은 엔티티는 유지
+        assertThat(stringRedisTemplate.opsForSet().isMember("test:point:available", "21001")).isTrue();
+        assertThat(stringRedisTemplate.opsForSet().isMember(KEY_PREFIX + "userName:test21001", "21001")).isTrue();
+    }
+
+    private AvailablePoint availablePoint(String id, LocalDateTime refreshTime) {
+        return AvailablePoint.builder()
+                .id(id)
+                .userName("test21001")
+                .point(1L)
+                .refreshTime(refreshTime)
+                .build();
+    }
+}
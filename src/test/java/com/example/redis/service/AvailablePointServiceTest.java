@@ -0,0 +1,113 @@
+package com.example.redis.service;
+
+import com.example.redis.model.AvailablePoint;
+import com.example.redis.repository.AvailablePointRedisRepository;
+import com.example.redis.util.NearCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class AvailablePointServiceTest {
+
+    private static final String ID = "18001";
+
+    @Autowired
+    private AvailablePointService availablePointService;
+
+    @Autowired
+    private AvailablePointRedisRepository availablePointRedisRepository;
+
+    @Autowired
+    private NearCache<String, Optional<AvailablePoint>> availablePointNearCache;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void finish() {
+        availablePointRedisRepository.deleteById(ID);
+    }
+
+    @Test
+    @DisplayName("반복 조회는 near-cache 에서 응답")
+    public void cacheHitTest() {
+        availablePointService.save(availablePoint(100L));
+        assertThat(availablePointNearCache.isEnabled()).isTrue();
+
+        double hits = gets("hit");
+        for (int i = 0; i < 10; i++) {
+            assertThat(availablePointService.findById(ID).get().getPoint()).isEqualTo(100L);
+        }
+
+        assertThat(gets("hit") - hits).isGreaterThanOrEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("다른 클라이언트가 변경하면 무효화 메시지로 새 값을 조회")
+    public void invalidationTest() throws InterruptedException {
+        availablePointService.save(availablePoint(100L));
+        assertThat(availablePointService.findById(ID).get().getPoint()).isEqualTo(100L);
+
+        // near-cache 를 거치지 않는 변경 (다른 노드)
+        stringRedisTemplate.opsForHash().put("test:point:available:" + ID, "point", "200");
+
+        assertThat(awaitPoint(200L)).isTrue();
+
+        stringRedisTemplate.delete("test:point:available:" + ID);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (availablePointService.findById(ID).isPresent() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(availablePointService.findById(ID)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("없는 id 도 캐시하고 생성되면 무효화")
+    public void negativeCacheTest() throws InterruptedException {
+        assertThat(availablePointService.findById(ID)).isEmpty();
+
+        availablePointRedisRepository.save(availablePoint(300L));
+
+        assertThat(awaitPoint(300L)).isTrue();
+    }
+
+    private boolean awaitPoint(long point) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            Optional<AvailablePoint> res = availablePointService.findById(ID);
+            if (res.isPresent() && res.get().getPoint() == point) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("near.cache.gets").tag("cache", "availablePoint").tag("result", result)
+                .functionCounter().count();
+    }
+
+    private AvailablePoint availablePoint(long point) {
+        return AvailablePoint.builder()
+                .id(ID)
+                .userName("test18001")
+                .point(point)
+                .refreshTime(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.redis.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import javax.annotation.Resource;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class LocalStockLeaseServiceTest {
+
+    @Autowired
+    private LocalStockLeaseService localStockLeaseService;
+
+    @Resource(name = "incrRedisTemplate")
+    private ValueOperations<String, Long> valusOps;
+
+    @Autowired
+    private RedisTemplate<String, Long> incrRedisTemplate;
+
+    @BeforeEach
+    public void init() {
+        valusOps.increment("PRODUCT:STOCKED:12001", 1000);
+    }
+
+    @AfterEach
+    public void finish() {
+        incrRedisTemplate.delete("PRODUCT:STOCKED:12001");
+        incrRedisTemplate.delete("PRODUCT:LEASE:SOLD:12001");
+    }
+
+    @Test
+    @DisplayName("대량건의 로컬 임대재고 차감 테스트(오버셀 없음)")
+    public void reserve_multiTest() throws InterruptedException {
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(30);
+        IntStream.range(0, 1200).forEach(i -> {
+            executor.execute(() -> {
+                if (localStockLeaseService.reserve("12001", 1).isReserved()) {
+                    reserved.incrementAndGet();
+                }
+            });
+        });
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        localStockLeaseService.release();
+
+        assertThat(reserved.get()).isEqualTo(1000);
+        assertThat(valusOps.get("PRODUCT:STOCKED:12001")).isEqualTo(0);
+        assertThat(valusOps.get("PRODUCT:LEASE:SOLD:12001")).isEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("구매 수량이 0 이하면 임대재고를 차감하지 않음")
+    public void invalidQuantityTest() {
+        assertThat(localStockLeaseService.reserve("12001", 0)).isEqualTo(StockReserveResult.INVALID_QUANTITY);
+        assertThat(localStockLeaseService.reserve("12001", -5)).isEqualTo(StockReserveResult.INVALID_QUANTITY);
+
+        localStockLeaseService.release();
+
+        assertThat(valusOps.get("PRODUCT:STOCKED:12001")).isEqualTo(1000);
+        assertThat(valusOps.get("PRODUCT:LEASE:SOLD:12001")).isNull();
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.redis.service;
+
+import com.example.redis.model.ProductOrder;
+import com.example.redis.repository.ProductOrderRepository;
+import com.example.redis.util.ProductKeys;
+import com.example.redis.util.SoldOutRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.groups.Tuple.tuple;
+
+@SpringBootTest(properties = {
+        "product.order-events.stream=" + OrderPersistenceWorkerTest.STREAM,
+        "product.order-events.worker.enabled=false"
+})
+@ActiveProfiles("h2")
+public class OrderPersistenceWorkerTest {
+
+    static final String STREAM = "PRODUCT:ORDER:EVENTS:TEST";
+    private static final String PROD_ID = "25001";
+
+    @Autowired
+    private OrderPersistenceWorker orderPersistenceWorker;
+
+    @Autowired
+    private OrderEventPublisher orderEventPublisher;
+
+    @Autowired
+    private ProductQuantityService productQuantityService;
+
+    @Autowired
+    private ProductOrderRepository productOrderRepository;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisTemplate<String, Long> incrRedisTemplate;
+
+    @Autowired
+    private ProductKeys productKeys;
+
+    @Autowired
+    private SoldOutRegistry soldOutRegistry;
+
+    @Autowired
+    private LocalStockLeaseService localStockLeaseService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void init() {
+        stringRedisTemplate.delete(STREAM);
+        productOrderRepository.deleteAll();
+        // stream 이 지워져 group 이 없으므로 다시 생성
+        orderPersistenceWorker.poll();
+        incrRedisTemplate.opsForValue().set(productKeys.stockKey(PROD_ID), 10L);
+    }
+
+    @AfterEach
+    public void finish() {
+        ReflectionTestUtils.setField(orderPersistenceWorker, "minIdleMillis", 30000L);
+        ReflectionTestUtils.setField(orderPersistenceWorker, "transactionTemplate", transactionTemplate);
+        stringRedisTemplate.delete(STREAM);
+        stringRedisTemplate.delete(STREAM + ":DLQ");
+        incrRedisTemplate.delete(productKeys.stockKey(PROD_ID));
+        incrRedisTemplate.delete(productKeys.leaseSoldKey(PROD_ID));
+        soldOutRegistry.reset(PROD_ID);
+    }
+
+    @Test
+    @DisplayName("차감 성공 이벤트를 stream 에서 읽어 DB 에 저장하고 ack")
+    public void persistTest() {
+        assertThat(productQuantityService.reserveStock(PROD_ID, 1)).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(productQuantityService.reserveStock(PROD_ID, 2)).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(productQuantityService.reserveStock(PROD_ID, 30)).isEqualTo(StockReserveResult.INSUFFICIENT_QUANTITY);
+
+        assertThat(orderPersistenceWorker.poll()).isEqualTo(2);
+
+        assertThat(productOrderRepository.countByProdId(PROD_ID)).isEqualTo(2);
+        assertThat(productOrderRepository.findAll())
+                .filteredOn(order -> order.getProdId().equals(PROD_ID))
+                .extracting(ProductOrder::getQuantity, ProductOrder::getStrategy)
+                .containsExactlyInAnyOrder(tuple(1, "reserve"), tuple(2, "reserve"));
+        assertThat(stringRedisTemplate.opsForStream().size(STREAM)).isZero();
+        assertThat(stringRedisTemplate.opsForStream().pending(STREAM, "order-writer").getTotalPendingMessages()).isZero();
+    }
+
+    @Test
+    @DisplayName("저장 전에 죽은 consumer 가 읽은 이벤트는 min-idle 이후 가져와 저장")
+    public void reclaimTest() {
+        productQuantityService.reserveStock(PROD_ID, 1);
+        productQuantityService.reserveStock(PROD_ID, 1);
+        assertThat(stringRedisTemplate.opsForStream().read(Consumer.from("order-writer", "crashed"),
+                StreamReadOptions.empty().count(10), StreamOffset.create(STREAM, ReadOffset.lastConsumed()))).hasSize(2);
+
+        assertThat(orderPersistenceWorker.poll()).isZero();
+        assertThat(orderPersistenceWorker.reclaim()).isZero();
+
+        ReflectionTestUtils.setField(orderPersistenceWorker, "minIdleMillis", 0L);
+        assertThat(orderPersistenceWorker.reclaim()).isEqualTo(2);
+
+        assertThat(productOrderRepository.countByProdId(PROD_ID)).isEqualTo(2);
+        assertThat(stringRedisTemplate.opsForStream().pending(STREAM, "order-writer").getTotalPendingMessages()).isZero();
+    }
+
+    @Test
+    @DisplayName("이미 저장된 이벤트를 다시 받으면 저장하지 않고 ack")
+    public void duplicateTest() {
+        RecordId recordId = stringRedisTemplate.opsForStream().add(StreamRecords.string(Map.of(
+                "p", PROD_ID, "o", "order-1", "q", "3", "s", "orderReserve",
+                "t", Long.toString(System.currentTimeMillis()))).withStreamKey(STREAM));
+        productOrderRepository.save(ProductOrder.builder()
+                .eventId(recordId.getValue())
+                .orderId("order-1")
+                .prodId(PROD_ID)
+                .quantity(3)
+                .strategy("orderReserve")
+                .orderedAt(LocalDateTime.now())
+                .build());
+
+        assertThat(orderPersistenceWorker.poll()).isEqualTo(1);
+
+        assertThat(productOrderRepository.countByProdId(PROD_ID)).isEqualTo(1);
+        assertThat(stringRedisTemplate.opsForStream().size(STREAM)).isZero();
+    }
+
+    @Test
+    @DisplayName("발행 측이 같은 이벤트를 다시 XADD 해도 한 건만 저장")
+    public void republishTest() {
+        Map<String, String> event = orderEventPublisher.event("reserve", PROD_ID, null, 2);
+        orderEventPublisher.publish("reserve", PROD_ID, null, 1);
+        orderEventPublisher.publishAll(List.of(event));
+        orderEventPublisher.publishAll(List.of(event));
+
+        assertThat(orderPersistenceWorker.poll()).isEqualTo(3);
+        orderEventPublisher.publishAll(List.of(event));
+        assertThat(orderPersistenceWorker.poll()).isEqualTo(1);
+
+        assertThat(productOrderRepository.findAll())
+                .filteredOn(order -> order.getProdId().equals(PROD_ID))
+                .extracting(ProductOrder::getQuantity)
+                .containsExactlyInAnyOrder(1, 2);
+        assertThat(stringRedisTemplate.opsForStream().size(STREAM)).isZero();
+    }
+
+    @Test
+    @DisplayName("로컬 임대 재고 판매도 반영 주기마다 주문 이벤트로 저장")
+    public void leaseTest() {
+        assertThat(localStockLeaseService.reserve(PROD_ID, 2)).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(localStockLeaseService.reserve(PROD_ID, 3)).isEqualTo(StockReserveResult.RESERVED);
+        localStockLeaseService.release();
+
+        orderPersistenceWorker.poll();
+
+        assertThat(productOrderRepository.findAll())
+                .filteredOn(order -> order.getProdId().equals(PROD_ID))
+                .isNotEmpty()
+                .allSatisfy(order -> assertThat(order.getStrategy()).isEqualTo("lease"));
+        // 반영 주기가 중간에 돌면 이벤트가 나뉘므로 합계로 확인
+        assertThat(productOrderRepository.sumStockQuantities(List.of(PROD_ID)))
+                .extracting(ProductOrderRepository.ProductQuantity::getQuantity)
+                .containsExactly(5L);
+        assertThat(incrRedisTemplate.opsForValue().get(productKeys.leaseSoldKey(PROD_ID))).isEqualTo(5);
+        assertThat(incrRedisTemplate.opsForValue().get(productKeys.stockKey(PROD_ID))).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("읽을 수 없는 이벤트는 dead-letter stream 으로 이동")
+    public void deadLetterTest() {
+        stringRedisTemplate.opsForStream().add(StreamRecords.string(Map.of("p", PROD_ID, "q", "x"))
+                .withStreamKey(STREAM));
+
+        assertThat(orderPersistenceWorker.poll()).isEqualTo(1);
+
+        assertThat(productOrderRepository.countByProdId(PROD_ID)).isZero();
+        assertThat(stringRedisTemplate.opsForStream().size(STREAM)).isZero();
+        assertThat(stringRedisTemplate.opsForStream().size(STREAM + ":DLQ")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("DB 장애 중에는 전달 횟수와 관계없이 pending 으로 남기고, 복구 후 다시 저장")
+    public void databaseOutageTest() {
+        productQuantityService.reserveStock(PROD_ID, 1);
+        productQuantityService.reserveStock(PROD_ID, 2);
+        ReflectionTestUtils.setField(orderPersistenceWorker, "transactionTemplate", new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                throw new CannotCreateTransactionException("database is down");
+            }
+        });
+        ReflectionTestUtils.setField(orderPersistenceWorker, "minIdleMillis", 0L);
+
+        assertThatThrownBy(() -> orderPersistenceWorker.poll()).isInstanceOf(CannotCreateTransactionException.class);
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> orderPersistenceWorker.reclaim()).isInstanceOf(CannotCreateTransactionException.class);
+        }
+        assertThat(stringRedisTemplate.opsForStream().pending(STREAM, "order-writer").getTotalPendingMessages()).isEqualTo(2);
+        assertThat(stringRedisTemplate.hasKey(STREAM + ":DLQ")).isFalse();
+
+        ReflectionTestUtils.setField(orderPersistenceWorker, "transactionTemplate", transactionTemplate);
+        assertThat(orderPersistenceWorker.reclaim()).isEqualTo(2);
+
+        assertThat(productOrderRepository.countByProdId(PROD_ID)).isEqualTo(2);
+        assertThat(stringRedisTemplate.opsForStream().size(STREAM)).isZero();
+        assertThat(stringRedisTemplate.opsForStream().pending(STREAM, "order-writer").getTotalPendingMessages()).isZero();
+    }
+
+    @Test
+    @DisplayName("DB 가 거부하는 이벤트만 dead-letter stream 으로 옮기고 같은 batch 의 다른 이벤트는 저장")
+    public void rejectedTest() {
+        orderEventPublisher.publish("reserve", PROD_ID, null, 1);
+        // strategy 컬럼 길이(32) 초과
+        orderEventPublisher.publish("s".repeat(40), PROD_ID, null, 2);
+
+        assertThat(orderPersistenceWorker.poll()).isEqualTo(2);
+
+        assertThat(productOrderRepository.findAll())
+                .filteredOn(order -> order.getProdId().equals(PROD_ID))
+                .extracting(ProductOrder::getQuantity)
+                .containsExactly(1);
+        assertThat(stringRedisTemplate.opsForStream().size(STREAM)).isZero();
+        assertThat(stringRedisTemplate.opsForStream().size(STREAM + ":DLQ")).isEqualTo(1);
+    }
+}
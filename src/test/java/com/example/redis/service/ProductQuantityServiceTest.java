@@ -1,5 +1,10 @@
 package com.example.redis.service;
 
+import com.example.redis.util.ProductKeys;
+import com.example.redis.util.SoldOutRegistry;
+import com.example.redis.util.StockSnapshot;
+import io.lettuce.core.cluster.SlotHash;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -9,11 +14,18 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import javax.annotation.Resource;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -34,6 +46,24 @@ public class ProductQuantityServiceTest {
     @Autowired
     private StringRedisTemplate stringRedisTemplate;
 
+    @Autowired
+    private ProductKeys productKeys;
+
+    @Autowired
+    private StockSnapshot stockSnapshot;
+
+    @Autowired
+    private SoldOutRegistry soldOutRegistry;
+
+    @Autowired
+    private StockBatchDispatcher stockBatchDispatcher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RedisScript<List> stockSellBatchScript;
+
     @BeforeEach
     public void init() {
         /**
@@ -48,6 +78,13 @@ public class ProductQuantityServiceTest {
     public void finish() {
         incrRedisTemplate.delete("PRODUCT:STOCKED:11001");
         incrRedisTemplate.delete("PRODUCT:STOCKED:11002");
+        IntStream.range(0, productKeys.getOrderShards()).forEach(shard -> {
+            stringRedisTemplate.delete(productKeys.orderSoldKey("11002", shard));
+            stringRedisTemplate.delete(productKeys.orderShardKey("11002", shard));
+        });
+        stockSnapshot.invalidateAll();
+        soldOutRegistry.reset("11001");
+        soldOutRegistry.reset("11002");
     }
 
     @Test
@@ -70,14 +107,76 @@ public class ProductQuantityServiceTest {
     }
 
     @Test
-    @DisplayName("단건 set구조 제고처리 테스트")
+    @DisplayName("단건 주문번호 제고처리 테스트")
     public void procBuyStock_set_shortTest() {
         productQuantityService.procBuyStock("OR0001", "11002", 10000, 10);
 
-        Long res = stringRedisTemplate.opsForSet().size("PRODUCT:SET:STOCKED:11002");
-        stringRedisTemplate.opsForSet().remove("PRODUCT:SET:STOCKED:11002", "OR0001");
+        String shardKey = productKeys.orderShardKey("11002", productKeys.orderShard("OR0001"));
+        assertThat(stringRedisTemplate.opsForHash().get(shardKey, "OR0001")).isEqualTo("10");
+        // 자기 shard 몫 안이면 그 shard 의 판매수량만 증가
+        String soldKey = productKeys.orderSoldKey("11002", productKeys.orderShard("OR0001"));
+        assertThat(stringRedisTemplate.opsForValue().get(soldKey)).isEqualTo("10");
+        assertThat(productQuantityService.getOrderSold("11002")).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("같은 주문번호는 한번만 반영, 복수 수량 주문은 수량만큼 판매")
+    public void procBuyStock_duplicateTest() {
+        productQuantityService.procBuyStock("OR0001", "11002", 10, 3);
+        productQuantityService.procBuyStock("OR0001", "11002", 10, 3);
+        assertThat(productQuantityService.reserveOrder("OR0001", "11002", 10, 3))
+                .isEqualTo(StockReserveResult.DUPLICATE_ORDER);
+        productQuantityService.procBuyStock("OR0002", "11002", 10, 7);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> productQuantityService.procBuyStock("OR0003", "11002", 10, 1));
+
+        assertThat(exception.getMessage()).isEqualTo("[제고부족]");
+        assertThat(productQuantityService.getOrderSold("11002")).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("shard 몫을 넘는 주문은 다른 shard 의 남은 몫을 사용, 합계는 판매 가능 수량을 넘지 않음")
+    public void reserveOrder_shareTest() {
+        int shards = productKeys.getOrderShards();
+        // 주문 하나가 shard 몫(1)보다 많은 수량
+        assertThat(productQuantityService.reserveOrder("OR0001", "11002", shards, shards - 1))
+                .isEqualTo(StockReserveResult.RESERVED);
+        assertThat(productQuantityService.reserveOrder("OR0002", "11002", shards, 2))
+                .isEqualTo(StockReserveResult.INSUFFICIENT_QUANTITY);
+        assertThat(productQuantityService.reserveOrder("OR0002", "11002", shards, 1))
+                .isEqualTo(StockReserveResult.RESERVED);
+        assertThat(productQuantityService.reserveOrder("OR0003", "11002", shards, 1))
+                .isEqualTo(StockReserveResult.OUT_OF_STOCK);
+
+        assertThat(productQuantityService.getOrderSold("11002")).isEqualTo(shards);
+        IntStream.range(0, shards).forEach(shard -> assertThat(
+                stringRedisTemplate.opsForValue().get(productKeys.orderSoldKey("11002", shard))).isEqualTo("1"));
+    }
 
-        assertThat(res).isEqualTo(1);
+    @Test
+    @DisplayName("대량건의 주문번호 제고처리: 중복 재요청이 섞여도 판매 가능 수량을 넘지 않음")
+    public void procBuyStock_multiTest() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(30);
+        IntStream.range(0, 400).forEach(i -> executor.execute(() -> {
+            try {
+                // 주문번호 200개를 두번씩 요청
+                productQuantityService.procBuyStock("OR" + (i % 200), "11002", 1000, 2 + i % 200 % 3);
+            } catch (IllegalStateException e) {
+                // 재고부족, 판매수량부족
+            }
+        }));
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        long stored = 0;
+        for (int shard = 0; shard < productKeys.getOrderShards(); shard++) {
+            stored += stringRedisTemplate.opsForHash().values(productKeys.orderShardKey("11002", shard)).stream()
+                    .mapToLong(quantity -> Long.parseLong((String) quantity))
+                    .sum();
+        }
+        long sold = productQuantityService.getOrderSold("11002");
+        assertThat(sold).isLessThanOrEqualTo(1000).isEqualTo(stored);
     }
 
     @Test
@@ -114,6 +213,66 @@ public class ProductQuantityServiceTest {
         assertThat(res).isEqualTo(1000);
     }
 
+    @Test
+    @DisplayName("대량건의 제고증가 micro-batching 테스트(오버셀 없음, 레디스 호출 감소)")
+    public void procBuyIncrement_batchTest() throws InterruptedException {
+        long batches = meterRegistry.get("stock.batch.size").summary().count();
+        AtomicInteger sold = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(30);
+        IntStream.range(0, 200).forEach(i -> {
+            executor.execute(() -> {
+                try {
+                    productQuantityService.procBuyIncrement_batch("11002", 1000, 10);
+                    sold.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    // 재고부족
+                }
+            });
+        });
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertThat(valusOps.get("PRODUCT:STOCKED:11002")).isEqualTo(1000);
+        assertThat(sold.get()).isEqualTo(100);
+        assertThat(meterRegistry.get("stock.batch.size").summary().count() - batches).isLessThan(200);
+    }
+
+    @Test
+    @DisplayName("한 batch 의 요청은 도착 순서대로 판매 수량 배정")
+    public void stockBatchDispatcher_orderTest() {
+        valusOps.set("PRODUCT:STOCKED:11002", 0L);
+        Object window = ReflectionTestUtils.getField(stockBatchDispatcher, "windowMicros");
+        ReflectionTestUtils.setField(stockBatchDispatcher, "windowMicros", 100_000L);
+        try {
+            CompletableFuture<StockReserveResult> first = stockBatchDispatcher.sell("11002", 10, 6);
+            CompletableFuture<StockReserveResult> second = stockBatchDispatcher.sell("11002", 10, 6);
+            CompletableFuture<StockReserveResult> third = stockBatchDispatcher.sell("11002", 10, 4);
+
+            assertThat(first.join()).isEqualTo(StockReserveResult.RESERVED);
+            assertThat(second.join()).isEqualTo(StockReserveResult.INSUFFICIENT_QUANTITY);
+            assertThat(third.join()).isEqualTo(StockReserveResult.RESERVED);
+            assertThat(stockBatchDispatcher.sell("11002", 10, 1).join()).isEqualTo(StockReserveResult.OUT_OF_STOCK);
+        } finally {
+            ReflectionTestUtils.setField(stockBatchDispatcher, "windowMicros", window);
+        }
+        assertThat(valusOps.get("PRODUCT:STOCKED:11002")).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("batch 판매: 구매 수량이 0 이하인 요청은 판매수량에 반영하지 않고, 실행한 batch 는 map 에서 제거")
+    public void stockBatchDispatcher_invalidQuantityTest() {
+        assertThat(stockBatchDispatcher.sell("11002", 10, 0).join()).isEqualTo(StockReserveResult.INVALID_QUANTITY);
+        assertThat(stockBatchDispatcher.sell("11002", 10, -5).join()).isEqualTo(StockReserveResult.INVALID_QUANTITY);
+
+        // 스크립트를 직접 호출해도 음수 수량이 뒤 요청의 판매 가능 수량을 늘리지 않음
+        List<Long> res = incrRedisTemplate.execute(stockSellBatchScript, List.of("PRODUCT:STOCKED:11002"), 10L, -5L, 10L, 12L);
+        assertThat(res).containsExactly(0L, 6L, 2L);
+
+        assertThat(stockBatchDispatcher.sell("11002", 10, 10).join()).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(valusOps.get("PRODUCT:STOCKED:11002")).isEqualTo(10);
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(stockBatchDispatcher, "batches")).isEmpty();
+    }
+
     @Test
     @DisplayName("대량건의 제고증가 락 처리 테스트")
     public void procBuyIncrement_multiLockTest() throws InterruptedException {
@@ -154,6 +313,24 @@ public class ProductQuantityServiceTest {
         assertThat(res).isEqualTo(1000);
     }
 
+    @Test
+    @DisplayName("재고부족을 확인한 상품은 lock, 레디스 조회 없이 거절")
+    public void buyIncrement_soldOutSnapshotTest() throws InterruptedException {
+        valusOps.set("PRODUCT:STOCKED:11002", 1000L);
+        assertThrows(IllegalStateException.class, () -> productQuantityService.buyIncrement_localLock("11002", 1000, 10));
+        assertThat(stockSnapshot.isSoldOut("11002", 1000)).isTrue();
+
+        // 스냅샷 ttl 동안은 레디스 값이 바뀌어도 거절, 무효화 후에는 다시 조회
+        valusOps.set("PRODUCT:STOCKED:11002", 0L);
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> productQuantityService.buyIncrement_stampedLock("11002", 1000, 10));
+        assertThat(exception.getMessage()).isEqualTo("[제고부족]");
+        stockSnapshot.invalidate("11002");
+        productQuantityService.buyIncrement_stampedLock("11002", 1000, 10);
+
+        assertThat(valusOps.get("PRODUCT:STOCKED:11002")).isEqualTo(10);
+    }
+
     @Test
     @DisplayName("대량건의 제고증가 분산락 처리 테스트")
     public void buyIncrement_distributedLockTest() throws InterruptedException {
@@ -169,7 +346,145 @@ public class ProductQuantityServiceTest {
             });
         });
 
-        Thread.sleep(1000);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        Long res = valusOps.get("PRODUCT:STOCKED:11002");
+        assertThat(res).isEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("단건 스크립트 제고감소 테스트")
+    public void reserveStock_shortTest() {
+        StockReserveResult result = productQuantityService.reserveStock("11001", 10);
+
+        Long res = valusOps.get("PRODUCT:STOCKED:11001");
+
+        assertThat(result).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(res).isEqualTo(9990);
+    }
+
+    @Test
+    @DisplayName("단건 스크립트 제고감소 판매수량부족")
+    public void reserveStock_shortTest_판매수량부족() {
+        StockReserveResult result = productQuantityService.reserveStock("11001", 10001);
+
+        assertThat(result).isEqualTo(StockReserveResult.INSUFFICIENT_QUANTITY);
+        assertThat(valusOps.get("PRODUCT:STOCKED:11001")).isEqualTo(10000);
+    }
+
+    @Test
+    @DisplayName("단건 스크립트 제고감소 0 이하 수량은 차감하지 않음")
+    public void reserveStock_shortTest_구매수량오류() {
+        assertThat(productQuantityService.reserveStock("11001", -5)).isEqualTo(StockReserveResult.INVALID_QUANTITY);
+        assertThat(productQuantityService.reserveStock("11001", 0)).isEqualTo(StockReserveResult.INVALID_QUANTITY);
+        assertThat(productQuantityService.sellStock("11002", 1000, -5)).isEqualTo(StockReserveResult.INVALID_QUANTITY);
+
+        assertThat(valusOps.get("PRODUCT:STOCKED:11001")).isEqualTo(10000);
+        assertThat(valusOps.get("PRODUCT:STOCKED:11002")).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("대량건의 스크립트 제고감소 테스트(오버셀 없음)")
+    public void reserveStock_multiTest() throws InterruptedException {
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(30);
+        IntStream.range(0, 1100).forEach(i -> {
+            executor.execute(() -> {
+                if (productQuantityService.reserveStock("11001", 10).isReserved()) {
+                    reserved.incrementAndGet();
+                }
+            });
+        });
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        Long res = valusOps.get("PRODUCT:STOCKED:11001");
+        assertThat(res).isEqualTo(0);
+        assertThat(reserved.get()).isEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("장바구니 제고감소 테스트")
+    public void reserveCart_test() {
+        valusOps.increment("PRODUCT:STOCKED:11003", 5);
+
+        CartReserveResult result = productQuantityService.reserveCart(List.of(
+                new CartLine("11001", 10),
+                new CartLine("11003", 5)));
+
+        assertThat(result.isReserved()).isTrue();
+        assertThat(valusOps.get("PRODUCT:STOCKED:11001")).isEqualTo(9990);
+        assertThat(valusOps.get("PRODUCT:STOCKED:11003")).isEqualTo(0);
+        incrRedisTemplate.delete("PRODUCT:STOCKED:11003");
+    }
+
+    @Test
+    @DisplayName("장바구니 제고감소 판매수량부족시 전체 미차감")
+    public void reserveCart_test_판매수량부족() {
+        CartReserveResult result = productQuantityService.reserveCart(List.of(
+                new CartLine("11001", 10),
+                new CartLine("11001", 9991)));
+
+        assertThat(result.isReserved()).isFalse();
+        assertThat(result.getLineResults()).containsOnly(StockReserveResult.INSUFFICIENT_QUANTITY);
+        assertThat(valusOps.get("PRODUCT:STOCKED:11001")).isEqualTo(10000);
+    }
+
+    @Test
+    @DisplayName("장바구니 제고감소 재고부족 라인만 원인으로 보고, 나머지 라인은 미차감")
+    public void reserveCart_test_미차감() {
+        CartReserveResult result = productQuantityService.reserveCart(List.of(
+                new CartLine("11001", 10),
+                new CartLine("11003", 1)));
+
+        assertThat(result.isReserved()).isFalse();
+        assertThat(result.getLineResults())
+                .containsExactly(StockReserveResult.NOT_RESERVED, StockReserveResult.OUT_OF_STOCK);
+        assertThat(valusOps.get("PRODUCT:STOCKED:11001")).isEqualTo(10000);
+    }
+
+    @Test
+    @DisplayName("슬롯별 장바구니 차감: 모든 슬롯이 충분하면 전부 차감")
+    public void reserveCartBySlot_test() {
+        valusOps.increment("PRODUCT:STOCKED:11003", 5);
+
+        CartReserveResult result = productQuantityService.reserveCartBySlot(List.of(
+                new CartLine("11001", 10),
+                new CartLine("11003", 5),
+                new CartLine("11001", 1)));
+
+        assertThat(result.isReserved()).isTrue();
+        assertThat(valusOps.get("PRODUCT:STOCKED:11001")).isEqualTo(9989);
+        assertThat(valusOps.get("PRODUCT:STOCKED:11003")).isEqualTo(0);
+        incrRedisTemplate.delete("PRODUCT:STOCKED:11003");
+    }
+
+    @Test
+    @DisplayName("슬롯별 장바구니 차감: 한 슬롯이라도 부족하면 차감된 슬롯 복구")
+    public void reserveCartBySlot_test_제고부족() {
+        assertThat(SlotHash.getSlot("PRODUCT:STOCKED:11001")).isNotEqualTo(SlotHash.getSlot("PRODUCT:STOCKED:11002"));
+
+        CartReserveResult result = productQuantityService.reserveCartBySlot(List.of(
+                new CartLine("11001", 10),
+                new CartLine("11002", 1)));
+
+        assertThat(result.isReserved()).isFalse();
+        assertThat(result.getLineResults()).containsExactly(StockReserveResult.NOT_RESERVED, StockReserveResult.OUT_OF_STOCK);
+        assertThat(valusOps.get("PRODUCT:STOCKED:11001")).isEqualTo(10000);
+        assertThat(valusOps.get("PRODUCT:STOCKED:11002")).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("대량건의 제고증가 트랜잭션 처리 테스트(충돌시 재시도)")
+    public void procBuyIncrement_transactionMultiTest() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        IntStream.range(0, 100).forEach(i -> {
+            executor.execute(() ->
+                    productQuantityService.procBuyIncrement_transaction("11002", 1000, 10));
+        });
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
         Long res = valusOps.get("PRODUCT:STOCKED:11002");
         assertThat(res).isEqualTo(1000);
     }
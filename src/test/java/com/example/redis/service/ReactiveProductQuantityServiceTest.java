@@ -0,0 +1,112 @@
+package com.example.redis.service;
+
+import com.example.redis.util.SoldOutRegistry;
+import io.lettuce.core.cluster.SlotHash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.Resource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class ReactiveProductQuantityServiceTest {
+
+    @Autowired
+    private ReactiveProductQuantityService reactiveProductQuantityService;
+
+    @Resource(name = "incrRedisTemplate")
+    private ValueOperations<String, Long> valusOps;
+
+    @Autowired
+    private RedisTemplate<String, Long> incrRedisTemplate;
+
+    @Autowired
+    private SoldOutRegistry soldOutRegistry;
+
+    @BeforeEach
+    public void init() {
+        valusOps.increment("PRODUCT:STOCKED:15001", 1000);
+        valusOps.increment("PRODUCT:STOCKED:15002", 0);
+    }
+
+    @AfterEach
+    public void finish() {
+        incrRedisTemplate.delete("PRODUCT:STOCKED:15001");
+        incrRedisTemplate.delete("PRODUCT:STOCKED:15002");
+        soldOutRegistry.reset("15001");
+        soldOutRegistry.reset("15002");
+    }
+
+    @Test
+    @DisplayName("reactive 단건 재고 차감")
+    public void reserveStock_shortTest() {
+        StockReserveResult result = reactiveProductQuantityService.reserveStock("15001", 10).block();
+
+        assertThat(result).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(valusOps.get("PRODUCT:STOCKED:15001")).isEqualTo(990);
+    }
+
+    @Test
+    @DisplayName("reactive 대량건 재고 차감(오버셀 없음)")
+    public void reserveStock_multiTest() {
+        List<StockReserveResult> results = Flux.range(0, 1200)
+                .flatMap(i -> reactiveProductQuantityService.reserveStock("15001", 1), 256)
+                .collectList()
+                .block();
+
+        assertThat(results).filteredOn(StockReserveResult::isReserved).hasSize(1000);
+        assertThat(results).filteredOn(result -> result == StockReserveResult.OUT_OF_STOCK).hasSize(200);
+        assertThat(valusOps.get("PRODUCT:STOCKED:15001")).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("reactive 장바구니 차감: 한 상품이라도 부족하면 전체 미차감")
+    public void reserveCart_shortTest() {
+        CartReserveResult result = reactiveProductQuantityService.reserveCart(List.of(
+                CartLine.builder().prodId("15001").quantity(10).build(),
+                CartLine.builder().prodId("15002").quantity(1).build())).block();
+
+        assertThat(result.isReserved()).isFalse();
+        assertThat(result.getLineResults()).containsExactly(StockReserveResult.NOT_RESERVED, StockReserveResult.OUT_OF_STOCK);
+        assertThat(valusOps.get("PRODUCT:STOCKED:15001")).isEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("reactive 슬롯별 장바구니 차감: 한 슬롯이라도 부족하면 차감된 슬롯 복구")
+    public void reserveCartBySlot_shortTest() {
+        assertThat(SlotHash.getSlot("PRODUCT:STOCKED:15001")).isNotEqualTo(SlotHash.getSlot("PRODUCT:STOCKED:15002"));
+
+        CartReserveResult result = reactiveProductQuantityService.reserveCartBySlot(List.of(
+                CartLine.builder().prodId("15001").quantity(10).build(),
+                CartLine.builder().prodId("15002").quantity(1).build())).block();
+
+        assertThat(result.isReserved()).isFalse();
+        assertThat(result.getLineResults()).containsExactly(StockReserveResult.NOT_RESERVED, StockReserveResult.OUT_OF_STOCK);
+        assertThat(valusOps.get("PRODUCT:STOCKED:15001")).isEqualTo(1000);
+
+        valusOps.increment("PRODUCT:STOCKED:15002", 1);
+        assertThat(reactiveProductQuantityService.reserveCartBySlot(List.of(
+                CartLine.builder().prodId("15001").quantity(10).build(),
+                CartLine.builder().prodId("15002").quantity(1).build())).block().isReserved()).isTrue();
+        assertThat(valusOps.get("PRODUCT:STOCKED:15001")).isEqualTo(990);
+        assertThat(valusOps.get("PRODUCT:STOCKED:15002")).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("reactive 판매수량 증가")
+    public void sellStock_shortTest() {
+        StockReserveResult result = reactiveProductQuantityService.sellStock("15002", 10, 3).block();
+
+        assertThat(result).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(valusOps.get("PRODUCT:STOCKED:15002")).isEqualTo(3);
+    }
+}
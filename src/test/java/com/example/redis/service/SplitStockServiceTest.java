@@ -0,0 +1,199 @@
+package com.example.redis.service;
+
+import com.example.redis.model.ProductStock;
+import com.example.redis.repository.ProductStockRepository;
+import com.example.redis.util.ProductKeys;
+import com.example.redis.util.SoldOutRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+public class SplitStockServiceTest {
+
+    private static final String PROD_ID = "23001";
+    private static final String PLAIN_PROD_ID = "23002";
+
+    @Autowired
+    private SplitStockService splitStockService;
+
+    @Autowired
+    private ProductQuantityService productQuantityService;
+
+    @Autowired
+    private RedisTemplate<String, Long> incrRedisTemplate;
+
+    @Autowired
+    private ReactiveProductQuantityService reactiveProductQuantityService;
+
+    @Autowired
+    private LocalStockLeaseService localStockLeaseService;
+
+    @Autowired
+    private StockReconciler stockReconciler;
+
+    @Autowired
+    private ProductStockRepository productStockRepository;
+
+    @Autowired
+    private ProductKeys productKeys;
+
+    @Autowired
+    private SoldOutRegistry soldOutRegistry;
+
+    @BeforeEach
+    public void init() {
+        incrRedisTemplate.opsForValue().set(productKeys.stockKey(PROD_ID), 100L);
+        splitStockService.flagHot(PROD_ID);
+    }
+
+    @AfterEach
+    public void finish() {
+        splitStockService.unflagHot(PROD_ID);
+        soldOutRegistry.reset(PROD_ID);
+        incrRedisTemplate.delete(productKeys.stockKey(PROD_ID));
+        incrRedisTemplate.delete(productKeys.stockKey(PLAIN_PROD_ID));
+        incrRedisTemplate.delete(productKeys.leaseSoldKey(PROD_ID));
+        productStockRepository.findById(PROD_ID).ifPresent(productStockRepository::delete);
+        IntStream.range(0, productKeys.getStockCounters())
+                .forEach(i -> incrRedisTemplate.delete(productKeys.stockCounterKey(PROD_ID, i)));
+    }
+
+    @Test
+    @DisplayName("hot 상품은 분할 카운터에서 차감하고 조회는 합계")
+    public void reserveTest() {
+        assertThat(splitStockService.isHot(PROD_ID)).isTrue();
+
+        for (int i = 0; i < 30; i++) {
+            assertThat(productQuantityService.reserveStock(PROD_ID, 2, "user" + i)).isEqualTo(StockReserveResult.RESERVED);
+        }
+
+        assertThat(productQuantityService.getStock(PROD_ID)).isEqualTo(40);
+        assertThat(incrRedisTemplate.opsForValue().get(productKeys.stockKey(PROD_ID))).isLessThan(40);
+    }
+
+    @Test
+    @DisplayName("카운터가 부족하면 다른 카운터에서 덜어와 차감")
+    public void rebalanceTest() {
+        incrRedisTemplate.opsForValue().set(productKeys.stockKey(PROD_ID), 0L);
+        incrRedisTemplate.opsForValue().set(productKeys.stockCounterKey(PROD_ID, 0), 5L);
+        incrRedisTemplate.opsForValue().set(productKeys.stockCounterKey(PROD_ID, 1), 5L);
+
+        assertThat(splitStockService.reserve(PROD_ID, 8, 2)).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(splitStockService.availableStock(PROD_ID)).isEqualTo(2);
+        assertThat(splitStockService.reserve(PROD_ID, 3, 2)).isEqualTo(StockReserveResult.INSUFFICIENT_QUANTITY);
+        assertThat(splitStockService.reserve(PROD_ID, 2, 5)).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(splitStockService.reserve(PROD_ID, 1, 5)).isEqualTo(StockReserveResult.OUT_OF_STOCK);
+    }
+
+    @Test
+    @DisplayName("hot 상품은 카운터 합계가 0 일 때만 품절로 기록, 재입고하면 해제")
+    public void soldOutTest() {
+        incrRedisTemplate.opsForValue().set(productKeys.stockKey(PROD_ID), 0L);
+        incrRedisTemplate.opsForValue().set(productKeys.stockCounterKey(PROD_ID, 0), 1L);
+
+        assertThat(productQuantityService.reserveStock(PROD_ID, 1)).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(soldOutRegistry.isSoldOut(PROD_ID)).isFalse();
+        assertThat(productQuantityService.reserveStock(PROD_ID, 1)).isEqualTo(StockReserveResult.OUT_OF_STOCK);
+        assertThat(soldOutRegistry.isSoldOut(PROD_ID)).isTrue();
+
+        productQuantityService.replenishStock(PROD_ID, 3);
+        assertThat(soldOutRegistry.isSoldOut(PROD_ID)).isFalse();
+        assertThat(productQuantityService.reserveStock(PROD_ID, 2, "user")).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(productQuantityService.getStock(PROD_ID)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("동시 차감시 재고 수량만큼만 차감")
+    public void reserve_multiTest() throws InterruptedException {
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 300; i++) {
+            executorService.execute(() -> {
+                if (splitStockService.reserve(PROD_ID, 1).isReserved()) {
+                    reserved.incrementAndGet();
+                }
+            });
+        }
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(reserved.get()).isEqualTo(100);
+        assertThat(splitStockService.availableStock(PROD_ID)).isZero();
+    }
+
+    @Test
+    @DisplayName("hot 지정 해제시 카운터 재고를 기존 재고 키로 되돌림")
+    public void unflagHotTest() {
+        productQuantityService.reserveStock(PROD_ID, 10);
+
+        splitStockService.unflagHot(PROD_ID);
+
+        assertThat(splitStockService.isHot(PROD_ID)).isFalse();
+        assertThat(incrRedisTemplate.opsForValue().get(productKeys.stockKey(PROD_ID))).isEqualTo(90);
+        assertThat(productQuantityService.reserveStock(PROD_ID, 90)).isEqualTo(StockReserveResult.RESERVED);
+    }
+
+    @Test
+    @DisplayName("장바구니, reactive 차감도 분할 카운터 사용 (기존 재고 키가 비어도 차감)")
+    public void reserveCartTest() {
+        incrRedisTemplate.opsForValue().set(productKeys.stockKey(PROD_ID), 0L);
+        incrRedisTemplate.opsForValue().set(productKeys.stockCounterKey(PROD_ID, 0), 5L);
+        incrRedisTemplate.opsForValue().set(productKeys.stockKey(PLAIN_PROD_ID), 5L);
+
+        CartReserveResult result = productQuantityService.reserveCart(List.of(
+                new CartLine(PLAIN_PROD_ID, 2), new CartLine(PROD_ID, 2)));
+        assertThat(result.isReserved()).isTrue();
+        assertThat(reactiveProductQuantityService.reserveStock(PROD_ID, 1).block()).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(reactiveProductQuantityService.reserveCart(List.of(new CartLine(PROD_ID, 1))).block().isReserved()).isTrue();
+        assertThat(splitStockService.availableStock(PROD_ID)).isEqualTo(1);
+
+        // hot 라인이 부족하면 먼저 차감한 일반 라인도 되돌림
+        result = productQuantityService.reserveCart(List.of(new CartLine(PLAIN_PROD_ID, 2), new CartLine(PROD_ID, 2)));
+        assertThat(result.getLineResults())
+                .containsExactly(StockReserveResult.NOT_RESERVED, StockReserveResult.INSUFFICIENT_QUANTITY);
+        assertThat(incrRedisTemplate.opsForValue().get(productKeys.stockKey(PLAIN_PROD_ID))).isEqualTo(3);
+        assertThat(splitStockService.availableStock(PROD_ID)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("로컬 임대는 카운터 재고까지 임대하고, 반납은 기존 재고 키로")
+    public void leaseTest() {
+        incrRedisTemplate.opsForValue().set(productKeys.stockKey(PROD_ID), 0L);
+        incrRedisTemplate.opsForValue().set(productKeys.stockCounterKey(PROD_ID, 3), 5L);
+
+        assertThat(localStockLeaseService.reserve(PROD_ID, 2)).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(splitStockService.availableStock(PROD_ID)).isZero();
+
+        localStockLeaseService.release();
+        assertThat(incrRedisTemplate.opsForValue().get(productKeys.stockKey(PROD_ID))).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("재고 키를 판매 수량으로 쓰는 경로는 hot 상품을 거절, 판매 수량 방식 상품은 hot 지정 불가")
+    public void soldCountingTest() {
+        assertThrows(IllegalStateException.class, () -> productQuantityService.sellStock(PROD_ID, 100, 1));
+        assertThrows(IllegalStateException.class, () -> productQuantityService.procBuyIncrement_batch(PROD_ID, 100, 1));
+        assertThrows(IllegalStateException.class,
+                () -> reactiveProductQuantityService.sellStock(PROD_ID, 100, 1).block());
+
+        splitStockService.unflagHot(PROD_ID);
+        stockReconciler.register(PROD_ID, 100, ProductStock.Counting.SOLD);
+        assertThrows(IllegalStateException.class, () -> splitStockService.flagHot(PROD_ID));
+        assertThat(splitStockService.isHot(PROD_ID)).isFalse();
+    }
+}
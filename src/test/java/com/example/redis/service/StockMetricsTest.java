@@ -0,0 +1,74 @@
+package com.example.redis.service;
+
+import com.example.redis.util.SoldOutRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItems;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class StockMetricsTest {
+
+    @Autowired
+    private ProductQuantityService productQuantityService;
+
+    @Autowired
+    private RedisTemplate<String, Long> incrRedisTemplate;
+
+    @Autowired
+    private SoldOutRegistry soldOutRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @AfterEach
+    public void finish() {
+        incrRedisTemplate.delete("PRODUCT:STOCKED:22001");
+        soldOutRegistry.reset("22001");
+    }
+
+    @Test
+    @DisplayName("재고 처리 방식, 결과별 처리 시간과 레디스 명령별 지연 시간 기록")
+    public void stockOperationMetricsTest() throws Exception {
+        incrRedisTemplate.opsForValue().set("PRODUCT:STOCKED:22001", 10L);
+
+        productQuantityService.reserveStock("22001", 10);
+        productQuantityService.reserveStock("22001", 1);
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> productQuantityService.procBuyQuantity("22001", 1));
+
+        assertThat(exception.getMessage()).isEqualTo("[제고부족]");
+        assertThat(operationCount("reserve", "reserved")).isGreaterThanOrEqualTo(1);
+        assertThat(operationCount("reserve", "out_of_stock")).isGreaterThanOrEqualTo(1);
+        assertThat(operationCount("quantity", "out_of_stock")).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("lettuce.command.completion").tag("command", "EVALSHA").timer().count())
+                .isGreaterThanOrEqualTo(2);
+
+        mockMvc.perform(get("/actuator/metrics/stock.operation").param("tag", "strategy:reserve"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availableTags[?(@.tag == 'outcome')].values[*]")
+                        .value(hasItems("reserved", "out_of_stock")));
+        mockMvc.perform(get("/actuator/metrics/redis.transaction"))
+                .andExpect(status().isOk());
+    }
+
+    private long operationCount(String strategy, String outcome) {
+        return meterRegistry.get("stock.operation").tags("strategy", strategy, "outcome", outcome).timer().count();
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.redis.service;
+
+import com.example.redis.model.ProductOrder;
+import com.example.redis.model.ProductStock;
+import com.example.redis.repository.ProductOrderRepository;
+import com.example.redis.repository.ProductStockRepository;
+import com.example.redis.util.ProductKeys;
+import com.example.redis.util.SoldOutRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "product.reconcile.enabled=false",
+        "product.reconcile.correct=true",
+        "product.reconcile.confirm-delay-ms=0",
+        "product.reconcile.max-keys-per-run=1000000"
+})
+@ActiveProfiles("h2")
+public class StockReconcilerTest {
+
+    private static final List<String> PROD_IDS = List.of("25101", "25102", "25103");
+
+    @Autowired
+    private StockReconciler stockReconciler;
+
+    @Autowired
+    private ProductQuantityService productQuantityService;
+
+    @Autowired
+    private ProductStockRepository productStockRepository;
+
+    @Autowired
+    private ProductOrderRepository productOrderRepository;
+
+    @Autowired
+    private RedisTemplate<String, Long> incrRedisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ProductKeys productKeys;
+
+    @Autowired
+    private SoldOutRegistry soldOutRegistry;
+
+    @AfterEach
+    public void finish() {
+        PROD_IDS.forEach(prodId -> {
+            incrRedisTemplate.delete(productKeys.stockKey(prodId));
+            IntStream.range(0, productKeys.getOrderShards())
+                    .forEach(shard -> stringRedisTemplate.delete(productKeys.orderSoldKey(prodId, shard)));
+            soldOutRegistry.reset(prodId);
+        });
+        productStockRepository.deleteAll(productStockRepository.findAllById(PROD_IDS));
+        productOrderRepository.deleteAll(productOrderRepository.findAll().stream()
+                .filter(order -> PROD_IDS.contains(order.getProdId()))
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("남은 재고 = 입고 수량 - 판매 수량, 같은 차이가 유지되면 DB 기준 값으로 보정")
+    public void correctTest() {
+        stockReconciler.register("25101", 10, ProductStock.Counting.REMAINING);
+        saveOrder("25101", null, 3, "reserve");
+        // 주문번호 방식은 별도 판매 수량 키를 쓰므로 재고 키 기준 값에서 제외
+        saveOrder("25101", "order-1", 5, "orderReserve");
+        incrRedisTemplate.opsForValue().set(productKeys.stockKey("25101"), 9L);
+
+        Optional<StockDrift> first = drift("25101", StockDrift.Type.STOCK);
+        assertThat(first).isPresent();
+        assertThat(first.get().getRedisValue()).isEqualTo(9);
+        assertThat(first.get().getExpectedValue()).isEqualTo(7);
+        assertThat(first.get().isCorrected()).isFalse();
+
+        assertThat(drift("25101", StockDrift.Type.STOCK).map(StockDrift::isCorrected)).contains(true);
+        assertThat(incrRedisTemplate.opsForValue().get(productKeys.stockKey("25101"))).isEqualTo(7);
+        assertThat(drift("25101", StockDrift.Type.STOCK)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("DB 판매 수량이 적어 판매 가능 수량이 늘어나는 방향은 보정하지 않음")
+    public void notRaisedTest() {
+        stockReconciler.register("25101", 10, ProductStock.Counting.REMAINING);
+        saveOrder("25101", null, 3, "reserve");
+        incrRedisTemplate.opsForValue().set(productKeys.stockKey("25101"), 5L);
+        stockReconciler.register("25102", 10, ProductStock.Counting.SOLD);
+        saveOrder("25102", null, 2, "sell");
+        incrRedisTemplate.opsForValue().set(productKeys.stockKey("25102"), 4L);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(drift("25101", StockDrift.Type.STOCK).map(StockDrift::isCorrected)).contains(false);
+            assertThat(drift("25102", StockDrift.Type.STOCK).map(StockDrift::isCorrected)).contains(false);
+        }
+        assertThat(incrRedisTemplate.opsForValue().get(productKeys.stockKey("25101"))).isEqualTo(5);
+        assertThat(incrRedisTemplate.opsForValue().get(productKeys.stockKey("25102"))).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("확인 이후 레디스 값이 바뀌면 보정하지 않음")
+    public void changedValueTest() {
+        stockReconciler.register("25101", 10, ProductStock.Counting.REMAINING);
+        incrRedisTemplate.opsForValue().set(productKeys.stockKey("25101"), 5L);
+        assertThat(drift("25101", StockDrift.Type.STOCK)).isPresent();
+
+        incrRedisTemplate.opsForValue().decrement(productKeys.stockKey("25101"));
+
+        assertThat(drift("25101", StockDrift.Type.STOCK).map(StockDrift::isCorrected)).contains(false);
+        assertThat(incrRedisTemplate.opsForValue().get(productKeys.stockKey("25101"))).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("판매 수량 키는 DB 판매 수량과 비교")
+    public void soldTest() {
+        stockReconciler.register("25102", 10, ProductStock.Counting.SOLD);
+        saveOrder("25102", null, 2, "sell");
+        incrRedisTemplate.opsForValue().set(productKeys.stockKey("25102"), 2L);
+
+        assertThat(drift("25102", StockDrift.Type.STOCK)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("주문번호 방식 판매 수량(shard 합계)은 DB 의 orderReserve 수량과 비교")
+    public void ordersTest() {
+        stringRedisTemplate.opsForValue().set(productKeys.orderSoldKey("25103", 0), "3");
+        stringRedisTemplate.opsForValue().set(productKeys.orderSoldKey("25103", 5), "2");
+        saveOrder("25103", "order-1", 3, "orderReserve");
+        saveOrder("25103", null, 4, "reserve");
+
+        Optional<StockDrift> drift = drift("25103", StockDrift.Type.ORDERS);
+        assertThat(drift).isPresent();
+        assertThat(drift.get().getRedisValue()).isEqualTo(5);
+        assertThat(drift.get().getExpectedValue()).isEqualTo(3);
+        assertThat(drift.get().isCorrected()).isFalse();
+
+        saveOrder("25103", "order-2", 2, "orderReserve");
+        assertThat(drift("25103", StockDrift.Type.ORDERS)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("재입고시 기준 정보의 입고 수량도 추가")
+    public void replenishTest() {
+        stockReconciler.register("25101", 10, ProductStock.Counting.REMAINING);
+        incrRedisTemplate.opsForValue().set(productKeys.stockKey("25101"), 10L);
+
+        productQuantityService.replenishStock("25101", 5);
+
+        assertThat(productStockRepository.findById("25101").map(ProductStock::getTotalQuantity)).contains(15L);
+        assertThat(drift("25101", StockDrift.Type.STOCK)).isEmpty();
+    }
+
+    /**
+     * 한 바퀴 대조 후 해당 상품의 차이
+     */
+    private Optional<StockDrift> drift(String prodId, StockDrift.Type type) {
+        return stockReconciler.reconcile().stream()
+                .filter(drift -> drift.getProdId().equals(prodId) && drift.getType() == type)
+                .findFirst();
+    }
+
+    private void saveOrder(String prodId, String orderId, int quantity, String strategy) {
+        productOrderRepository.save(ProductOrder.builder()
+                .eventId(UUID.randomUUID().toString())
+                .orderId(orderId)
+                .prodId(prodId)
+                .quantity(quantity)
+                .strategy(strategy)
+                .orderedAt(LocalDateTime.now())
+                .build());
+    }
+}
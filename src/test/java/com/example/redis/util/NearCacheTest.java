@@ -0,0 +1,80 @@
+package com.example.redis.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NearCacheTest {
+
+    @Test
+    @DisplayName("최대 크기를 넘으면 오래 전에 조회된 키부터 제거")
+    public void sizeLimitTest() {
+        NearCache<String, String> nearCache = new NearCache<>("test", 160, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 1000; i++) {
+            nearCache.get("key" + i, key -> key);
+        }
+
+        assertThat(nearCache.size()).isLessThanOrEqualTo(160);
+    }
+
+    @Test
+    @DisplayName("ttl 이 지나면 다시 조회")
+    public void ttlTest() throws InterruptedException {
+        NearCache<String, String> nearCache = new NearCache<>("test", 100, Duration.ofMillis(50));
+        AtomicInteger loads = new AtomicInteger();
+
+        nearCache.get("key", key -> key + loads.incrementAndGet());
+        assertThat(nearCache.get("key", key -> key + loads.incrementAndGet())).isEqualTo("key1");
+        Thread.sleep(100);
+
+        assertThat(nearCache.get("key", key -> key + loads.incrementAndGet())).isEqualTo("key2");
+    }
+
+    @Test
+    @DisplayName("조회 중에 무효화되면 조회 결과를 저장하지 않음")
+    public void invalidateDuringLoadTest() {
+        NearCache<String, String> nearCache = new NearCache<>("test", 100, Duration.ofMinutes(1));
+
+        nearCache.get("key", key -> {
+            nearCache.invalidate(key);
+            return "stale";
+        });
+
+        assertThat(nearCache.get("key", key -> "fresh")).isEqualTo("fresh");
+    }
+
+    @Test
+    @DisplayName("조회 중에 다른 키가 무효화되어도 조회 결과는 저장, 전체 무효화면 저장하지 않음")
+    public void invalidateOtherKeyDuringLoadTest() {
+        NearCache<String, String> nearCache = new NearCache<>("test", 100, Duration.ofMinutes(1));
+
+        nearCache.get("key", key -> {
+            nearCache.invalidate("other");
+            return "v1";
+        });
+        assertThat(nearCache.get("key", key -> "v2")).isEqualTo("v1");
+
+        nearCache.get("all", key -> {
+            nearCache.invalidateAll();
+            return "stale";
+        });
+        assertThat(nearCache.get("all", key -> "fresh")).isEqualTo("fresh");
+    }
+
+    @Test
+    @DisplayName("disabled 이면 항상 loader 로 조회")
+    public void disabledTest() {
+        NearCache<String, String> nearCache = new NearCache<>("test", 100, Duration.ofMinutes(1));
+        nearCache.get("key", key -> "v1");
+
+        nearCache.setEnabled(false);
+
+        assertThat(nearCache.get("key", key -> "v2")).isEqualTo("v2");
+        assertThat(nearCache.size()).isZero();
+    }
+}
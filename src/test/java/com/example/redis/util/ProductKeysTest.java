@@ -0,0 +1,76 @@
+package com.example.redis.util;
+
+import io.lettuce.core.cluster.SlotHash;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class ProductKeysTest {
+
+    @Autowired
+    private ProductKeys productKeys;
+
+    @Test
+    @DisplayName("캐시된 키는 String.format 과 같은 키를 반환")
+    public void keysTest() {
+        assertThat(productKeys.stockKey("14001")).isEqualTo(String.format("%s:%s", "PRODUCT:STOCKED", "14001"));
+        assertThat(productKeys.lockKey("14001")).isEqualTo(String.format("%s:%s", "PRODUCT:LOCK", "14001"));
+        assertThat(productKeys.stockKey("14001")).isSameAs(productKeys.stockKey("14001"));
+    }
+
+    @Test
+    @DisplayName("hash-tag 사용시 한 상품의 키는 같은 슬롯에 배치")
+    public void hashTagKeysTest() {
+        ProductKeys hashTagKeys = new ProductKeys();
+        ReflectionTestUtils.setField(hashTagKeys, "hashTag", true);
+
+        assertThat(hashTagKeys.stockKey("14001")).isEqualTo("PRODUCT:STOCKED:{14001}");
+        int slot = SlotHash.getSlot(hashTagKeys.stockKey("14001"));
+        assertThat(SlotHash.getSlot(hashTagKeys.stockKeyBytes("14001"))).isEqualTo(slot);
+        assertThat(SlotHash.getSlot(hashTagKeys.orderSoldKey("14001", 3))).isEqualTo(slot);
+        assertThat(SlotHash.getSlot(hashTagKeys.orderShardKey("14001", 3))).isEqualTo(slot);
+        assertThat(SlotHash.getSlot(hashTagKeys.lockKey("14001"))).isEqualTo(slot);
+        assertThat(SlotHash.getSlot(hashTagKeys.leaseSoldKey("14001"))).isEqualTo(slot);
+    }
+
+    @Test
+    @DisplayName("분할 재고 카운터 키는 hash-tag 사용시에도 카운터마다 슬롯이 다름")
+    public void stockCounterKeysTest() {
+        ProductKeys hashTagKeys = new ProductKeys();
+        ReflectionTestUtils.setField(hashTagKeys, "hashTag", true);
+
+        assertThat(productKeys.stockCounterKey("14001", 3)).isEqualTo("PRODUCT:STOCKED:14001:3");
+        assertThat(hashTagKeys.stockCounterKey("14001", 3)).isEqualTo("PRODUCT:STOCKED:{14001:3}");
+        long slots = IntStream.range(0, hashTagKeys.getStockCounters())
+                .map(i -> SlotHash.getSlot(hashTagKeys.stockCounterKeyBytes("14001", i)))
+                .distinct()
+                .count();
+        assertThat(slots).isGreaterThan(1);
+    }
+
+    @Test
+    @DisplayName("재고 키에서 상품번호 추출 (카운터 키, 다른 prefix 제외)")
+    public void prodIdOfTest() {
+        ProductKeys hashTagKeys = new ProductKeys();
+        ReflectionTestUtils.setField(hashTagKeys, "hashTag", true);
+
+        assertThat(productKeys.prodIdOf("PRODUCT:STOCKED:14001", ProductKeys.STOCK_PREFIX)).isEqualTo("14001");
+        assertThat(productKeys.prodIdOf(productKeys.stockCounterKey("14001", 3), ProductKeys.STOCK_PREFIX)).isNull();
+        assertThat(productKeys.prodIdOf("PRODUCT:LOCK:14001", ProductKeys.STOCK_PREFIX)).isNull();
+
+        assertThat(hashTagKeys.prodIdOf("PRODUCT:STOCKED:{14001}", ProductKeys.STOCK_PREFIX)).isEqualTo("14001");
+        assertThat(hashTagKeys.prodIdOf(hashTagKeys.stockCounterKey("14001", 3), ProductKeys.STOCK_PREFIX)).isNull();
+        assertThat(hashTagKeys.prodIdOf("PRODUCT:STOCKED:14001", ProductKeys.STOCK_PREFIX)).isNull();
+
+        assertThat(productKeys.prodIdOf(productKeys.orderSoldKey("14001", 3), ProductKeys.ORDERS_SOLD_PREFIX)).isEqualTo("14001");
+        assertThat(hashTagKeys.prodIdOf(hashTagKeys.orderSoldKey("14001", 3), ProductKeys.ORDERS_SOLD_PREFIX)).isEqualTo("14001");
+        assertThat(productKeys.prodIdOf("PRODUCT:ORDERS:SOLD:14001", ProductKeys.ORDERS_SOLD_PREFIX)).isNull();
+    }
+}
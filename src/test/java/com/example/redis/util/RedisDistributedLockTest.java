@@ -0,0 +1,72 @@
+package com.example.redis.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class RedisDistributedLockTest {
+
+    @Autowired
+    private RedisDistributedLock redisDistributedLock;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @AfterEach
+    public void finish() {
+        stringRedisTemplate.delete("PRODUCT:LOCK:13001");
+    }
+
+    @Test
+    @DisplayName("소유자가 아닌 스레드는 락을 해제 할 수 없음")
+    public void unlockByOtherThreadTest() throws Exception {
+        assertThat(redisDistributedLock.tryLock("13001", 100, TimeUnit.MILLISECONDS)).isTrue();
+
+        CompletableFuture.runAsync(() -> redisDistributedLock.tryUnlock("13001")).get();
+        assertThat(stringRedisTemplate.hasKey("PRODUCT:LOCK:13001")).isTrue();
+
+        redisDistributedLock.tryUnlock("13001");
+        assertThat(stringRedisTemplate.hasKey("PRODUCT:LOCK:13001")).isFalse();
+    }
+
+    @Test
+    @DisplayName("대기자는 timeout 안에 락이 해제되면 락을 획득")
+    public void waitUntilUnlockTest() throws Exception {
+        assertThat(redisDistributedLock.tryLock("13001", 100, TimeUnit.MILLISECONDS)).isTrue();
+
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+            boolean isLock = redisDistributedLock.tryLock("13001", 3, TimeUnit.SECONDS);
+            if (isLock) {
+                redisDistributedLock.tryUnlock("13001");
+            }
+            return isLock;
+        });
+        Thread.sleep(300);
+        redisDistributedLock.tryUnlock("13001");
+
+        assertThat(waiter.get(3, TimeUnit.SECONDS)).isTrue();
+        assertThat(redisDistributedLock.waitingKeys()).isZero();
+    }
+
+    @Test
+    @DisplayName("timeout 으로 포기한 대기자도 대기열에 남지 않음")
+    public void waiterTimeoutTest() throws Exception {
+        assertThat(redisDistributedLock.tryLock("13001", 100, TimeUnit.MILLISECONDS)).isTrue();
+
+        boolean isLock = CompletableFuture.supplyAsync(() ->
+                redisDistributedLock.tryLock("13001", 100, TimeUnit.MILLISECONDS)).get();
+        redisDistributedLock.tryUnlock("13001");
+
+        assertThat(isLock).isFalse();
+        assertThat(redisDistributedLock.waitingKeys()).isZero();
+    }
+}
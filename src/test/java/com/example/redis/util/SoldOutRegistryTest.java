@@ -0,0 +1,109 @@
+package com.example.redis.util;
+
+import com.example.redis.service.ProductQuantityService;
+import com.example.redis.service.StockReserveResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class SoldOutRegistryTest {
+
+    @Autowired
+    private SoldOutRegistry soldOutRegistry;
+
+    @Autowired
+    private ProductQuantityService productQuantityService;
+
+    @Autowired
+    private RedisTemplate<String, Long> incrRedisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void finish() {
+        incrRedisTemplate.delete("PRODUCT:STOCKED:24001");
+        soldOutRegistry.reset("24001");
+    }
+
+    @Test
+    @DisplayName("재고부족을 확인한 상품은 재입고 전까지 레디스 호출 없이 거절")
+    public void soldOutTest() {
+        incrRedisTemplate.opsForValue().set("PRODUCT:STOCKED:24001", 1L);
+        assertThat(productQuantityService.reserveStock("24001", 1)).isEqualTo(StockReserveResult.RESERVED);
+        assertThat(productQuantityService.reserveStock("24001", 1)).isEqualTo(StockReserveResult.OUT_OF_STOCK);
+        assertThat(soldOutRegistry.isSoldOut("24001")).isTrue();
+
+        // 레디스에서 직접 바꾼 재고는 ttl 동안 반영되지 않음
+        incrRedisTemplate.opsForValue().set("PRODUCT:STOCKED:24001", 10L);
+        double rejected = meterRegistry.get("stock.soldout.rejected").functionCounter().count();
+        assertThat(productQuantityService.reserveStock("24001", 1)).isEqualTo(StockReserveResult.OUT_OF_STOCK);
+        assertThat(meterRegistry.get("stock.soldout.rejected").functionCounter().count()).isGreaterThan(rejected);
+        assertThat(incrRedisTemplate.opsForValue().get("PRODUCT:STOCKED:24001")).isEqualTo(10);
+
+        assertThat(productQuantityService.replenishStock("24001", 5)).isEqualTo(15);
+        assertThat(productQuantityService.reserveStock("24001", 1)).isEqualTo(StockReserveResult.RESERVED);
+    }
+
+    @Test
+    @DisplayName("판매 수량 방식의 재고부족은 전체 수량이 호출자마다 다르므로 품절로 기록하지 않음")
+    public void sellNotMarkedTest() {
+        incrRedisTemplate.opsForValue().set("PRODUCT:STOCKED:24001", 5L);
+        assertThat(productQuantityService.sellStock("24001", 5, 1)).isEqualTo(StockReserveResult.OUT_OF_STOCK);
+        assertThat(soldOutRegistry.isSoldOut("24001")).isFalse();
+
+        assertThat(productQuantityService.sellStock("24001", 10, 1)).isEqualTo(StockReserveResult.RESERVED);
+    }
+
+    @Test
+    @DisplayName("재입고 전에 시작한 요청의 재고부족 결과는 반영하지 않음")
+    public void staleResultTest() {
+        long start = System.nanoTime();
+        soldOutRegistry.reset("24001");
+
+        soldOutRegistry.markSoldOut("24001", start);
+        assertThat(soldOutRegistry.isSoldOut("24001")).isFalse();
+
+        soldOutRegistry.markSoldOut("24001", System.nanoTime());
+        assertThat(soldOutRegistry.isSoldOut("24001")).isTrue();
+    }
+
+    @Test
+    @DisplayName("다른 노드의 품절 알림 반영, 재입고 직후 도착한 이전 알림은 무시")
+    public void broadcastTest() throws InterruptedException {
+        // 최근에 재입고된 상품은 알림을 무시하므로 실행마다 다른 상품번호 사용
+        String prodId = "24002-" + System.nanoTime();
+        stringRedisTemplate.convertAndSend("PRODUCT:SOLDOUT:CHANNEL", "S" + prodId);
+        assertThat(await(() -> soldOutRegistry.isSoldOut(prodId))).isTrue();
+
+        stringRedisTemplate.convertAndSend("PRODUCT:SOLDOUT:CHANNEL", "R" + prodId);
+        assertThat(await(() -> !soldOutRegistry.isSoldOut(prodId))).isTrue();
+
+        stringRedisTemplate.convertAndSend("PRODUCT:SOLDOUT:CHANNEL", "S" + prodId);
+        Thread.sleep(300);
+        assertThat(soldOutRegistry.isSoldOut(prodId)).isFalse();
+    }
+
+    private boolean await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.redis.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StripedLocksTest {
+
+    @Test
+    @DisplayName("같은 상품은 같은 lock, stripe 수는 2의 제곱수로 올림")
+    public void stripeTest() {
+        StripedLocks stripedLocks = new StripedLocks(50);
+
+        assertThat(stripedLocks.size()).isEqualTo(64);
+        assertThat(stripedLocks.lock("11001")).isSameAs(stripedLocks.lock(new String("11001")));
+        assertThat(stripedLocks.stampedLock("11001")).isSameAs(stripedLocks.stampedLock("11001"));
+    }
+
+    @Test
+    @DisplayName("다른 stripe 의 상품은 lock 을 잡은 상품을 기다리지 않음")
+    public void independentStripeTest() throws InterruptedException {
+        StripedLocks stripedLocks = new StripedLocks(64);
+        String other = "11002";
+        for (int i = 11003; stripedLocks.stripe(other) == stripedLocks.stripe("11001"); i++) {
+            other = String.valueOf(i);
+        }
+        String otherProdId = other;
+
+        ReentrantLock lock = stripedLocks.lock("11001");
+        lock.lock();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch acquired = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                ReentrantLock otherLock = stripedLocks.lock(otherProdId);
+                if (otherLock.tryLock()) {
+                    otherLock.unlock();
+                    acquired.countDown();
+                }
+            });
+            assertThat(acquired.await(1, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            lock.unlock();
+            executor.shutdown();
+        }
+    }
+}